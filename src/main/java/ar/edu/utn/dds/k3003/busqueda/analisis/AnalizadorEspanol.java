@@ -0,0 +1,112 @@
+package ar.edu.utn.dds.k3003.busqueda.analisis;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+
+//Análisis de texto en español, el mismo al indexar y al buscar:
+//minúsculas, sin acentos, separando por todo lo que no sea letra o dígito,
+//sin stopwords y con un stemmer liviano que solo saca plural y género.
+//Así "Córdoba", "cordoba" y "córdobas" quedan en el mismo término ("cordob").
+//IndexacionService guarda los términos en el campo tokens de cada hecho y la búsqueda
+//analiza la consulta igual, para matchear por igualdad contra ese índice multikey.
+public final class AnalizadorEspanol {
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // Ya sin acentos, porque se comparan después de normalizar
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "al", "algo", "algunas", "algunos", "ante", "antes", "como", "con", "contra", "cual",
+            "cuando", "de", "del", "desde", "donde", "durante", "e", "el", "ella", "ellas", "ellos",
+            "en", "entre", "era", "es", "esa", "esas", "ese", "eso", "esos", "esta", "estaba", "estan",
+            "estar", "estas", "este", "esto", "estos", "fue", "fueron", "ha", "han", "hasta", "hay",
+            "la", "las", "le", "les", "lo", "los", "mas", "me", "mi", "mis", "mucho", "muchos", "muy",
+            "nada", "ni", "no", "nos", "nosotros", "o", "otra", "otras", "otro", "otros", "para",
+            "pero", "poco", "por", "porque", "que", "quien", "quienes", "se", "ser", "si", "sin",
+            "sobre", "son", "su", "sus", "tambien", "tanto", "te", "ti", "todo", "todos", "tu", "tus",
+            "u", "un", "una", "unas", "uno", "unos", "y", "ya", "yo"
+    );
+
+    private AnalizadorEspanol() {
+    }
+
+    /**
+     * Texto en minúsculas, sin acentos y con los espacios colapsados, sin sacar palabras
+     * ni stemming (para comparar frases enteras, ej. las sugerencias por prefijo).
+     */
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        return MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT)
+                .trim()
+                .replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Términos del texto en orden y con repeticiones (para contar frecuencias).
+     */
+    public static List<String> analizar(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return List.of();
+        }
+        String normalizado = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+
+        List<String> terminos = new ArrayList<>();
+        for (String token : SEPARADORES.split(normalizado)) {
+            if (!token.isEmpty() && !STOPWORDS.contains(token)) {
+                terminos.add(raiz(token));
+            }
+        }
+        return terminos;
+    }
+
+    /**
+     * Términos distintos de todos los textos, en orden de primera aparición.
+     */
+    public static List<String> terminos(String... textos) {
+        Set<String> distintos = new LinkedHashSet<>();
+        for (String texto : textos) {
+            distintos.addAll(analizar(texto));
+        }
+        return new ArrayList<>(distintos);
+    }
+
+    // Stemmer liviano: plurales (-eses, -ces -> z, -s tras vocal) y vocal final de género,
+    // dejando al menos 3 letras. Así singular y plural llegan a la misma raíz ("ruta", "rutas" -> "rut").
+    // No toca tokens con dígitos (números, códigos, fechas).
+    static String raiz(String token) {
+        if (!token.chars().allMatch(Character::isLetter)) {
+            return token;
+        }
+        String raiz = token;
+        int largo = raiz.length();
+        if (raiz.endsWith("eses") && largo - 2 >= 3) {
+            return raiz.substring(0, largo - 2);
+        }
+        if (raiz.endsWith("ces") && largo - 3 >= 2) {
+            return raiz.substring(0, largo - 3) + "z";
+        }
+        if (largo - 1 >= 3 && raiz.endsWith("s") && esVocalDeGenero(raiz.charAt(largo - 2))) {
+            raiz = raiz.substring(0, --largo);
+        }
+        if (largo - 1 >= 3 && esVocalDeGenero(raiz.charAt(largo - 1))) {
+            raiz = raiz.substring(0, largo - 1);
+        }
+        return raiz;
+    }
+
+    private static boolean esVocalDeGenero(char letra) {
+        return letra == 'a' || letra == 'o' || letra == 'e';
+    }
+}
@@ -0,0 +1,148 @@
+package ar.edu.utn.dds.k3003.busqueda.config;
+
+import ar.edu.utn.dds.k3003.busqueda.monitoreo.ConsultasLentas;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+
+//Latencia de cada comando de MongoDB de un cliente (tag cliente: sincronico | reactivo):
+//  metamapa.mongo.comando.latencia   por comando (find, aggregate, getMore, update, ...),
+//                                    colección y resultado (ok | error)
+//Así se distingue si una búsqueda lenta fue la página, el conteo o lo que vino después.
+//Solo se miden comandos sobre una colección; los de administración (hello, ping, explain...) no.
+//Los que pasan el umbral de busqueda.mongo.consultas-lentas van a ConsultasLentas con la forma
+//de su filtro. El documento del comando solo es válido durante commandStarted, así que la forma
+//(y la copia para el explain, si está habilitado) se arma ahí.
+class MetricasComandosMongo implements CommandListener {
+
+    private static final int MAX_LARGO_FORMA = 1000;
+    private static final Set<String> EXPLICABLES = Set.of("find", "aggregate", "count", "distinct");
+    private static final Set<String> CAMPOS_SESION = Set.of("lsid", "txnNumber", "apiVersion", "apiStrict",
+            "apiDeprecationErrors");
+
+    private record Comando(String nombre, String coleccion, String forma, BsonDocument original) {
+    }
+
+    private final Map<Integer, Comando> enCurso = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final ConsultasLentas consultasLentas;
+    private final String cliente;
+
+    MetricasComandosMongo(MeterRegistry meterRegistry, ConsultasLentas consultasLentas, String cliente) {
+        this.meterRegistry = meterRegistry;
+        this.consultasLentas = consultasLentas;
+        this.cliente = cliente;
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        BsonDocument comando = event.getCommand();
+        String coleccion = coleccion(event.getCommandName(), comando);
+        if (coleccion == null) {
+            return;
+        }
+        BsonDocument original = consultasLentas.conExplain() && EXPLICABLES.contains(event.getCommandName())
+                ? paraExplain(comando)
+                : null;
+        enCurso.put(event.getRequestId(),
+                new Comando(event.getCommandName(), coleccion, forma(event.getCommandName(), comando), original));
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        terminar(event.getRequestId(), event.getElapsedTime(TimeUnit.NANOSECONDS), "ok");
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        terminar(event.getRequestId(), event.getElapsedTime(TimeUnit.NANOSECONDS), "error");
+    }
+
+    private void terminar(int requestId, long duracionNanos, String resultado) {
+        Comando comando = enCurso.remove(requestId);
+        if (comando == null) {
+            return;
+        }
+        Timer.builder("metamapa.mongo.comando.latencia")
+                .tag("cliente", cliente)
+                .tag("comando", comando.nombre())
+                .tag("coleccion", comando.coleccion())
+                .tag("resultado", resultado)
+                .register(meterRegistry)
+                .record(duracionNanos, TimeUnit.NANOSECONDS);
+
+        if (consultasLentas.esLenta(duracionNanos)) {
+            consultasLentas.registrar(cliente, comando.nombre(), comando.coleccion(), duracionNanos,
+                    comando.forma(), comando.original());
+        }
+    }
+
+    // La colección es el valor del nombre del comando ({find: "hechos_indexados", ...}), salvo en getMore
+    private static String coleccion(String nombre, BsonDocument comando) {
+        BsonValue valor = "getMore".equals(nombre) ? comando.get("collection") : comando.get(nombre);
+        return valor != null && valor.isString() ? valor.asString().getValue() : null;
+    }
+
+    private static String forma(String nombre, BsonDocument comando) {
+        BsonValue filtro = switch (nombre) {
+            case "find" -> comando.get("filter");
+            case "aggregate" -> comando.get("pipeline");
+            case "count", "distinct", "findAndModify" -> comando.get("query");
+            case "update" -> primero(comando.get("updates"), "q");
+            case "delete" -> primero(comando.get("deletes"), "q");
+            default -> null;
+        };
+        if (filtro == null) {
+            return "";
+        }
+        BsonValue forma = forma(filtro);
+        String json = forma.isDocument()
+                ? forma.asDocument().toJson()
+                : new BsonDocument("pipeline", forma).toJson();
+        return json.length() <= MAX_LARGO_FORMA ? json : json.substring(0, MAX_LARGO_FORMA) + "...";
+    }
+
+    // Del primer elemento de un lote (updates o deletes), el campo pedido
+    private static BsonValue primero(BsonValue lote, String campo) {
+        if (lote == null || !lote.isArray() || lote.asArray().isEmpty()) {
+            return null;
+        }
+        BsonValue elemento = lote.asArray().get(0);
+        return elemento.isDocument() ? elemento.asDocument().get(campo) : null;
+    }
+
+    // Mismas claves y operadores, valores reemplazados por "?" (un array de valores es un solo "?")
+    private static BsonValue forma(BsonValue valor) {
+        if (valor.isDocument()) {
+            BsonDocument forma = new BsonDocument();
+            valor.asDocument().forEach((clave, hijo) -> forma.append(clave, forma(hijo)));
+            return forma;
+        }
+        if (valor.isArray() && valor.asArray().stream().anyMatch(BsonValue::isDocument)) {
+            BsonArray forma = new BsonArray();
+            valor.asArray().forEach(hijo -> forma.add(forma(hijo)));
+            return forma;
+        }
+        return new BsonString("?");
+    }
+
+    // Copia sin los campos de sesión ni los agregados por el driver ($db, $clusterTime, $readPreference)
+    private static BsonDocument paraExplain(BsonDocument comando) {
+        BsonDocument copia = comando.clone();
+        copia.keySet().removeIf(clave -> clave.startsWith("$") || CAMPOS_SESION.contains(clave));
+        return copia;
+    }
+}
@@ -0,0 +1,90 @@
+package ar.edu.utn.dds.k3003.busqueda.config;
+
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckOutStartedEvent;
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionClosedEvent;
+import com.mongodb.event.ConnectionCreatedEvent;
+import com.mongodb.event.ConnectionPoolListener;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+//Métricas del pool de conexiones de un cliente de MongoDB (tag cliente: sincronico | reactivo),
+//sumando los pools de todos los servidores:
+//  metamapa.mongo.pool.espera       tiempo hasta obtener una conexión (resultado: ok | razón del fallo)
+//  metamapa.mongo.pool.en_uso       conexiones prestadas a una operación
+//  metamapa.mongo.pool.esperando    operaciones esperando una conexión
+//  metamapa.mongo.pool.conexiones   conexiones abiertas
+//Si en_uso llega a busqueda.mongo.pool.max-size y la espera crece, el pool es el cuello de botella.
+class MetricasPoolMongo implements ConnectionPoolListener {
+
+    private final AtomicInteger enUso = new AtomicInteger();
+    private final AtomicInteger esperando = new AtomicInteger();
+    private final AtomicInteger conexiones = new AtomicInteger();
+    private final MeterRegistry meterRegistry;
+    private final String cliente;
+    private final Timer esperaOk;
+
+    MetricasPoolMongo(MeterRegistry meterRegistry, String cliente) {
+        this.meterRegistry = meterRegistry;
+        this.cliente = cliente;
+        this.esperaOk = timerEspera("ok");
+
+        Gauge.builder("metamapa.mongo.pool.en_uso", enUso, AtomicInteger::get)
+                .tag("cliente", cliente)
+                .register(meterRegistry);
+        Gauge.builder("metamapa.mongo.pool.esperando", esperando, AtomicInteger::get)
+                .tag("cliente", cliente)
+                .register(meterRegistry);
+        Gauge.builder("metamapa.mongo.pool.conexiones", conexiones, AtomicInteger::get)
+                .tag("cliente", cliente)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void connectionCheckOutStarted(ConnectionCheckOutStartedEvent event) {
+        esperando.incrementAndGet();
+    }
+
+    @Override
+    public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+        esperando.decrementAndGet();
+        enUso.incrementAndGet();
+        esperaOk.record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+        esperando.decrementAndGet();
+        timerEspera(event.getReason().name().toLowerCase())
+                .record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void connectionCheckedIn(ConnectionCheckedInEvent event) {
+        enUso.decrementAndGet();
+    }
+
+    @Override
+    public void connectionCreated(ConnectionCreatedEvent event) {
+        conexiones.incrementAndGet();
+    }
+
+    @Override
+    public void connectionClosed(ConnectionClosedEvent event) {
+        conexiones.decrementAndGet();
+    }
+
+    private Timer timerEspera(String resultado) {
+        return Timer.builder("metamapa.mongo.pool.espera")
+                .tag("cliente", cliente)
+                .tag("resultado", resultado)
+                .register(meterRegistry);
+    }
+}
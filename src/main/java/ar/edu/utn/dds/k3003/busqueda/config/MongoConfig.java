@@ -1,16 +1,34 @@
 package ar.edu.utn.dds.k3003.busqueda.config;
 
+import ar.edu.utn.dds.k3003.busqueda.monitoreo.ConsultasLentas;
 import com.mongodb.ConnectionString;
 import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoCompressor;
+import com.mongodb.ReadPreference;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.mongodb.config.AbstractMongoClientConfiguration;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.util.ClassUtils;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//Clientes de MongoDB (sincrónico y reactivo) con pool, timeouts y compresión de busqueda.mongo.*,
+//y métricas del pool (MetricasPoolMongo) y de cada comando (MetricasComandosMongo).
+//Las opciones de busqueda.mongo se aplican después de la URI, así que tienen prioridad sobre ella.
+//La read preference de la URI queda para escrituras y lecturas de indexación; la búsqueda usa
+//la de busqueda.mongo.lectura-busqueda (ver lecturaBusqueda).
 @Configuration
+@Slf4j
 public class MongoConfig extends AbstractMongoClientConfiguration {
 
     @Value("${spring.data.mongodb.uri}")
@@ -19,6 +37,40 @@ public class MongoConfig extends AbstractMongoClientConfiguration {
     @Value("${spring.data.mongodb.database}")
     private String databaseName;
 
+    @Value("${busqueda.mongo.pool.min-size:0}")
+    private int poolMinimo;
+
+    @Value("${busqueda.mongo.pool.max-size:100}")
+    private int poolMaximo;
+
+    @Value("${busqueda.mongo.pool.max-wait:2s}")
+    private Duration poolMaxEspera;
+
+    @Value("${busqueda.mongo.connect-timeout:10s}")
+    private Duration connectTimeout;
+
+    // 0 = sin límite (el default del driver)
+    @Value("${busqueda.mongo.socket-timeout:0s}")
+    private Duration socketTimeout;
+
+    @Value("${busqueda.mongo.lectura-busqueda.read-preference:primary}")
+    private String readPreferenceBusqueda;
+
+    // 0 = sin límite de atraso de la réplica
+    @Value("${busqueda.mongo.lectura-busqueda.max-staleness:0s}")
+    private Duration maxStalenessBusqueda;
+
+    @Value("${busqueda.mongo.compresores:}")
+    private List<String> compresores;
+
+    private final MeterRegistry meterRegistry;
+    private final ConsultasLentas consultasLentas;
+
+    public MongoConfig(MeterRegistry meterRegistry, ConsultasLentas consultasLentas) {
+        this.meterRegistry = meterRegistry;
+        this.consultasLentas = consultasLentas;
+    }
+
     @Override
     protected String getDatabaseName() {
         return databaseName;
@@ -26,16 +78,91 @@ public class MongoConfig extends AbstractMongoClientConfiguration {
 
     @Override
     public MongoClient mongoClient() {
-        ConnectionString connectionString = new ConnectionString(mongoUri);
-        MongoClientSettings mongoClientSettings = MongoClientSettings.builder()
-                .applyConnectionString(connectionString)
-                .build();
-
-        return MongoClients.create(mongoClientSettings);
+        return MongoClients.create(configuracionCliente("sincronico"));
     }
 
     @Bean
     public MongoTemplate mongoTemplate() {
         return new MongoTemplate(mongoClient(), getDatabaseName());
     }
-}
\ No newline at end of file
+
+    // Cliente del driver reactivo, con la misma configuración, para la búsqueda reactiva
+    @Bean
+    public com.mongodb.reactivestreams.client.MongoClient reactiveMongoClient() {
+        return com.mongodb.reactivestreams.client.MongoClients.create(configuracionCliente("reactivo"));
+    }
+
+    @Bean
+    public ReactiveMongoTemplate reactiveMongoTemplate() {
+        return new ReactiveMongoTemplate(reactiveMongoClient(), getDatabaseName());
+    }
+
+    /**
+     * Read preference de las consultas de búsqueda: primary por defecto; secondaryPreferred es opt-in
+     * para sacar la carga de lectura del primario, con max-staleness para no leer de réplicas muy atrasadas
+     * (y CacheBusqueda se apaga o acorta su TTL, porque podría cachear páginas viejas).
+     * Con primary el max-staleness no aplica (siempre se lee el primario) y se ignora.
+     */
+    @Bean
+    public ReadPreference lecturaBusqueda() {
+        String modo = readPreferenceBusqueda.trim();
+        ReadPreference readPreference;
+        if (ReadPreference.primary().getName().equalsIgnoreCase(modo)) {
+            if (!maxStalenessBusqueda.isZero()) {
+                log.info("📖 max-staleness {} ignorado: con read preference primary no aplica", maxStalenessBusqueda);
+            }
+            readPreference = ReadPreference.primary();
+        } else if (maxStalenessBusqueda.isZero()) {
+            readPreference = ReadPreference.valueOf(modo);
+        } else {
+            readPreference = ReadPreference.valueOf(modo, List.of(),
+                    maxStalenessBusqueda.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        log.info("📖 Lecturas de búsqueda con read preference {}", readPreference);
+        return readPreference;
+    }
+
+    private MongoClientSettings configuracionCliente(String cliente) {
+        ConnectionString connectionString = new ConnectionString(mongoUri);
+        MongoClientSettings.Builder builder = MongoClientSettings.builder()
+                .applyConnectionString(connectionString)
+                .applyToConnectionPoolSettings(pool -> pool
+                        .minSize(poolMinimo)
+                        .maxSize(poolMaximo)
+                        .maxWaitTime(poolMaxEspera.toMillis(), TimeUnit.MILLISECONDS)
+                        .addConnectionPoolListener(new MetricasPoolMongo(meterRegistry, cliente)))
+                .addCommandListener(new MetricasComandosMongo(meterRegistry, consultasLentas, cliente))
+                .applyToSocketSettings(socket -> socket
+                        .connectTimeout((int) connectTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                        .readTimeout((int) socketTimeout.toMillis(), TimeUnit.MILLISECONDS));
+
+        List<MongoCompressor> compresoresCliente = compresores();
+        if (!compresoresCliente.isEmpty()) {
+            builder.compressorList(compresoresCliente);
+        }
+        return builder.build();
+    }
+
+    // En orden de preferencia: el servidor usa el primero que también soporte
+    private List<MongoCompressor> compresores() {
+        List<MongoCompressor> resultado = new ArrayList<>();
+        for (String compresor : compresores) {
+            switch (compresor.trim().toLowerCase()) {
+                case "" -> {
+                }
+                case "zlib" -> resultado.add(MongoCompressor.createZlibCompressor());
+                case "zstd" -> {
+                    // zstd necesita zstd-jni; sin la librería el driver falla al comprimir
+                    if (ClassUtils.isPresent("com.github.luben.zstd.Zstd", getClass().getClassLoader())) {
+                        resultado.add(MongoCompressor.createZstdCompressor());
+                    } else {
+                        log.warn("⚠️ Compresión zstd pedida pero zstd-jni no está en el classpath, se ignora");
+                    }
+                }
+                default -> throw new IllegalArgumentException(
+                        "busqueda.mongo.compresores admite zlib y zstd: " + compresor);
+            }
+        }
+        return resultado;
+    }
+}
@@ -1,25 +1,62 @@
 package ar.edu.utn.dds.k3003.busqueda.config;
 
+import ar.edu.utn.dds.k3003.busqueda.analisis.AnalizadorEspanol;
+import ar.edu.utn.dds.k3003.busqueda.model.HechoIndexado;
+import ar.edu.utn.dds.k3003.busqueda.model.OcrPdI;
+import ar.edu.utn.dds.k3003.busqueda.model.PdIIndexado;
+import ar.edu.utn.dds.k3003.busqueda.model.PdIPendiente;
+import com.mongodb.client.result.UpdateResult;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.BeanFactory;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.expression.BeanFactoryResolver;
+import org.springframework.data.mongodb.core.BulkOperations;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-//Verificador de índices (no los crea, solo verifica).
-//Los índices se crean automáticamente por @TextIndexed y auto-index-creation=true
+
+//Crea los índices declarados en las entidades y migra datos viejos de hechos_indexados.
+//MongoConfig arma su propio mapping context (AbstractMongoClientConfiguration), que deja
+//auto-index-creation apagado, así que los @Indexed/@TextIndexed/@CompoundIndex se aseguran acá.
+//Antes se migran los hechos con PDIs en listas sueltas (pdi_contenido, ocr_text, pdi_ids) al array pdis,
+//y se borra el índice de texto viejo que apuntaba a esas listas (solo puede haber uno por colección).
+//Los hechos escritos antes de que existiera el campo tokens se analizan una vez acá.
 @Configuration
 @Slf4j
 public class MongoIndexInitializer {
 
+    private static final String COLECCION_HECHOS = "hechos_indexados";
+    private static final List<String> CAMPOS_PDI_VIEJOS = List.of("pdi_contenido", "ocr_text", "pdi_ids");
+    private static final int TAMANIO_LOTE_TOKENS = 500;
+
     @Bean
-    public CommandLineRunner verifyMongoIndexes(MongoTemplate mongoTemplate) {
+    public CommandLineRunner verifyMongoIndexes(MongoTemplate mongoTemplate, BeanFactory beanFactory) {
         return args -> {
             log.info("Verificando índices de MongoDB...");
 
             try {
-                var indexes = mongoTemplate.indexOps("hechos_indexados").getIndexInfo();
+                borrarIndiceDeTextoViejo(mongoTemplate);
+                migrarPdIsASubdocumentos(mongoTemplate);
+                completarTokens(mongoTemplate);
+                asegurarIndices(mongoTemplate, beanFactory, HechoIndexado.class, PdIPendiente.class, OcrPdI.class);
+
+                var indexes = mongoTemplate.indexOps(COLECCION_HECHOS).getIndexInfo();
 
                 log.info("Índices encontrados: {}", indexes.size());
                 indexes.forEach(idx ->
@@ -28,12 +65,12 @@ public class MongoIndexInitializer {
 
                 // Verificar que existe el índice de texto
                 boolean hasTextIndex = indexes.stream()
-                        .anyMatch(idx -> idx.getName().contains("text"));
+                        .anyMatch(idx -> idx.getName().contains("text") || idx.getName().contains("Text"));
 
                 if (hasTextIndex) {
                     log.info("Índice de texto completo configurado correctamente");
                 } else {
-                    log.warn("Índice de texto no encontrado. Se creará automáticamente al guardar el primer documento.");
+                    log.warn("Índice de texto no encontrado. Las búsquedas con el motor mongo van a fallar.");
                 }
 
             } catch (Exception e) {
@@ -41,4 +78,150 @@ public class MongoIndexInitializer {
             }
         };
     }
-}
\ No newline at end of file
+
+    // Para los índices de texto, getIndexFields trae los campos con peso
+    private static void borrarIndiceDeTextoViejo(MongoTemplate mongoTemplate) {
+        for (IndexInfo indice : mongoTemplate.indexOps(COLECCION_HECHOS).getIndexInfo()) {
+            boolean viejo = indice.getIndexFields().stream()
+                    .anyMatch(campo -> CAMPOS_PDI_VIEJOS.contains(campo.getKey()));
+            if (viejo) {
+                log.warn("⚠️ Borrando índice {} sobre los campos de PDI viejos", indice.getName());
+                mongoTemplate.indexOps(COLECCION_HECHOS).dropIndex(indice.getName());
+            }
+        }
+    }
+
+    /**
+     * Pasa los hechos con el modelo viejo al array pdis, con un solo updateMany (pipeline).
+     * Las listas sueltas no dicen qué texto es de qué PDI, así que cada id viejo queda como
+     * un PDI sin contenido (la próxima entrega de ese PDI lo completa en el lugar) y todo el
+     * texto viejo queda en un PDI sin id, que la búsqueda sigue encontrando.
+     */
+    private static void migrarPdIsASubdocumentos(MongoTemplate mongoTemplate) {
+        Criteria conCamposViejos = new Criteria().orOperator(CAMPOS_PDI_VIEJOS.stream()
+                .map(campo -> Criteria.where(campo).exists(true))
+                .toArray(Criteria[]::new));
+
+        Document porId = new Document("$map", new Document()
+                .append("input", new Document("$ifNull", List.of("$pdi_ids", List.of())))
+                .append("as", "id")
+                .append("in", new Document("id", "$$id").append("actualizado", "$ultimaActualizacion")));
+        Document textoViejo = new Document()
+                .append("contenido", unir("$pdi_contenido"))
+                .append("ocr_text", unir("$ocr_text"))
+                .append("ocr_archivado", false)
+                .append("etiquetas_ia", new Document("$ifNull", List.of("$etiquetas_ia", List.of())))
+                .append("actualizado", "$ultimaActualizacion");
+        Document hayTextoViejo = new Document("$gt", List.of(new Document("$size", new Document("$concatArrays", List.of(
+                new Document("$ifNull", List.of("$pdi_contenido", List.of())),
+                new Document("$ifNull", List.of("$ocr_text", List.of()))))), 0));
+
+        AggregationOperation migrar = context -> new Document("$set", new Document("pdis", new Document("$concatArrays", List.of(
+                new Document("$ifNull", List.of("$pdis", List.of())),
+                porId,
+                new Document("$cond", List.of(hayTextoViejo, List.of(textoViejo), List.of()))))));
+        AggregationOperation quitarViejos = context -> new Document("$unset", CAMPOS_PDI_VIEJOS);
+
+        UpdateResult resultado = mongoTemplate.updateMulti(new Query(conCamposViejos),
+                AggregationUpdate.from(List.of(migrar, quitarViejos)), COLECCION_HECHOS);
+        if (resultado.getModifiedCount() > 0) {
+            log.info("🔄 {} hechos migrados al modelo de PDIs como subdocumentos", resultado.getModifiedCount());
+        }
+    }
+
+    /**
+     * Calcula tokens_titulo, tokens_propios, tokens y los tokens de cada PDI de los hechos que no los tienen.
+     * El OCR archivado se lee de ocr_pdis para que sus términos también entren.
+     * Cada lote se escribe en un bulk condicionado por version: si otro escritor cambió
+     * el hecho entretanto queda sin tokens_propios y se completa en el próximo arranque.
+     */
+    private static void completarTokens(MongoTemplate mongoTemplate) {
+        Query sinTokens = new Query(new Criteria().orOperator(
+                Criteria.where("tokens_propios").exists(false),
+                Criteria.where("tokens_titulo").exists(false)));
+        List<HechoIndexado> lote = new ArrayList<>(TAMANIO_LOTE_TOKENS);
+        long completados = 0;
+        try (Stream<HechoIndexado> hechos = mongoTemplate.stream(sinTokens, HechoIndexado.class)) {
+            for (HechoIndexado hecho : (Iterable<HechoIndexado>) hechos::iterator) {
+                lote.add(hecho);
+                if (lote.size() == TAMANIO_LOTE_TOKENS) {
+                    completados += completarTokens(mongoTemplate, lote);
+                    lote.clear();
+                }
+            }
+        }
+        if (!lote.isEmpty()) {
+            completados += completarTokens(mongoTemplate, lote);
+        }
+        if (completados > 0) {
+            log.info("🔤 {} hechos analizados para el campo tokens", completados);
+        }
+    }
+
+    private static int completarTokens(MongoTemplate mongoTemplate, List<HechoIndexado> lote) {
+        List<String> archivados = lote.stream()
+                .flatMap(hecho -> hecho.getPdis().stream())
+                .filter(pdi -> pdi.isOcrArchivado() && pdi.getId() != null)
+                .map(PdIIndexado::getId)
+                .toList();
+        Map<String, String> ocrPorPdI = archivados.isEmpty() ? Map.of()
+                : mongoTemplate.find(new Query(Criteria.where("_id").in(archivados)), OcrPdI.class).stream()
+                .collect(Collectors.toMap(OcrPdI::getId, OcrPdI::getTexto, (a, b) -> a));
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, HechoIndexado.class);
+        for (HechoIndexado hecho : lote) {
+            for (PdIIndexado pdi : hecho.getPdis()) {
+                String ocr = pdi.getId() != null
+                        ? ocrPorPdI.getOrDefault(pdi.getId(), pdi.getOcrText())
+                        : pdi.getOcrText();
+                pdi.setTokens(AnalizadorEspanol.terminos(pdi.getContenido(), ocr));
+            }
+            hecho.recalcularTokens();
+
+            Criteria mismaVersion = hecho.getVersion() == null
+                    ? Criteria.where("version").exists(false)
+                    : Criteria.where("version").is(hecho.getVersion());
+            bulk.updateOne(new Query(Criteria.where("_id").is(hecho.getId()).andOperator(mismaVersion)),
+                    new Update()
+                            .set("pdis", hecho.getPdis())
+                            .set("tokens_titulo", hecho.getTokensTitulo())
+                            .set("tokens_propios", hecho.getTokensPropios())
+                            .set("tokens", hecho.getTokens())
+                            .inc("version", 1));
+        }
+        return bulk.execute().getModifiedCount();
+    }
+
+    // Concatena un array de textos separándolos con saltos de línea ("" si no hay)
+    private static Document unir(String campo) {
+        return new Document("$reduce", new Document()
+                .append("input", new Document("$ifNull", List.of(campo, List.of())))
+                .append("initialValue", "")
+                .append("in", new Document("$concat", List.of("$$value",
+                        new Document("$cond", List.of(new Document("$eq", List.of("$$value", "")), "", "\n")),
+                        "$$this"))));
+    }
+
+    // Las expresiones SpEL de las anotaciones (ej. el TTL de PdIPendiente) pueden referenciar beans
+    private static void asegurarIndices(MongoTemplate mongoTemplate, BeanFactory beanFactory, Class<?>... entidades) {
+        MongoPersistentEntityIndexResolver resolver = new MongoPersistentEntityIndexResolver(
+                mongoTemplate.getConverter().getMappingContext());
+        resolver.setEvaluationContextProvider(rootObject -> {
+            StandardEvaluationContext contexto = new StandardEvaluationContext(rootObject);
+            contexto.setBeanResolver(new BeanFactoryResolver(beanFactory));
+            return contexto;
+        });
+
+        for (Class<?> entidad : entidades) {
+            resolver.resolveIndexFor(entidad).forEach(indice -> {
+                try {
+                    mongoTemplate.indexOps(entidad).createIndex(indice);
+                } catch (Exception e) {
+                    // Ej. el único por título+colección con duplicados previos: no frena al resto
+                    log.warn("⚠️ No se pudo crear el índice {} de {}: {}",
+                            indice.getIndexKeys().toJson(), entidad.getSimpleName(), e.getMessage());
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package ar.edu.utn.dds.k3003.busqueda.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
+import org.springframework.retry.backoff.ExponentialRandomBackOffPolicy;
+import org.springframework.retry.policy.SimpleRetryPolicy;
+import org.springframework.retry.support.RetryTemplate;
+
+import java.time.Duration;
+import java.util.Map;
+
+
+//Reintentos de escrituras de HechoIndexado ante conflictos de concurrencia.
+//Un conflicto es un save condicionado por version que no matcheó (otro nodo escribió antes)
+//o dos inserts simultáneos del mismo hecho, que IndexacionService reporta como
+//OptimisticLockingFailureException con la DuplicateKeyException como causa.
+//Cada reintento vuelve a leer y a mergear. Una clave duplicada del índice único de
+//título+colección no es un conflicto: no se reintenta y falla en el primer intento.
+@Configuration
+public class RetryConfig {
+
+    @Bean
+    public RetryTemplate indexacionRetryTemplate(
+            MeterRegistry meterRegistry,
+            @Value("${busqueda.indexacion.reintentos.max-intentos:5}") int maxIntentos,
+            @Value("${busqueda.indexacion.reintentos.backoff-inicial:20ms}") Duration backoffInicial,
+            @Value("${busqueda.indexacion.reintentos.multiplicador:2.0}") double multiplicador,
+            @Value("${busqueda.indexacion.reintentos.backoff-maximo:1s}") Duration backoffMaximo) {
+
+        SimpleRetryPolicy retryPolicy = new SimpleRetryPolicy(
+                maxIntentos,
+                Map.of(OptimisticLockingFailureException.class, true),
+                true
+        );
+
+        // Backoff exponencial con jitter, para que los nodos en conflicto no reintenten a la vez
+        ExponentialRandomBackOffPolicy backOffPolicy = new ExponentialRandomBackOffPolicy();
+        backOffPolicy.setInitialInterval(backoffInicial.toMillis());
+        backOffPolicy.setMultiplier(multiplicador);
+        backOffPolicy.setMaxInterval(backoffMaximo.toMillis());
+
+        RetryTemplate retryTemplate = new RetryTemplate();
+        retryTemplate.setRetryPolicy(retryPolicy);
+        retryTemplate.setBackOffPolicy(backOffPolicy);
+        retryTemplate.registerListener(new RetryListener() {
+            @Override
+            public <T, E extends Throwable> void onError(RetryContext context,
+                                                         RetryCallback<T, E> callback,
+                                                         Throwable throwable) {
+                if (!(throwable instanceof OptimisticLockingFailureException)) {
+                    return;
+                }
+                String tipo = throwable.getCause() instanceof DuplicateKeyException ? "clave_duplicada" : "version";
+                meterRegistry.counter("metamapa.busqueda.indexacion.conflictos", "tipo", tipo).increment();
+                if (context.getRetryCount() < maxIntentos) {
+                    meterRegistry.counter("metamapa.busqueda.indexacion.reintentos").increment();
+                }
+            }
+
+            @Override
+            public <T, E extends Throwable> void close(RetryContext context,
+                                                       RetryCallback<T, E> callback,
+                                                       Throwable throwable) {
+                if (throwable != null && context.getRetryCount() >= maxIntentos) {
+                    meterRegistry.counter("metamapa.busqueda.indexacion.reintentos_agotados").increment();
+                }
+            }
+        });
+        return retryTemplate;
+    }
+}
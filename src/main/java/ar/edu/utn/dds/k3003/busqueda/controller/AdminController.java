@@ -2,14 +2,24 @@ package ar.edu.utn.dds.k3003.busqueda.controller;
 
 import ar.edu.utn.dds.k3003.busqueda.dto.HechoDTO;
 import ar.edu.utn.dds.k3003.busqueda.dto.PdIDTO;
+import ar.edu.utn.dds.k3003.busqueda.dto.ResultadoLoteDTO;
+import ar.edu.utn.dds.k3003.busqueda.indice.IndiceLimpiadoEvent;
 import ar.edu.utn.dds.k3003.busqueda.repository.HechoIndexadoRepository;
+import ar.edu.utn.dds.k3003.busqueda.service.ExportacionService;
 import ar.edu.utn.dds.k3003.busqueda.service.IndexacionService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Controller para operaciones administrativas del índice.
@@ -22,11 +32,17 @@ public class AdminController {
 
     private final IndexacionService indexacionService;
     private final HechoIndexadoRepository repository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ExportacionService exportacionService;
 
     public AdminController(IndexacionService indexacionService,
-                           HechoIndexadoRepository repository) {
+                           HechoIndexadoRepository repository,
+                           ApplicationEventPublisher eventPublisher,
+                           ExportacionService exportacionService) {
         this.indexacionService = indexacionService;
         this.repository = repository;
+        this.eventPublisher = eventPublisher;
+        this.exportacionService = exportacionService;
     }
 
     /**
@@ -35,28 +51,11 @@ public class AdminController {
      * Body: Lista de HechoDTO
      */
     @PostMapping("/sync/hechos")
-    public ResponseEntity<Map<String, Object>> sincronizarHechos(
+    public ResponseEntity<ResultadoLoteDTO> sincronizarHechos(
             @RequestBody List<HechoDTO> hechos) {
         log.info("🔄 Iniciando sincronización de {} hechos", hechos.size());
 
-        int exitosos = 0;
-        int errores = 0;
-
-        for (HechoDTO hecho : hechos) {
-            try {
-                indexacionService.indexarHecho(hecho);
-                exitosos++;
-            } catch (Exception e) {
-                log.error("Error indexando hecho {}: {}", hecho.id(), e.getMessage());
-                errores++;
-            }
-        }
-
-        Map<String, Object> resultado = Map.of(
-                "total", hechos.size(),
-                "exitosos", exitosos,
-                "errores", errores
-        );
+        ResultadoLoteDTO resultado = indexacionService.indexarHechos(hechos);
 
         log.info("✅ Sincronización completada: {}", resultado);
         return ResponseEntity.ok(resultado);
@@ -68,28 +67,11 @@ public class AdminController {
      * Body: Lista de PdIDTO
      */
     @PostMapping("/sync/pdis")
-    public ResponseEntity<Map<String, Object>> sincronizarPdIs(
+    public ResponseEntity<ResultadoLoteDTO> sincronizarPdIs(
             @RequestBody List<PdIDTO> pdis) {
         log.info("🔄 Iniciando sincronización de {} PDIs", pdis.size());
 
-        int exitosos = 0;
-        int errores = 0;
-
-        for (PdIDTO pdi : pdis) {
-            try {
-                indexacionService.indexarPdI(pdi);
-                exitosos++;
-            } catch (Exception e) {
-                log.error("Error indexando PDI {}: {}", pdi.id(), e.getMessage());
-                errores++;
-            }
-        }
-
-        Map<String, Object> resultado = Map.of(
-                "total", pdis.size(),
-                "exitosos", exitosos,
-                "errores", errores
-        );
+        ResultadoLoteDTO resultado = indexacionService.indexarPdIs(pdis);
 
         log.info("✅ Sincronización de PDIs completada: {}", resultado);
         return ResponseEntity.ok(resultado);
@@ -103,6 +85,37 @@ public class AdminController {
     public ResponseEntity<String> limpiarIndice() {
         log.warn("⚠️ Limpiando todo el índice de búsqueda");
         repository.deleteAll();
+        eventPublisher.publishEvent(new IndiceLimpiadoEvent());
         return ResponseEntity.ok("Índice limpiado");
     }
-}
\ No newline at end of file
+
+    /**
+     * Exportar todo el índice como NDJSON (un hecho por línea, Extended JSON relajado).
+     * GET /api/admin/export
+     * GET /api/admin/export?gzip=true   (hechos_indexados.ndjson.gz)
+     *
+     * Se escribe sobre la respuesta a medida que se lee de MongoDB, sin timeout de request async.
+     * Se puede cargar en otro nodo con mongoimport --collection hechos_indexados.
+     */
+    @GetMapping("/export")
+    public void exportar(@RequestParam(value = "gzip", defaultValue = "false") boolean gzip,
+                         HttpServletResponse response) throws IOException {
+        log.info("📤 Exportando el índice{}", gzip ? " (gzip)" : "");
+        long startNanos = System.nanoTime();
+
+        String archivo = gzip ? "hechos_indexados.ndjson.gz" : "hechos_indexados.ndjson";
+        response.setContentType(gzip ? "application/gzip" : MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(archivo).build().toString());
+
+        try {
+            long exportados = exportacionService.exportar(response.getOutputStream(), gzip);
+            log.info("✅ Exportados {} hechos en {}s", exportados,
+                    TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startNanos));
+        } catch (IOException e) {
+            // El cliente cortó la descarga: la respuesta ya está comprometida, no hay nada que devolver
+            log.warn("⚠️ Exportación interrumpida: {}", e.getMessage());
+        }
+    }
+}
@@ -2,6 +2,11 @@ package ar.edu.utn.dds.k3003.busqueda.controller;
 
 import ar.edu.utn.dds.k3003.busqueda.dto.BusquedaRequestDTO;
 import ar.edu.utn.dds.k3003.busqueda.dto.BusquedaResponseDTO;
+import ar.edu.utn.dds.k3003.busqueda.dto.ConteoBusqueda;
+import ar.edu.utn.dds.k3003.busqueda.dto.CursorBusqueda;
+import ar.edu.utn.dds.k3003.busqueda.dto.FacetasDTO;
+import ar.edu.utn.dds.k3003.busqueda.dto.OrdenBusqueda;
+import ar.edu.utn.dds.k3003.busqueda.indice.IndiceSugerencias;
 import ar.edu.utn.dds.k3003.busqueda.service.BusquedaService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -30,19 +35,40 @@ public class BusquedaController {
      * Ejemplos:
      * GET /api/busqueda?q=incendio&page=0&size=10
      * GET /api/busqueda?q=incendio&tags=CABA,urgente&page=0&size=10
+     * GET /api/busqueda?q=incendio&orden=relevancia   (por defecto: reciente)
+     * GET /api/busqueda?q=incendio&page=1&cursor=<siguienteCursor de la página 0>
+     *
+     * Con cursor la página se busca a partir de la clave del último resultado anterior
+     * en lugar de saltear page * size resultados; page se sigue mandando para que
+     * paginaActual y tieneSiguiente sean correctos.
+     *
+     * GET /api/busqueda?q=incendio&conteo=omitir   (exacto | omitir | estimado | asincrono)
+     * Sin conteo exacto la búsqueda no hace el $count: totalResultados viene null,
+     * como cota inferior (estimado) o de un conteo en segundo plano cacheado (asincrono).
+     *
+     * GET /api/busqueda?q=incendio&facetas=true
+     * Agrega a la respuesta cuántos resultados hay por categoría, colección, tag y etiqueta IA
+     * (con conteo exacto y el motor mongo).
      */
     @GetMapping
     public ResponseEntity<BusquedaResponseDTO> buscar(
             @RequestParam("q") String consulta,
             @RequestParam(value = "tags", required = false) List<String> tags,
             @RequestParam(value = "page", defaultValue = "0") int pagina,
-            @RequestParam(value = "size", defaultValue = "10") int tamanio
+            @RequestParam(value = "size", defaultValue = "10") int tamanio,
+            @RequestParam(value = "orden", required = false) String orden,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "conteo", required = false) String conteo,
+            @RequestParam(value = "facetas", defaultValue = "false") boolean facetas
     ) {
-        log.info("🔍 GET /api/busqueda q='{}' tags={} page={} size={}",
-                consulta, tags, pagina, tamanio);
+        log.info("🔍 GET /api/busqueda q='{}' tags={} page={} size={} orden={}",
+                consulta, tags, pagina, tamanio, orden);
 
         try {
-            BusquedaRequestDTO request = new BusquedaRequestDTO(consulta, tags, pagina, tamanio);
+            BusquedaRequestDTO request = new BusquedaRequestDTO(
+                    consulta, tags, pagina, tamanio,
+                    OrdenBusqueda.desde(orden), CursorBusqueda.decodificar(cursor),
+                    ConteoBusqueda.desde(conteo), facetas);
             BusquedaResponseDTO response = busquedaService.buscar(request);
 
             return ResponseEntity.ok(response);
@@ -56,4 +82,36 @@ public class BusquedaController {
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * Autocompletado mientras se escribe: títulos, tags, etiquetas IA y ubicaciones
+     * que empiezan con el prefijo, de más a menos frecuentes. Se resuelve en memoria.
+     *
+     * GET /api/busqueda/sugerencias?prefix=incen&limit=5
+     */
+    @GetMapping("/sugerencias")
+    public ResponseEntity<List<IndiceSugerencias.Sugerencia>> sugerencias(
+            @RequestParam("prefix") String prefijo,
+            @RequestParam(value = "limit", defaultValue = "10") int limite
+    ) {
+        if (prefijo.isBlank() || limite <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(busquedaService.sugerir(prefijo, limite));
+    }
+
+    /**
+     * Conteos por faceta de todos los hechos, para navegar sin consulta.
+     * Se resuelve con contadores en memoria, sin ir a MongoDB.
+     *
+     * GET /api/busqueda/facetas?limit=10
+     */
+    @GetMapping("/facetas")
+    public ResponseEntity<FacetasDTO> facetas(
+            @RequestParam(value = "limit", defaultValue = "10") int limite
+    ) {
+        if (limite <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(busquedaService.facetasGlobales(limite));
+    }
+}
@@ -0,0 +1,105 @@
+package ar.edu.utn.dds.k3003.busqueda.controller;
+
+import ar.edu.utn.dds.k3003.busqueda.dto.BusquedaRequestDTO;
+import ar.edu.utn.dds.k3003.busqueda.dto.BusquedaResponseDTO;
+import ar.edu.utn.dds.k3003.busqueda.dto.BusquedaResultadoDTO;
+import ar.edu.utn.dds.k3003.busqueda.dto.ConteoBusqueda;
+import ar.edu.utn.dds.k3003.busqueda.dto.CursorBusqueda;
+import ar.edu.utn.dds.k3003.busqueda.dto.OrdenBusqueda;
+import ar.edu.utn.dds.k3003.busqueda.service.BusquedaReactivaService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Misma búsqueda que BusquedaController sobre el driver reactivo de MongoDB.
+ * Devuelve Mono/Flux, que Spring MVC atiende como request asíncrono: el thread de Tomcat
+ * se libera mientras se espera a Mongo. Experimental; sin comparación de carga contra /api/busqueda.
+ */
+@RestController
+@RequestMapping("/api/busqueda/reactiva")
+@ConditionalOnProperty(name = "busqueda.motor.tipo", havingValue = "mongo", matchIfMissing = true)
+@Slf4j
+public class BusquedaReactivaController {
+
+    private final BusquedaReactivaService busquedaReactivaService;
+
+    public BusquedaReactivaController(BusquedaReactivaService busquedaReactivaService) {
+        this.busquedaReactivaService = busquedaReactivaService;
+    }
+
+    /**
+     * Mismos parámetros y respuesta que GET /api/busqueda (sin facetas ni cache).
+     * Con conteo exacto la página y el total se piden a Mongo en paralelo.
+     *
+     * GET /api/busqueda/reactiva?q=incendio&page=0&size=10
+     */
+    @GetMapping
+    public Mono<ResponseEntity<BusquedaResponseDTO>> buscar(
+            @RequestParam("q") String consulta,
+            @RequestParam(value = "tags", required = false) List<String> tags,
+            @RequestParam(value = "page", defaultValue = "0") int pagina,
+            @RequestParam(value = "size", defaultValue = "10") int tamanio,
+            @RequestParam(value = "orden", required = false) String orden,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "conteo", required = false) String conteo
+    ) {
+        log.info("🔍 GET /api/busqueda/reactiva q='{}' tags={} page={} size={} orden={}",
+                consulta, tags, pagina, tamanio, orden);
+
+        BusquedaRequestDTO request;
+        try {
+            request = request(consulta, tags, pagina, tamanio, orden, cursor, conteo);
+        } catch (IllegalArgumentException e) {
+            log.warn("⚠️ Parámetros inválidos: {}", e.getMessage());
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        return busquedaReactivaService.buscar(request)
+                .map(ResponseEntity::ok)
+                .onErrorResume(e -> Mono.just(ResponseEntity.internalServerError().build()));
+    }
+
+    /**
+     * Los resultados de la página como NDJSON, uno por línea a medida que salen del cursor
+     * (sin total ni metadatos de paginación).
+     *
+     * GET /api/busqueda/reactiva/stream?q=incendio&size=100
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BusquedaResultadoDTO> streamear(
+            @RequestParam("q") String consulta,
+            @RequestParam(value = "tags", required = false) List<String> tags,
+            @RequestParam(value = "page", defaultValue = "0") int pagina,
+            @RequestParam(value = "size", defaultValue = "10") int tamanio,
+            @RequestParam(value = "orden", required = false) String orden,
+            @RequestParam(value = "cursor", required = false) String cursor
+    ) {
+        log.info("🔍 GET /api/busqueda/reactiva/stream q='{}' tags={} page={} size={}",
+                consulta, tags, pagina, tamanio);
+
+        return busquedaReactivaService.streamear(
+                request(consulta, tags, pagina, tamanio, orden, cursor, "omitir"));
+    }
+
+    // Parámetros inválidos en el stream: se detectan antes de empezar a escribir la respuesta
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Void> parametrosInvalidos(IllegalArgumentException e) {
+        log.warn("⚠️ Parámetros inválidos: {}", e.getMessage());
+        return ResponseEntity.badRequest().build();
+    }
+
+    private static BusquedaRequestDTO request(String consulta, List<String> tags, int pagina, int tamanio,
+                                              String orden, String cursor, String conteo) {
+        return new BusquedaRequestDTO(
+                consulta, tags, pagina, tamanio,
+                OrdenBusqueda.desde(orden), CursorBusqueda.decodificar(cursor),
+                ConteoBusqueda.desde(conteo));
+    }
+}
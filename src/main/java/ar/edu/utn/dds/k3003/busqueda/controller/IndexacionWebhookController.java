@@ -2,13 +2,20 @@ package ar.edu.utn.dds.k3003.busqueda.controller;
 
 import ar.edu.utn.dds.k3003.busqueda.dto.HechoDTO;
 import ar.edu.utn.dds.k3003.busqueda.dto.PdIDTO;
+import ar.edu.utn.dds.k3003.busqueda.service.ColaIndexacion;
 import ar.edu.utn.dds.k3003.busqueda.service.IndexacionService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 
 //Controller para recibir notificaciones de indexación desde otros módulos.
+//Con busqueda.webhook.asincrono (default) los eventos se encolan en ColaIndexacion
+//y se responde 202 sin esperar a MongoDB; si la cola está llena se responde 429
+//para que el módulo que notifica reintente más tarde.
 
 @RestController
 @RequestMapping("/api/indexacion")
@@ -16,17 +23,28 @@ import org.springframework.web.bind.annotation.*;
 public class IndexacionWebhookController {
 
     private final IndexacionService indexacionService;
+    private final ColaIndexacion colaIndexacion;
+    private final boolean asincrono;
 
-    public IndexacionWebhookController(IndexacionService indexacionService) {
+    public IndexacionWebhookController(IndexacionService indexacionService,
+                                       ColaIndexacion colaIndexacion,
+                                       @Value("${busqueda.webhook.asincrono:true}") boolean asincrono) {
         this.indexacionService = indexacionService;
+        this.colaIndexacion = colaIndexacion;
+        this.asincrono = asincrono;
     }
 
     @PostMapping("/hecho")
     public ResponseEntity<String> indexarHecho(@RequestBody HechoDTO hechoDTO) {
         log.info("Webhook recibido: indexar hecho id={}", hechoDTO.id());
         try {
+            if (asincrono) {
+                return encolado(colaIndexacion.encolarHecho(hechoDTO), "Hecho encolado para indexación");
+            }
             indexacionService.indexarHecho(hechoDTO);
             return ResponseEntity.ok("Hecho indexado correctamente");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             log.error("❌ Error indexando hecho: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError()
@@ -39,8 +57,13 @@ public class IndexacionWebhookController {
         log.info("Webhook recibido: indexar PDI id={} para hecho={}",
                 pdiDTO.id(), pdiDTO.hechoId());
         try {
+            if (asincrono) {
+                return encolado(colaIndexacion.encolarPdI(pdiDTO), "PDI encolado para indexación");
+            }
             indexacionService.indexarPdI(pdiDTO);
             return ResponseEntity.ok("PDI indexado correctamente");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             log.error("❌ Error indexando PDI: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError()
@@ -48,10 +71,29 @@ public class IndexacionWebhookController {
         }
     }
 
+    @DeleteMapping("/pdi/{hechoId}/{pdiId}")
+    public ResponseEntity<String> eliminarPdI(@PathVariable String hechoId, @PathVariable String pdiId) {
+        log.info("Webhook recibido: eliminar PDI id={} de hecho={}", pdiId, hechoId);
+        try {
+            if (asincrono) {
+                return encolado(colaIndexacion.encolarEliminacionPdI(hechoId, pdiId), "Eliminación de PDI encolada");
+            }
+            indexacionService.eliminarPdI(hechoId, pdiId);
+            return ResponseEntity.ok("PDI eliminado correctamente");
+        } catch (Exception e) {
+            log.error("❌ Error eliminando PDI: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError()
+                    .body("Error eliminando PDI: " + e.getMessage());
+        }
+    }
+
     @PostMapping("/censurar/{hechoId}")
     public ResponseEntity<String> censurarHecho(@PathVariable String hechoId) {
         log.info("Webhook recibido: censurar hecho id={}", hechoId);
         try {
+            if (asincrono) {
+                return encolado(colaIndexacion.encolarCensura(hechoId), "Censura encolada");
+            }
             indexacionService.censurarHecho(hechoId);
             return ResponseEntity.ok("Hecho censurado correctamente");
         } catch (Exception e) {
@@ -65,4 +107,14 @@ public class IndexacionWebhookController {
     public ResponseEntity<String> health() {
         return ResponseEntity.ok("Servicio de indexación activo");
     }
-}
\ No newline at end of file
+
+    private static ResponseEntity<String> encolado(boolean aceptado, String mensaje) {
+        if (aceptado) {
+            return ResponseEntity.accepted().body(mensaje);
+        }
+        log.warn("⚠️ Cola de indexación llena, webhook rechazado");
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Cola de indexación llena, reintentar más tarde");
+    }
+}
@@ -1,13 +1,27 @@
 package ar.edu.utn.dds.k3003.busqueda.dto;
 
+import ar.edu.utn.dds.k3003.busqueda.analisis.AnalizadorEspanol;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Locale;
 
 public record BusquedaRequestDTO(
         String consulta,
         List<String> tags,
         int pagina,
-        int tamanio
+        int tamanio,
+        OrdenBusqueda orden,
+        CursorBusqueda cursor,
+        ConteoBusqueda conteo,
+        boolean facetas,
+        Instant referencia
 ) {
+    /**
+     * referencia es el instante contra el que se mide la antigüedad en el decaimiento por recencia:
+     * el del cursor si lo trae, si no el actual (en milisegundos, como el cursor lo guarda).
+     */
     public BusquedaRequestDTO {
         if (consulta == null || consulta.isBlank()) {
             throw new IllegalArgumentException("La consulta no puede estar vacía");
@@ -15,5 +29,66 @@ public record BusquedaRequestDTO(
         if (pagina < 0) pagina = 0;
         if (tamanio <= 0) tamanio = 10;
         if (tamanio > 50) tamanio = 50;
+        if (orden == null) orden = OrdenBusqueda.RECIENTE;
+        if (conteo == null) conteo = ConteoBusqueda.EXACTO;
+        if (cursor != null && cursor.orden() != orden) {
+            throw new IllegalArgumentException("El cursor corresponde a otro orden");
+        }
+        if (referencia == null) {
+            referencia = cursor != null && cursor.referencia() != null
+                    ? cursor.referencia()
+                    : Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        }
+    }
+
+    public BusquedaRequestDTO(String consulta, List<String> tags, int pagina, int tamanio,
+                              OrdenBusqueda orden, CursorBusqueda cursor, ConteoBusqueda conteo, boolean facetas) {
+        this(consulta, tags, pagina, tamanio, orden, cursor, conteo, facetas, null);
+    }
+
+    // Sin facetas
+    public BusquedaRequestDTO(String consulta, List<String> tags, int pagina, int tamanio,
+                              OrdenBusqueda orden, CursorBusqueda cursor, ConteoBusqueda conteo) {
+        this(consulta, tags, pagina, tamanio, orden, cursor, conteo, false);
+    }
+
+    /**
+     * Cantidad de resultados a saltear: con cursor la página arranca en la clave
+     * del cursor, así que no se saltea nada.
+     */
+    public long offset() {
+        return cursor != null ? 0 : (long) pagina * tamanio;
+    }
+
+    /**
+     * Resultados a pedirle al motor junto con el total: con cursor uno de más, porque
+     * la página no sale de pagina y tieneSiguiente no se puede calcular desde el total.
+     */
+    public int limitePagina() {
+        return cursor != null ? tamanio + 1 : tamanio;
+    }
+
+    /**
+     * Consulta en minúsculas y con espacios colapsados: $text no distingue
+     * mayúsculas ni espacios repetidos, así que las claves de cache tampoco.
+     */
+    public String consultaNormalizada() {
+        return consulta.trim()
+                .replaceAll("\\s+", " ")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Términos de la consulta con el mismo análisis que se aplicó al indexar
+     * (ver AnalizadorEspanol). Vacío si la consulta era solo stopwords o signos.
+     */
+    public List<String> terminos() {
+        return AnalizadorEspanol.terminos(consulta);
+    }
+
+    public List<String> tagsNormalizados() {
+        return tags == null
+                ? List.of()
+                : tags.stream().distinct().sorted().toList();
     }
-}
\ No newline at end of file
+}
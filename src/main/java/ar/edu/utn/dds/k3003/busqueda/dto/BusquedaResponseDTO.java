@@ -2,14 +2,23 @@ package ar.edu.utn.dds.k3003.busqueda.dto;
 
 import java.util.List;
 
+/**
+ * totalResultados/totalPaginas son null cuando la búsqueda se pidió sin conteo
+ * (o el conteo asíncrono todavía no terminó); totalEstimado indica que el total
+ * no salió de un conteo exacto hecho junto con esta página.
+ * facetas es null salvo que se pidan (facetas=true) con conteo exacto.
+ */
 public record BusquedaResponseDTO(
         List<BusquedaResultadoDTO> resultados,
         int paginaActual,
         int tamanio,
-        long totalResultados,
-        int totalPaginas,
+        Long totalResultados,
+        Integer totalPaginas,
+        boolean totalEstimado,
         boolean tieneSiguiente,
-        boolean tieneAnterior
+        boolean tieneAnterior,
+        String siguienteCursor,
+        FacetasDTO facetas
 ) {
 
     public static BusquedaResponseDTO of(
@@ -18,15 +27,90 @@ public record BusquedaResponseDTO(
             int tamanio,
             long total
     ) {
-        int totalPaginas = (int) Math.ceil((double) total / tamanio);
+        return of(resultados, pagina, tamanio, total, null);
+    }
+
+    /**
+     * siguienteCursor pide la página siguiente por keyset (?cursor=...),
+     * como alternativa a pedir page + 1. Es null si no hay más resultados.
+     */
+    public static BusquedaResponseDTO of(
+            List<BusquedaResultadoDTO> resultados,
+            int pagina,
+            int tamanio,
+            long total,
+            CursorBusqueda siguiente
+    ) {
+        return of(resultados, pagina, tamanio, total, pagina < totalPaginas(total, tamanio) - 1, siguiente);
+    }
+
+    /**
+     * Con tieneSiguiente ya calculado: una página pedida por cursor no se ubica por
+     * pagina, así que el motor trae un resultado de más para saberlo.
+     */
+    public static BusquedaResponseDTO of(
+            List<BusquedaResultadoDTO> resultados,
+            int pagina,
+            int tamanio,
+            long total,
+            boolean tieneSiguiente,
+            CursorBusqueda siguiente
+    ) {
         return new BusquedaResponseDTO(
                 resultados,
                 pagina,
                 tamanio,
                 total,
-                totalPaginas,
-                pagina < totalPaginas - 1,
-                pagina > 0
+                totalPaginas(total, tamanio),
+                false,
+                tieneSiguiente,
+                pagina > 0,
+                tieneSiguiente && siguiente != null ? siguiente.codificar() : null,
+                null
         );
     }
-}
\ No newline at end of file
+
+    /**
+     * Respuesta de una búsqueda sin conteo exacto: tieneSiguiente viene del motor
+     * y el total, si lo hay, es aproximado.
+     */
+    public static BusquedaResponseDTO slice(
+            List<BusquedaResultadoDTO> resultados,
+            int pagina,
+            int tamanio,
+            boolean tieneSiguiente,
+            Long totalEstimado,
+            CursorBusqueda siguiente
+    ) {
+        return new BusquedaResponseDTO(
+                resultados,
+                pagina,
+                tamanio,
+                totalEstimado,
+                totalEstimado == null ? null : totalPaginas(totalEstimado, tamanio),
+                totalEstimado != null,
+                tieneSiguiente,
+                pagina > 0,
+                tieneSiguiente && siguiente != null ? siguiente.codificar() : null,
+                null
+        );
+    }
+
+    public BusquedaResponseDTO conTotalEstimado(long total) {
+        return new BusquedaResponseDTO(
+                resultados, paginaActual, tamanio,
+                total, totalPaginas(total, tamanio), true,
+                tieneSiguiente, tieneAnterior, siguienteCursor, facetas);
+    }
+
+    public BusquedaResponseDTO conFacetas(FacetasDTO facetas) {
+        return new BusquedaResponseDTO(
+                resultados, paginaActual, tamanio,
+                totalResultados, totalPaginas, totalEstimado,
+                tieneSiguiente, tieneAnterior, siguienteCursor, facetas);
+    }
+
+    private static int totalPaginas(long total, int tamanio) {
+        return (int) Math.ceil((double) total / tamanio);
+    }
+}
@@ -1,6 +1,6 @@
 package ar.edu.utn.dds.k3003.busqueda.dto;
 
-import ar.edu.utn.dds.k3003.busqueda.model.HechoIndexado;
+import ar.edu.utn.dds.k3003.busqueda.model.HechoResumen;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -19,19 +19,19 @@ public record BusquedaResultadoDTO(
         double score
 ) {
 
-    public static BusquedaResultadoDTO from(HechoIndexado hecho) {
+    public static BusquedaResultadoDTO from(HechoResumen hecho) {
         return new BusquedaResultadoDTO(
-                hecho.getId(),
-                hecho.getTitulo(),
-                hecho.getNombreColeccion(),
-                hecho.getDescripcion(),
-                hecho.getUbicacion(),
-                hecho.getCategoria(),
-                hecho.getFecha(),
-                hecho.getEtiquetas(),
-                hecho.getEtiquetasIA(),
-                hecho.getOrigen(),
-                0.0
+                hecho.id(),
+                hecho.titulo(),
+                hecho.nombreColeccion(),
+                hecho.descripcion(),
+                hecho.ubicacion(),
+                hecho.categoria(),
+                hecho.fecha(),
+                hecho.etiquetas(),
+                hecho.etiquetasIA(),
+                hecho.origen(),
+                hecho.score() == null ? 0.0 : hecho.score()
         );
     }
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package ar.edu.utn.dds.k3003.busqueda.dto;
+
+import java.util.Locale;
+
+/**
+ * Cómo se calcula totalResultados/totalPaginas de una búsqueda.
+ * EXACTO: conteo en la misma consulta (comportamiento original).
+ * OMITIR: sin total, solo tieneSiguiente (se pide un resultado de más).
+ * ESTIMADO: cota inferior a partir de la página actual, sin trabajo extra en Mongo.
+ * ASINCRONO: el conteo corre en segundo plano y queda cacheado por consulta;
+ * mientras no termina, el total viene null.
+ */
+public enum ConteoBusqueda {
+    EXACTO,
+    OMITIR,
+    ESTIMADO,
+    ASINCRONO;
+
+    public static ConteoBusqueda desde(String valor) {
+        if (valor == null || valor.isBlank()) {
+            return EXACTO;
+        }
+        try {
+            return valueOf(valor.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                    "Conteo inválido: " + valor + " (exacto | omitir | estimado | asincrono)");
+        }
+    }
+}
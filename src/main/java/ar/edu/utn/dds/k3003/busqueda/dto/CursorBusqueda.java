@@ -0,0 +1,71 @@
+package ar.edu.utn.dds.k3003.busqueda.dto;
+
+import ar.edu.utn.dds.k3003.busqueda.model.HechoResumen;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Token de continuación para paginar por keyset: la clave de orden del último resultado
+ * entregado (score u ultimaActualizacion, según el orden) más su _id como desempate.
+ * La página siguiente pide los resultados estrictamente posteriores a esa clave,
+ * sin recorrer los anteriores como hace skip.
+ * Por relevancia lleva también el instante contra el que se calculó el decaimiento por
+ * antigüedad: las páginas siguientes lo reusan para que los scores no cambien entre pedidos.
+ * Viaja como Base64 URL-safe; para el cliente es opaco.
+ */
+public record CursorBusqueda(
+        OrdenBusqueda orden,
+        double score,
+        LocalDateTime ultimaActualizacion,
+        String id,
+        Instant referencia
+) {
+
+    private static final String SEPARADOR = "|";
+    private static final String SEPARADOR_REFERENCIA = "@";
+
+    public static CursorBusqueda despuesDe(HechoResumen ultimo, OrdenBusqueda orden, Instant referencia) {
+        return new CursorBusqueda(
+                orden,
+                ultimo.score() == null ? 0.0 : ultimo.score(),
+                ultimo.ultimaActualizacion(),
+                ultimo.id(),
+                orden == OrdenBusqueda.RELEVANCIA ? referencia : null);
+    }
+
+    public String codificar() {
+        String clave = orden == OrdenBusqueda.RECIENTE
+                ? String.valueOf(ultimaActualizacion)
+                : referencia == null
+                ? String.valueOf(score)
+                : score + SEPARADOR_REFERENCIA + referencia.toEpochMilli();
+        String plano = orden.name() + SEPARADOR + clave + SEPARADOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plano.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CursorBusqueda decodificar(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String plano = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            // El _id va último y sin límite, por si contiene el separador
+            String[] partes = plano.split("\\|", 3);
+            OrdenBusqueda orden = OrdenBusqueda.valueOf(partes[0]);
+            if (orden == OrdenBusqueda.RECIENTE) {
+                LocalDateTime fecha = "null".equals(partes[1]) ? null : LocalDateTime.parse(partes[1]);
+                return new CursorBusqueda(orden, 0.0, fecha, partes[2], null);
+            }
+            // Los cursores anteriores a la referencia no la traen: se calcula contra el momento actual
+            String[] clave = partes[1].split(SEPARADOR_REFERENCIA, 2);
+            Instant referencia = clave.length == 2 ? Instant.ofEpochMilli(Long.parseLong(clave[1])) : null;
+            return new CursorBusqueda(orden, Double.parseDouble(clave[0]), null, partes[2], referencia);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+}
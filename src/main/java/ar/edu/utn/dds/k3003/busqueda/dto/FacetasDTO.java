@@ -0,0 +1,18 @@
+package ar.edu.utn.dds.k3003.busqueda.dto;
+
+import java.util.List;
+
+/**
+ * Cantidad de hechos únicos por valor de cada faceta, de mayor a menor
+ * (solo los valores más frecuentes de cada una).
+ */
+public record FacetasDTO(
+        List<ValorFaceta> categorias,
+        List<ValorFaceta> colecciones,
+        List<ValorFaceta> tags,
+        List<ValorFaceta> etiquetasIA
+) {
+
+    public record ValorFaceta(String valor, long cantidad) {
+    }
+}
@@ -0,0 +1,25 @@
+package ar.edu.utn.dds.k3003.busqueda.dto;
+
+import java.util.Locale;
+
+/**
+ * Criterio de orden de los resultados de búsqueda.
+ * RECIENTE: ultimaActualizacion descendente, el orden original del servicio y el default.
+ * RELEVANCIA: score de texto (opcionalmente combinado con decaimiento por antigüedad), solo con orden=relevancia.
+ */
+public enum OrdenBusqueda {
+    RELEVANCIA,
+    RECIENTE;
+
+    // Sin orden o con uno desconocido se mantiene el de siempre, para no cambiarle el orden a clientes existentes
+    public static OrdenBusqueda desde(String valor) {
+        if (valor == null || valor.isBlank()) {
+            return RECIENTE;
+        }
+        try {
+            return valueOf(valor.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return RECIENTE;
+        }
+    }
+}
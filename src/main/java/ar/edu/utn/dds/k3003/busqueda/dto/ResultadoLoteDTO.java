@@ -0,0 +1,16 @@
+package ar.edu.utn.dds.k3003.busqueda.dto;
+
+public record ResultadoLoteDTO(int total, int exitosos, int errores) {
+
+    public static ResultadoLoteDTO vacio() {
+        return new ResultadoLoteDTO(0, 0, 0);
+    }
+
+    public ResultadoLoteDTO sumar(ResultadoLoteDTO otro) {
+        return new ResultadoLoteDTO(
+                total + otro.total,
+                exitosos + otro.exitosos,
+                errores + otro.errores
+        );
+    }
+}
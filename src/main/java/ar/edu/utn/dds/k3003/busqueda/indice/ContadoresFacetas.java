@@ -0,0 +1,128 @@
+package ar.edu.utn.dds.k3003.busqueda.indice;
+
+import ar.edu.utn.dds.k3003.busqueda.dto.FacetasDTO;
+import ar.edu.utn.dds.k3003.busqueda.model.HechoIndexado;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+//Conteos globales por faceta (categoria, colección, tag y etiqueta IA) de los hechos no censurados,
+//para navegar sin consulta (GET /api/busqueda/facetas) sin ir a Mongo.
+//Como IndiceEnMemoria se reconstruye al arrancar y se actualiza con cada HechoIndexadoEvent:
+//al reindexar se restan los valores anteriores del hecho y se suman los nuevos, y un hecho
+//censurado llega como eliminación. Se apaga con busqueda.facetas.enabled=false.
+@Component
+@ConditionalOnProperty(name = "busqueda.facetas.enabled", havingValue = "true", matchIfMissing = true)
+public class ContadoresFacetas implements IndiceEnMemoria {
+
+    private static final Comparator<Map.Entry<String, Long>> POR_CANTIDAD =
+            Map.Entry.<String, Long>comparingByValue().reversed()
+                    .thenComparing(Map.Entry.comparingByKey());
+
+    private record Valores(String categoria, String coleccion, Set<String> tags, Set<String> etiquetasIA) {
+
+        static Valores de(HechoIndexado hecho) {
+            return new Valores(hecho.getCategoria(), hecho.getNombreColeccion(),
+                    new LinkedHashSet<>(hecho.getEtiquetas()), new LinkedHashSet<>(hecho.getEtiquetasIA()));
+        }
+    }
+
+    private final int maxValores;
+    private final Map<String, Long> categorias = new ConcurrentHashMap<>();
+    private final Map<String, Long> colecciones = new ConcurrentHashMap<>();
+    private final Map<String, Long> tags = new ConcurrentHashMap<>();
+    private final Map<String, Long> etiquetasIA = new ConcurrentHashMap<>();
+    private final Map<String, Valores> valoresPorHecho = new ConcurrentHashMap<>();
+
+    public ContadoresFacetas(@Value("${busqueda.facetas.max-valores:10}") int maxValores) {
+        this.maxValores = maxValores;
+    }
+
+    /**
+     * Los limite valores más frecuentes de cada faceta (como mucho busqueda.facetas.max-valores).
+     */
+    public FacetasDTO facetas(int limite) {
+        int cantidad = Math.min(limite, maxValores);
+        return new FacetasDTO(
+                mayores(categorias, cantidad),
+                mayores(colecciones, cantidad),
+                mayores(tags, cantidad),
+                mayores(etiquetasIA, cantidad));
+    }
+
+    @Override
+    public Set<String> camposLeidos() {
+        return Set.of("categoria", "nombreColeccion", "tags", "etiquetas_ia");
+    }
+
+    @Override
+    public void limpiar() {
+        valoresPorHecho.clear();
+        categorias.clear();
+        colecciones.clear();
+        tags.clear();
+        etiquetasIA.clear();
+    }
+
+    // compute serializa las escrituras del mismo hecho
+    @Override
+    public void indexar(HechoIndexado hecho) {
+        Valores nuevos = Valores.de(hecho);
+        valoresPorHecho.compute(hecho.getId(), (id, anteriores) -> {
+            if (anteriores != null) {
+                sumar(anteriores, -1);
+            }
+            sumar(nuevos, 1);
+            return nuevos;
+        });
+    }
+
+    @Override
+    public void eliminar(String hechoId) {
+        valoresPorHecho.computeIfPresent(hechoId, (id, anteriores) -> {
+            sumar(anteriores, -1);
+            return null;
+        });
+    }
+
+    private void sumar(Valores valores, long delta) {
+        sumar(categorias, valores.categoria(), delta);
+        sumar(colecciones, valores.coleccion(), delta);
+        valores.tags().forEach(tag -> sumar(tags, tag, delta));
+        valores.etiquetasIA().forEach(etiqueta -> sumar(etiquetasIA, etiqueta, delta));
+    }
+
+    // Los valores que quedan en cero se sacan para que el mapa no crezca con valores viejos
+    private static void sumar(Map<String, Long> conteos, String valor, long delta) {
+        if (valor != null) {
+            conteos.compute(valor, (v, actual) -> {
+                long nuevo = (actual == null ? 0 : actual) + delta;
+                return nuevo > 0 ? nuevo : null;
+            });
+        }
+    }
+
+    // Top-k con un heap de tamaño k, sin ordenar todos los valores
+    private static List<FacetasDTO.ValorFaceta> mayores(Map<String, Long> conteos, int cantidad) {
+        PriorityQueue<Map.Entry<String, Long>> mayores = new PriorityQueue<>(POR_CANTIDAD.reversed());
+        for (Map.Entry<String, Long> entrada : conteos.entrySet()) {
+            mayores.add(Map.entry(entrada.getKey(), entrada.getValue()));
+            if (mayores.size() > cantidad) {
+                mayores.poll();
+            }
+        }
+        return mayores.stream()
+                .sorted(POR_CANTIDAD)
+                .map(entrada -> new FacetasDTO.ValorFaceta(entrada.getKey(), entrada.getValue()))
+                .toList();
+    }
+}
@@ -0,0 +1,49 @@
+package ar.edu.utn.dds.k3003.busqueda.indice;
+
+import ar.edu.utn.dds.k3003.busqueda.model.HechoIndexado;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.function.BiFunction;
+
+
+//Evento publicado por IndexacionService después de cada escritura sobre un hecho.
+//Si quien publica no tiene el documento a mano, se carga una sola vez, a demanda,
+//cuando el primer listener lo necesita (y si no hay índices en memoria activos, nunca).
+//El cargador recibe los campos a traer: la unión de los que leen los índices activos (IndiceEnMemoria.camposLeidos).
+public class HechoIndexadoEvent {
+
+    private final String hechoId;
+    private final BiFunction<String, Collection<String>, Optional<HechoIndexado>> cargador;
+    private Optional<HechoIndexado> hecho;
+
+    private HechoIndexadoEvent(String hechoId,
+                               Optional<HechoIndexado> hecho,
+                               BiFunction<String, Collection<String>, Optional<HechoIndexado>> cargador) {
+        this.hechoId = hechoId;
+        this.hecho = hecho;
+        this.cargador = cargador;
+    }
+
+    public static HechoIndexadoEvent de(HechoIndexado hecho) {
+        return new HechoIndexadoEvent(hecho.getId(), Optional.of(hecho), null);
+    }
+
+    public static HechoIndexadoEvent porId(String hechoId, BiFunction<String, Collection<String>, Optional<HechoIndexado>> cargador) {
+        return new HechoIndexadoEvent(hechoId, null, cargador);
+    }
+
+    public String getHechoId() {
+        return hechoId;
+    }
+
+    /**
+     * El hecho escrito; si hay que cargarlo, con al menos los campos pedidos.
+     */
+    public synchronized Optional<HechoIndexado> getHecho(Collection<String> campos) {
+        if (hecho == null) {
+            hecho = cargador.apply(hechoId, campos);
+        }
+        return hecho;
+    }
+}
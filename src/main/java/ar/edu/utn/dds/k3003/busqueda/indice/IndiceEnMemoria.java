@@ -0,0 +1,27 @@
+package ar.edu.utn.dds.k3003.busqueda.indice;
+
+import ar.edu.utn.dds.k3003.busqueda.model.HechoIndexado;
+
+import java.util.Set;
+
+
+//Estructura en memoria derivada de la colección hechos_indexados.
+//ReconstructorIndicesEnMemoria la llena desde Mongo al arrancar y la mantiene
+//al día con cada HechoIndexadoEvent publicado por IndexacionService.
+public interface IndiceEnMemoria {
+
+    /**
+     * Campos del hecho (nombres en Mongo) que lee indexar: los hechos llegan proyectados
+     * y un campo que no esté acá llega en null o vacío.
+     */
+    Set<String> camposLeidos();
+
+    void limpiar();
+
+    /**
+     * Agrega o reemplaza el hecho. Solo recibe hechos no censurados.
+     */
+    void indexar(HechoIndexado hecho);
+
+    void eliminar(String hechoId);
+}
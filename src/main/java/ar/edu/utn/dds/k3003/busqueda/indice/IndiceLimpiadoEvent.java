@@ -0,0 +1,5 @@
+package ar.edu.utn.dds.k3003.busqueda.indice;
+
+//Evento publicado cuando se vacía toda la colección hechos_indexados.
+public record IndiceLimpiadoEvent() {
+}
@@ -0,0 +1,115 @@
+package ar.edu.utn.dds.k3003.busqueda.indice;
+
+import ar.edu.utn.dds.k3003.busqueda.analisis.AnalizadorEspanol;
+import ar.edu.utn.dds.k3003.busqueda.model.HechoIndexado;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+//Sugerencias para autocompletar mientras el usuario escribe (GET /api/busqueda/sugerencias).
+//Términos: títulos, tags, etiquetas IA y ubicaciones de los hechos no censurados, cada uno
+//con la cantidad de hechos que lo tienen como frecuencia. Se guardan normalizados
+//(AnalizadorEspanol.normalizar) en un TriePrefijos y se muestran con la forma original.
+//Como IndiceEnMemoria se mantiene al día con cada escritura de IndexacionService:
+//al reindexar un hecho se restan sus términos anteriores y se suman los nuevos.
+@Component
+@ConditionalOnProperty(name = "busqueda.sugerencias.enabled", havingValue = "true", matchIfMissing = true)
+public class IndiceSugerencias implements IndiceEnMemoria {
+
+    private final TriePrefijos trie;
+    private final int maxResultados;
+    // Términos que aportó cada hecho (clave normalizada -> texto), para restarlos al reindexar
+    private final Map<String, Map<String, String>> terminosPorHecho = new ConcurrentHashMap<>();
+
+    public IndiceSugerencias(MeterRegistry meterRegistry,
+                             @Value("${busqueda.sugerencias.max-resultados:10}") int maxResultados) {
+        this.maxResultados = maxResultados;
+        this.trie = new TriePrefijos(maxResultados);
+
+        Gauge.builder("metamapa.busqueda.sugerencias.terminos", trie, TriePrefijos::terminos)
+                .register(meterRegistry);
+    }
+
+    public record Sugerencia(String texto, long frecuencia) {
+    }
+
+    /**
+     * Hasta limite términos que empiezan con el prefijo (sin distinguir mayúsculas ni acentos),
+     * de más a menos frecuente.
+     */
+    public List<Sugerencia> sugerir(String prefijo, int limite) {
+        String normalizado = AnalizadorEspanol.normalizar(prefijo);
+        if (normalizado.isEmpty()) {
+            return List.of();
+        }
+        return trie.buscar(normalizado, Math.min(limite, maxResultados)).stream()
+                .map(termino -> new Sugerencia(termino.texto(), termino.frecuencia()))
+                .toList();
+    }
+
+    @Override
+    public Set<String> camposLeidos() {
+        return Set.of("titulo", "ubicacion", "tags", "etiquetas_ia");
+    }
+
+    @Override
+    public void limpiar() {
+        terminosPorHecho.clear();
+        trie.limpiar();
+    }
+
+    // compute serializa las escrituras del mismo hecho: la resta y la suma no se intercalan
+    @Override
+    public void indexar(HechoIndexado hecho) {
+        Map<String, String> nuevos = terminosDe(hecho);
+        terminosPorHecho.compute(hecho.getId(), (id, anteriores) -> {
+            if (anteriores != null) {
+                anteriores.forEach((clave, texto) -> {
+                    if (!nuevos.containsKey(clave)) {
+                        trie.sumar(clave, texto, -1);
+                    }
+                });
+            }
+            nuevos.forEach((clave, texto) -> {
+                if (anteriores == null || !anteriores.containsKey(clave)) {
+                    trie.sumar(clave, texto, 1);
+                }
+            });
+            return nuevos;
+        });
+    }
+
+    @Override
+    public void eliminar(String hechoId) {
+        terminosPorHecho.computeIfPresent(hechoId, (id, anteriores) -> {
+            anteriores.forEach((clave, texto) -> trie.sumar(clave, texto, -1));
+            return null;
+        });
+    }
+
+    // Cada término cuenta una vez por hecho aunque aparezca en más de un campo
+    private static Map<String, String> terminosDe(HechoIndexado hecho) {
+        Map<String, String> terminos = new LinkedHashMap<>();
+        agregar(terminos, hecho.getTitulo());
+        agregar(terminos, hecho.getUbicacion());
+        hecho.getEtiquetas().forEach(etiqueta -> agregar(terminos, etiqueta));
+        hecho.getEtiquetasIA().forEach(etiqueta -> agregar(terminos, etiqueta));
+        return terminos;
+    }
+
+    private static void agregar(Map<String, String> terminos, String texto) {
+        String clave = AnalizadorEspanol.normalizar(texto);
+        if (!clave.isEmpty()) {
+            terminos.putIfAbsent(clave, texto.trim());
+        }
+    }
+}
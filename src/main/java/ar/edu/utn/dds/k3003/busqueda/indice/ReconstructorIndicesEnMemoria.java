@@ -0,0 +1,97 @@
+package ar.edu.utn.dds.k3003.busqueda.indice;
+
+import ar.edu.utn.dds.k3003.busqueda.model.HechoIndexado;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+
+//Mantiene todos los IndiceEnMemoria sincronizados con MongoDB:
+//- al arrancar los reconstruye con una sola pasada sobre un cursor de Mongo que trae solo los campos que leen
+//  (la unión de IndiceEnMemoria.camposLeidos de los índices activos)
+//- después aplica cada HechoIndexadoEvent publicado por IndexacionService
+@Component
+@Slf4j
+public class ReconstructorIndicesEnMemoria {
+
+    private static final int TAMANIO_LOTE_CURSOR = 1000;
+
+    private final ObjectProvider<IndiceEnMemoria> indices;
+    private final MongoTemplate mongoTemplate;
+
+    public ReconstructorIndicesEnMemoria(ObjectProvider<IndiceEnMemoria> indices,
+                                         MongoTemplate mongoTemplate) {
+        this.indices = indices;
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    // Corre antes que la sincronización inicial de SyncScheduler
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void reconstruir() {
+        List<IndiceEnMemoria> activos = indices.orderedStream().toList();
+        if (activos.isEmpty()) {
+            return;
+        }
+
+        log.info("🔄 Reconstruyendo {} índices en memoria desde MongoDB...", activos.size());
+        long inicio = System.currentTimeMillis();
+        activos.forEach(IndiceEnMemoria::limpiar);
+
+        Query query = new Query(Criteria.where("censurado").is(false)).cursorBatchSize(TAMANIO_LOTE_CURSOR);
+        camposLeidos(activos).forEach(campo -> query.fields().include(campo));
+        long cantidad = 0;
+        try (Stream<HechoIndexado> hechos = mongoTemplate.stream(query, HechoIndexado.class)) {
+            for (HechoIndexado hecho : (Iterable<HechoIndexado>) hechos::iterator) {
+                activos.forEach(indice -> indice.indexar(hecho));
+                cantidad++;
+            }
+        } catch (Exception e) {
+            log.error("❌ Error reconstruyendo índices en memoria: {}", e.getMessage(), e);
+            return;
+        }
+
+        log.info("✅ Índices en memoria reconstruidos: {} hechos en {} ms",
+                cantidad, System.currentTimeMillis() - inicio);
+    }
+
+    @EventListener
+    public void onHechoIndexado(HechoIndexadoEvent event) {
+        List<IndiceEnMemoria> activos = indices.orderedStream().toList();
+        if (activos.isEmpty()) {
+            return;
+        }
+
+        event.getHecho(camposLeidos(activos))
+                .filter(hecho -> !hecho.isCensurado())
+                .ifPresentOrElse(
+                        hecho -> activos.forEach(indice -> indice.indexar(hecho)),
+                        () -> activos.forEach(indice -> indice.eliminar(event.getHechoId()))
+                );
+    }
+
+    // Unión de los campos que leen los índices, más censurado para filtrar los eventos
+    private static Set<String> camposLeidos(List<IndiceEnMemoria> activos) {
+        Set<String> campos = new HashSet<>();
+        campos.add("censurado");
+        activos.forEach(indice -> campos.addAll(indice.camposLeidos()));
+        return campos;
+    }
+
+    @EventListener(IndiceLimpiadoEvent.class)
+    public void onIndiceLimpiado() {
+        indices.orderedStream().forEach(IndiceEnMemoria::limpiar);
+    }
+}
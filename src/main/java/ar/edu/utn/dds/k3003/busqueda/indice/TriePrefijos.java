@@ -0,0 +1,219 @@
+package ar.edu.utn.dds.k3003.busqueda.indice;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+
+//Árbol radix (trie comprimido: cada arista lleva un tramo de texto) de claves con frecuencia.
+//Cada nodo cachea los maxResultados términos más frecuentes de su subárbol, así que una consulta
+//por prefijo es bajar por el árbol y devolver la lista del nodo. Una modificación solo invalida
+//las listas del camino desde la raíz y se recalculan a demanda en la siguiente consulta.
+//Dos lecturas concurrentes pueden calcular el mismo cache a la vez: dan el mismo resultado
+//y se publica por un campo volatile, así que alcanza con el lock de lectura.
+class TriePrefijos {
+
+    record Termino(String texto, long frecuencia) {
+    }
+
+    private static final Comparator<Termino> POR_FRECUENCIA = Comparator
+            .comparingLong(Termino::frecuencia).reversed()
+            .thenComparing(Termino::texto);
+
+    private static final class Nodo {
+        String tramo;
+        final List<Nodo> hijos = new ArrayList<>(2);
+        // Término que termina en este nodo (null si es solo un nodo intermedio)
+        String texto;
+        long frecuencia;
+        volatile List<Termino> mejores;
+
+        Nodo(String tramo) {
+            this.tramo = tramo;
+        }
+
+        boolean tieneTermino() {
+            return frecuencia > 0;
+        }
+
+        Nodo hijoQueEmpiezaCon(char letra) {
+            for (Nodo hijo : hijos) {
+                if (hijo.tramo.charAt(0) == letra) {
+                    return hijo;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final int maxResultados;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Nodo raiz = new Nodo("");
+    private int terminos;
+
+    TriePrefijos(int maxResultados) {
+        this.maxResultados = maxResultados;
+    }
+
+    /**
+     * Suma delta a la frecuencia de la clave (ya normalizada), creándola si no existe
+     * y borrándola si queda en cero. texto es la forma que se muestra en la sugerencia.
+     */
+    void sumar(String clave, String texto, long delta) {
+        if (clave.isEmpty() || delta == 0) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            sumar(raiz, clave, texto, delta);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Hasta limite términos que empiezan con el prefijo (normalizado), de mayor a menor frecuencia.
+     */
+    List<Termino> buscar(String prefijo, int limite) {
+        lock.readLock().lock();
+        try {
+            Nodo nodo = raiz;
+            String resto = prefijo;
+            while (!resto.isEmpty()) {
+                Nodo hijo = nodo.hijoQueEmpiezaCon(resto.charAt(0));
+                if (hijo == null) {
+                    return List.of();
+                }
+                int comun = prefijoComun(hijo.tramo, resto);
+                if (comun == resto.length()) {
+                    // El prefijo termina dentro (o al final) del tramo: todo el subárbol matchea
+                    nodo = hijo;
+                    break;
+                }
+                if (comun < hijo.tramo.length()) {
+                    return List.of();
+                }
+                nodo = hijo;
+                resto = resto.substring(comun);
+            }
+            List<Termino> mejores = mejores(nodo);
+            return mejores.size() <= limite ? mejores : mejores.subList(0, limite);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int terminos() {
+        lock.readLock().lock();
+        try {
+            return terminos;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void limpiar() {
+        lock.writeLock().lock();
+        try {
+            raiz = new Nodo("");
+            terminos = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void sumar(Nodo nodo, String resto, String texto, long delta) {
+        nodo.mejores = null;
+        if (resto.isEmpty()) {
+            boolean existia = nodo.tieneTermino();
+            nodo.frecuencia = Math.max(0, nodo.frecuencia + delta);
+            if (nodo.tieneTermino()) {
+                nodo.texto = texto;
+                if (!existia) {
+                    terminos++;
+                }
+            } else {
+                nodo.texto = null;
+                if (existia) {
+                    terminos--;
+                }
+            }
+            return;
+        }
+
+        Nodo hijo = nodo.hijoQueEmpiezaCon(resto.charAt(0));
+        if (hijo == null) {
+            if (delta > 0) {
+                Nodo nuevo = new Nodo(resto);
+                nodo.hijos.add(nuevo);
+                sumar(nuevo, "", texto, delta);
+            }
+            return;
+        }
+
+        int comun = prefijoComun(hijo.tramo, resto);
+        if (comun < hijo.tramo.length()) {
+            if (delta < 0) {
+                return;  // La clave no existe
+            }
+            // Partir la arista: el hijo pasa a colgar de un nodo intermedio con el tramo común
+            Nodo intermedio = new Nodo(hijo.tramo.substring(0, comun));
+            hijo.tramo = hijo.tramo.substring(comun);
+            intermedio.hijos.add(hijo);
+            nodo.hijos.set(nodo.hijos.indexOf(hijo), intermedio);
+            hijo = intermedio;
+        }
+        sumar(hijo, resto.substring(comun), texto, delta);
+        compactar(nodo, hijo);
+    }
+
+    // Después de un borrado: quita hojas vacías y fusiona nodos sin término con un único hijo
+    private static void compactar(Nodo padre, Nodo hijo) {
+        if (hijo.tieneTermino()) {
+            return;
+        }
+        if (hijo.hijos.isEmpty()) {
+            padre.hijos.remove(hijo);
+        } else if (hijo.hijos.size() == 1) {
+            Nodo nieto = hijo.hijos.get(0);
+            nieto.tramo = hijo.tramo + nieto.tramo;
+            padre.hijos.set(padre.hijos.indexOf(hijo), nieto);
+        }
+    }
+
+    // Top-k del subárbol a partir del top-k de cada hijo (cada uno ya cacheado o calculado igual)
+    private List<Termino> mejores(Nodo nodo) {
+        List<Termino> cache = nodo.mejores;
+        if (cache != null) {
+            return cache;
+        }
+        PriorityQueue<Termino> candidatos = new PriorityQueue<>(POR_FRECUENCIA.reversed());
+        if (nodo.tieneTermino()) {
+            candidatos.add(new Termino(nodo.texto, nodo.frecuencia));
+        }
+        for (Nodo hijo : nodo.hijos) {
+            for (Termino termino : mejores(hijo)) {
+                candidatos.add(termino);
+                if (candidatos.size() > maxResultados) {
+                    candidatos.poll();
+                }
+            }
+        }
+        List<Termino> resultado = new ArrayList<>(candidatos);
+        resultado.sort(POR_FRECUENCIA);
+        cache = List.copyOf(resultado);
+        nodo.mejores = cache;
+        return cache;
+    }
+
+    private static int prefijoComun(String a, String b) {
+        int largo = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < largo && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+}
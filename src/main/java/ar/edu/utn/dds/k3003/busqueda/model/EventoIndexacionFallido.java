@@ -0,0 +1,37 @@
+package ar.edu.utn.dds.k3003.busqueda.model;
+
+import ar.edu.utn.dds.k3003.busqueda.dto.HechoDTO;
+import ar.edu.utn.dds.k3003.busqueda.dto.PdIDTO;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+
+//Cambios de un hecho que la cola de indexación no pudo volcar después de agotar sus reintentos.
+//ColaIndexacion los guarda acá en lugar de descartarlos y los vuelve a encolar
+//cada busqueda.webhook.cola.reproceso-fallidos, sin depender de la sincronización con Fuente/PDI.
+@Document(collection = "webhooks_fallidos")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventoIndexacionFallido {
+
+    // Uno por hecho: si vuelve a fallar antes de reprocesarse, se combina con el guardado
+    @Id
+    private String hechoId;
+
+    private HechoDTO hecho;
+
+    private List<PdIDTO> pdis;
+
+    private List<String> pdisEliminados;
+
+    private boolean censurar;
+
+    private Instant fallado;
+}
@@ -1,24 +1,35 @@
 package ar.edu.utn.dds.k3003.busqueda.model;
 
+import ar.edu.utn.dds.k3003.busqueda.analisis.AnalizadorEspanol;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
 
 //Documento para búsqueda de hechos indexados.
-//Incluye datos de Hecho + PDIs asociados para búsqueda full-text
+//Incluye datos de Hecho + PDIs asociados para búsqueda full-text.
+//Cada PDI es un subdocumento de pdis con su id (ver PdIIndexado) y el OCR completo vive en ocr_pdis.
+//tokens guarda los términos ya analizados (ver AnalizadorEspanol) de todo el hecho.
 //Los nombres de @Field deben coincidir con los usados en las queries del repositorio.
 @Document(collection = "hechos_indexados")
 @CompoundIndex(name = "titulo_coleccion_idx", def = "{'titulo': 1, 'nombreColeccion': 1}", unique = true)
@@ -52,27 +63,29 @@ public class HechoIndexado {
     @Builder.Default
     private List<String> etiquetas = new ArrayList<>();
 
-    // Contenido de texto de los PDIs (para búsqueda full-text)
-    @TextIndexed(weight = 4)
-    @Field("pdi_contenido")
+    // PDIs del hecho en orden de llegada, cada uno con su contenido, OCR y etiquetas IA
     @Builder.Default
-    private List<String> pdiContenido = new ArrayList<>();
+    private List<PdIIndexado> pdis = new ArrayList<>();
 
-    // Texto extraído por OCR de las imágenes
-    @TextIndexed(weight = 2)
-    @Field("ocr_text")
-    @Builder.Default
-    private List<String> ocrTexts = new ArrayList<>();
-
-    // Etiquetas generadas por IA (de imágenes)
+    // Unión de las etiquetas IA de los PDIs, para filtrar y mostrar sin recorrer pdis
     @Field("etiquetas_ia")
     @Builder.Default
     private List<String> etiquetasIA = new ArrayList<>();
 
-    // IDs de los PDIs asociados (para tracking)
-    @Field("pdi_ids")
+    // Términos del titulo solo, para pesar más las coincidencias en el título
+    @Field("tokens_titulo")
+    @Builder.Default
+    private List<String> tokensTitulo = new ArrayList<>();
+
+    // Términos de titulo, descripcion y ubicacion (AnalizadorEspanol)
+    @Field("tokens_propios")
     @Builder.Default
-    private Set<String> pdiIds = new HashSet<>();
+    private List<String> tokensPropios = new ArrayList<>();
+
+    // tokensPropios + tokens de cada PDI: el campo multikey contra el que matchea la búsqueda
+    @Indexed
+    @Builder.Default
+    private List<String> tokens = new ArrayList<>();
 
     // Flag para excluir de búsquedas (solicitud de borrado aceptada)
     @Builder.Default
@@ -81,73 +94,154 @@ public class HechoIndexado {
     // Timestamp de última modificación
     private LocalDateTime ultimaActualizacion;
 
-    // Versión para control de concurrencia optimista
-    @Builder.Default
-    private Long version = 0L;
-
+    // Versión para control de concurrencia optimista.
+    // La maneja Spring Data: null = documento nuevo (insert), si no el save se condiciona
+    // a que la versión en Mongo no haya cambiado y la incrementa (OptimisticLockingFailureException si cambió).
+    // Los updates atómicos de IndexacionService la incrementan en el mismo update.
+    @Version
+    private Long version;
+
+    @Transient
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Map<String, PdIIndexado> pdisPorId;
+
+    /**
+     * Agrega el PDI, o si ya existe reemplaza sus datos con los que vienen informados
+     * (contenido, OCR o etiquetas en null conservan el valor anterior).
+     */
     public void agregarPdI(String pdiId, String contenido, String ocrText, List<String> etiquetasIA) {
-        // Evitar agregar el mismo PDI múltiples veces
-        if (pdiId != null && this.pdiIds.contains(pdiId)) {
-            // Ya existe, actualizar en lugar de agregar
+        PdIIndexado existente = pdiId != null ? pdisPorId().get(pdiId) : null;
+        if (existente != null) {
+            reemplazar(existente, contenido, ocrText, etiquetasIA);
             return;
         }
 
+        PdIIndexado pdi = PdIIndexado.builder()
+                .id(pdiId)
+                .contenido(recortado(contenido))
+                .ocrText(recortado(ocrText))
+                .etiquetasIA(etiquetasIA != null ? new ArrayList<>(etiquetasIA) : new ArrayList<>())
+                .tokens(AnalizadorEspanol.terminos(contenido, ocrText))
+                .actualizado(LocalDateTime.now())
+                .build();
+        this.pdis.add(pdi);
         if (pdiId != null) {
-            this.pdiIds.add(pdiId);
-        }
-
-        if (contenido != null && !contenido.isBlank()) {
-            this.pdiContenido.add(contenido.trim());
-        }
-
-        if (ocrText != null && !ocrText.isBlank()) {
-            this.ocrTexts.add(ocrText.trim());
+            pdisPorId().put(pdiId, pdi);
         }
-
-        if (etiquetasIA != null && !etiquetasIA.isEmpty()) {
-            // Evitar duplicados en etiquetas IA
-            for (String etiqueta : etiquetasIA) {
-                if (!this.etiquetasIA.contains(etiqueta)) {
-                    this.etiquetasIA.add(etiqueta);
-                }
+        for (String etiqueta : pdi.getEtiquetasIA()) {
+            if (!this.etiquetasIA.contains(etiqueta)) {
+                this.etiquetasIA.add(etiqueta);
             }
         }
+        recalcularTokens();
 
         this.ultimaActualizacion = LocalDateTime.now();
-        this.version++;
     }
 
+    /**
+     * Reemplaza el OCR y las etiquetas IA de un PDI (imagen reprocesada).
+     * Si el PDI no existe, lo agrega.
+     */
     public void actualizarPdI(String pdiId, String ocrText, List<String> etiquetasIA) {
-        if (pdiId == null || !this.pdiIds.contains(pdiId)) {
-            // El PDI no existe, agregarlo
-            agregarPdI(pdiId, null, ocrText, etiquetasIA);
-            return;
-        }
-
-        // El PDI ya existe, solo agregar nuevos datos
-        if (ocrText != null && !ocrText.isBlank() && !this.ocrTexts.contains(ocrText.trim())) {
-            this.ocrTexts.add(ocrText.trim());
-        }
+        agregarPdI(pdiId, null, ocrText, etiquetasIA);
+    }
 
-        if (etiquetasIA != null) {
-            for (String etiqueta : etiquetasIA) {
-                if (!this.etiquetasIA.contains(etiqueta)) {
-                    this.etiquetasIA.add(etiqueta);
-                }
-            }
+    public boolean eliminarPdI(String pdiId) {
+        PdIIndexado pdi = pdisPorId().remove(pdiId);
+        if (pdi == null) {
+            return false;
         }
-
+        this.pdis.remove(pdi);
+        recalcularEtiquetasIA();
+        recalcularTokens();
         this.ultimaActualizacion = LocalDateTime.now();
-        this.version++;
+        return true;
+    }
+
+    /**
+     * Vuelve a analizar titulo (solo y junto con descripcion y ubicacion) y arma tokens como la unión
+     * con los términos de cada PDI. Se llama después de cambiar esos campos.
+     */
+    public void recalcularTokens() {
+        this.tokensTitulo = AnalizadorEspanol.terminos(titulo);
+        this.tokensPropios = AnalizadorEspanol.terminos(titulo, descripcion, ubicacion);
+        Set<String> union = new LinkedHashSet<>(this.tokensPropios);
+        this.pdis.forEach(pdi -> union.addAll(pdi.getTokens()));
+        this.tokens = new ArrayList<>(union);
     }
 
     public void censurar() {
         this.censurado = true;
         this.ultimaActualizacion = LocalDateTime.now();
-        this.version++;
+    }
+
+    public void setPdis(List<PdIIndexado> pdis) {
+        this.pdis = pdis;
+        this.pdisPorId = null;
     }
 
     public boolean tienePdI(String pdiId) {
-        return this.pdiIds.contains(pdiId);
+        return pdisPorId().containsKey(pdiId);
+    }
+
+    public Optional<PdIIndexado> getPdI(String pdiId) {
+        return Optional.ofNullable(pdisPorId().get(pdiId));
+    }
+
+    private void reemplazar(PdIIndexado pdi, String contenido, String ocrText, List<String> etiquetasIA) {
+        if (contenido != null && !contenido.isBlank()) {
+            pdi.setContenido(contenido.trim());
+        }
+        if (ocrText != null && !ocrText.isBlank()) {
+            pdi.setOcrText(ocrText.trim());
+            pdi.setOcrArchivado(false);
+        }
+        if (etiquetasIA != null) {
+            pdi.setEtiquetasIA(new ArrayList<>(etiquetasIA));
+            recalcularEtiquetasIA();
+        }
+        pdi.setTokens(terminosDePdI(pdi, contenido, ocrText));
+        recalcularTokens();
+        pdi.setActualizado(LocalDateTime.now());
+        this.ultimaActualizacion = LocalDateTime.now();
+    }
+
+    private void recalcularEtiquetasIA() {
+        Set<String> union = new LinkedHashSet<>();
+        this.pdis.forEach(pdi -> union.addAll(pdi.getEtiquetasIA()));
+        this.etiquetasIA = new ArrayList<>(union);
+    }
+
+    /**
+     * Términos de un PDI que se reescribe: si llegan contenido y OCR se reemplazan,
+     * si llega solo uno se suman a los anteriores (el otro texto puede estar archivado).
+     * Mismo criterio que el update de IndexacionService.
+     */
+    private static List<String> terminosDePdI(PdIIndexado pdi, String contenido, String ocrText) {
+        List<String> nuevos = AnalizadorEspanol.terminos(contenido, ocrText);
+        if (recortado(contenido) != null && recortado(ocrText) != null) {
+            return nuevos;
+        }
+        Set<String> union = new LinkedHashSet<>(pdi.getTokens());
+        union.addAll(nuevos);
+        return new ArrayList<>(union);
+    }
+
+    // Índice de pdis por id, armado a demanda: los documentos leídos de Mongo no lo traen
+    private Map<String, PdIIndexado> pdisPorId() {
+        if (pdisPorId == null) {
+            pdisPorId = new HashMap<>();
+            for (PdIIndexado pdi : this.pdis) {
+                if (pdi.getId() != null) {
+                    pdisPorId.put(pdi.getId(), pdi);
+                }
+            }
+        }
+        return pdisPorId;
+    }
+
+    private static String recortado(String texto) {
+        return texto == null || texto.isBlank() ? null : texto.trim();
     }
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package ar.edu.utn.dds.k3003.busqueda.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+
+//Modelo de lectura de hechos_indexados con solo los campos que muestra un resultado de búsqueda.
+//Las búsquedas proyectan a CAMPOS para no traer pdis (contenido y OCR de cada PDI),
+//que pueden pesar varios MB en hechos con muchos PDIs.
+//score no existe en la colección: lo calcula el motor de búsqueda (null si no hubo ranking).
+public record HechoResumen(
+        @Id String id,
+        String titulo,
+        String nombreColeccion,
+        String descripcion,
+        String ubicacion,
+        String categoria,
+        LocalDateTime fecha,
+        @Field("tags") List<String> etiquetas,
+        @Field("etiquetas_ia") List<String> etiquetasIA,
+        String origen,
+        LocalDateTime ultimaActualizacion,
+        Double score
+) {
+
+    // Nombres de los campos en Mongo, para $project / Query.fields()
+    public static final String[] CAMPOS = {
+            "titulo", "nombreColeccion", "descripcion", "ubicacion", "categoria",
+            "fecha", "tags", "etiquetas_ia", "origen", "ultimaActualizacion"
+    };
+
+    public HechoResumen conScore(double score) {
+        return new HechoResumen(id, titulo, nombreColeccion, descripcion, ubicacion, categoria,
+                fecha, etiquetas, etiquetasIA, origen, ultimaActualizacion, score);
+    }
+}
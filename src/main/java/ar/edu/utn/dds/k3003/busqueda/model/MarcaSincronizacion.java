@@ -0,0 +1,25 @@
+package ar.edu.utn.dds.k3003.busqueda.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+
+//Marca de agua de la sincronización incremental.
+//Una por colección de Fuente ("hechos:<coleccion>") y una para el módulo PDI ("pdis").
+//Guarda el inicio de la última sincronización completada sin errores.
+@Document(collection = "sync_marcas")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MarcaSincronizacion {
+
+    @Id
+    private String clave;
+
+    private LocalDateTime ultimaSincronizacion;
+}
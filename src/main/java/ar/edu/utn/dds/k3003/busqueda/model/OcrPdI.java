@@ -0,0 +1,33 @@
+package ar.edu.utn.dds.k3003.busqueda.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+
+//Texto OCR completo de un PDI, fuera del documento del hecho.
+//HechoIndexado solo guarda una copia acotada para la búsqueda (ver PdIIndexado),
+//así un hecho con muchas imágenes procesadas no crece sin límite hacia los 16 MB
+//y cada lectura o escritura del hecho mueve menos bytes.
+@Document(collection = "ocr_pdis")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OcrPdI {
+
+    // Id del PDI: reprocesar la imagen reemplaza el texto
+    @Id
+    private String id;
+
+    @Indexed
+    private String hechoId;
+
+    private String texto;
+
+    private LocalDateTime actualizado;
+}
@@ -0,0 +1,52 @@
+package ar.edu.utn.dds.k3003.busqueda.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.index.TextIndexed;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+
+//Un PDI dentro de HechoIndexado (elemento del array pdis), identificado por su id.
+//Cada PDI se reemplaza o se borra en el lugar con un update atómico por pdis.id.
+//ocrText es la copia para búsqueda: recortada a busqueda.indexacion.pdis.ocr-max-caracteres
+//y solo en los PDIs más recientes (ver OcrPdI); ocrArchivado indica que el texto
+//completo, o todo el texto si ocrText es null, está solo en la colección ocr_pdis.
+//tokens se calcula sobre el texto completo que llegó en cada escritura.
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PdIIndexado {
+
+    private String id;
+
+    @TextIndexed(weight = 4)
+    private String contenido;
+
+    @TextIndexed(weight = 2)
+    @Field("ocr_text")
+    private String ocrText;
+
+    @Field("ocr_archivado")
+    private boolean ocrArchivado;
+
+    @Field("etiquetas_ia")
+    @Builder.Default
+    private List<String> etiquetasIA = new ArrayList<>();
+
+    // Términos de contenido + OCR (AnalizadorEspanol), calculados al escribir.
+    // Se conservan aunque el OCR se archive, así el PDI sigue siendo encontrable.
+    @Builder.Default
+    private List<String> tokens = new ArrayList<>();
+
+    private LocalDateTime actualizado;
+
+    // Huella de los campos del último PdIDTO aplicado: si vuelve a llegar igual no se reescribe el hecho
+    private String huella;
+}
@@ -0,0 +1,36 @@
+package ar.edu.utn.dds.k3003.busqueda.model;
+
+import ar.edu.utn.dds.k3003.busqueda.dto.PdIDTO;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+
+//PDI que llegó antes que su hecho (PDI estacionado).
+//IndexacionService lo guarda acá en lugar de descartarlo y lo aplica en bloque
+//cuando crea el hecho. Si el hecho nunca llega, Mongo lo borra por TTL
+//(busqueda.pdis-pendientes.ttl) y queda a cargo de la sincronización con el módulo PDI.
+@Document(collection = "pdis_pendientes")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PdIPendiente {
+
+    // Id del PDI: si vuelve a llegar antes que el hecho, reemplaza al estacionado
+    @Id
+    private String id;
+
+    @Indexed
+    private String hechoId;
+
+    private PdIDTO pdi;
+
+    @Indexed(name = "estacionado_ttl_idx",
+            expireAfter = "#{@environment.getProperty('busqueda.pdis-pendientes.ttl', '7d')}")
+    private Instant estacionado;
+}
@@ -0,0 +1,145 @@
+package ar.edu.utn.dds.k3003.busqueda.monitoreo;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+
+//Últimos comandos de MongoDB que tardaron más que busqueda.mongo.consultas-lentas.umbral,
+//en un buffer circular de tamaño fijo (los más viejos se pisan). Los registra el CommandListener
+//de los clientes (MetricasComandosMongo) y se consultan en GET /actuator/consultaslentas.
+//De cada comando se guarda la forma del filtro o pipeline (los valores reemplazados por "?").
+//Con explain=true además se pide un explain queryPlanner del comando original en un thread
+//aparte (sin ejecutarlo de nuevo) y se agrega el resumen del plan ganador cuando llega;
+//si hay demasiados explains pendientes, el nuevo se descarta.
+@Component
+@Slf4j
+public class ConsultasLentas {
+
+    private static final int MAX_EXPLAINS_PENDIENTES = 16;
+
+    public record ConsultaLenta(Instant instante,
+                                String cliente,
+                                String comando,
+                                String coleccion,
+                                long duracionMs,
+                                String forma,
+                                String explain) {
+
+        ConsultaLenta conExplain(String resumen) {
+            return new ConsultaLenta(instante, cliente, comando, coleccion, duracionMs, forma, resumen);
+        }
+    }
+
+    private final AtomicReferenceArray<ConsultaLenta> buffer;
+    private final AtomicLong registradas = new AtomicLong();
+    private final long umbralNanos;
+    private final boolean explain;
+    private final MeterRegistry meterRegistry;
+    private final ObjectProvider<MongoTemplate> mongoTemplate;
+    private final ThreadPoolExecutor explains;
+
+    public ConsultasLentas(MeterRegistry meterRegistry,
+                           ObjectProvider<MongoTemplate> mongoTemplate,
+                           @Value("${busqueda.mongo.consultas-lentas.umbral:100ms}") Duration umbral,
+                           @Value("${busqueda.mongo.consultas-lentas.capacidad:100}") int capacidad,
+                           @Value("${busqueda.mongo.consultas-lentas.explain:false}") boolean explain) {
+        this.meterRegistry = meterRegistry;
+        this.mongoTemplate = mongoTemplate;
+        this.umbralNanos = umbral.toNanos();
+        this.explain = explain;
+        this.buffer = new AtomicReferenceArray<>(capacidad);
+        this.explains = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(MAX_EXPLAINS_PENDIENTES),
+                Thread.ofPlatform().name("explain-consultas-lentas").daemon(true).factory(),
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    public boolean esLenta(long duracionNanos) {
+        return duracionNanos >= umbralNanos;
+    }
+
+    /**
+     * Si hay que guardar el comando original para el explain (se copia al empezar el comando,
+     * antes de saber si va a ser lento).
+     */
+    public boolean conExplain() {
+        return explain;
+    }
+
+    /**
+     * Registra un comando lento. comandoOriginal solo se usa para el explain y puede ser null.
+     */
+    public void registrar(String cliente, String comando, String coleccion, long duracionNanos,
+                          String forma, BsonDocument comandoOriginal) {
+        ConsultaLenta consulta = new ConsultaLenta(Instant.now(), cliente, comando, coleccion,
+                TimeUnit.NANOSECONDS.toMillis(duracionNanos), forma, null);
+        int posicion = (int) (registradas.getAndIncrement() % buffer.length());
+        buffer.set(posicion, consulta);
+
+        meterRegistry.counter("metamapa.mongo.consultas_lentas", "comando", comando, "coleccion", coleccion)
+                .increment();
+        log.warn("🐢 Comando lento en MongoDB: {} {} {}ms {}", comando, coleccion, consulta.duracionMs(), forma);
+
+        if (explain && comandoOriginal != null) {
+            explains.execute(() -> explicar(posicion, consulta, comandoOriginal));
+        }
+    }
+
+    /**
+     * Las consultas lentas guardadas, de la más reciente a la más vieja.
+     */
+    public List<ConsultaLenta> consultas() {
+        long total = registradas.get();
+        int cantidad = (int) Math.min(total, buffer.length());
+        List<ConsultaLenta> consultas = new ArrayList<>(cantidad);
+        for (long i = total - 1; i >= total - cantidad; i--) {
+            ConsultaLenta consulta = buffer.get((int) (i % buffer.length()));
+            if (consulta != null) {
+                consultas.add(consulta);
+            }
+        }
+        return consultas;
+    }
+
+    public void limpiar() {
+        for (int i = 0; i < buffer.length(); i++) {
+            buffer.set(i, null);
+        }
+    }
+
+    @PreDestroy
+    void detener() {
+        explains.shutdownNow();
+    }
+
+    // El explain también pasa por el CommandListener, pero no tiene colección y no se mide
+    private void explicar(int posicion, ConsultaLenta consulta, BsonDocument comandoOriginal) {
+        try {
+            Document resultado = mongoTemplate.getObject().getDb().runCommand(new Document()
+                    .append("explain", comandoOriginal)
+                    .append("verbosity", "queryPlanner"));
+            // Si la posición ya se pisó con otra consulta, el resumen se descarta
+            buffer.compareAndSet(posicion, consulta, consulta.conExplain(ResumenExplain.de(resultado)));
+        } catch (Exception e) {
+            log.debug("No se pudo obtener el explain de {} {}: {}", consulta.comando(), consulta.coleccion(),
+                    e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package ar.edu.utn.dds.k3003.busqueda.monitoreo;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Endpoint de actuator con los últimos comandos lentos de MongoDB.
+ *
+ * GET    /actuator/consultaslentas   de la más reciente a la más vieja
+ * DELETE /actuator/consultaslentas   vacía el buffer
+ */
+@Component
+@Endpoint(id = "consultaslentas")
+public class ConsultasLentasEndpoint {
+
+    private final ConsultasLentas consultasLentas;
+
+    public ConsultasLentasEndpoint(ConsultasLentas consultasLentas) {
+        this.consultasLentas = consultasLentas;
+    }
+
+    @ReadOperation
+    public List<ConsultasLentas.ConsultaLenta> consultas() {
+        return consultasLentas.consultas();
+    }
+
+    @DeleteOperation
+    public void limpiar() {
+        consultasLentas.limpiar();
+    }
+}
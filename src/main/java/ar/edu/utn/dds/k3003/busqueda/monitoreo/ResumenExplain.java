@@ -0,0 +1,62 @@
+package ar.edu.utn.dds.k3003.busqueda.monitoreo;
+
+import org.bson.Document;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+
+//Resumen en una línea del plan ganador de un explain: etapas desde la raíz hacia las hojas,
+//con el índice de cada scan, ej. "PROJECTION_SIMPLE <- FETCH <- IXSCAN(tokens)".
+//Un COLLSCAN en el resumen es una consulta que no usa índice.
+final class ResumenExplain {
+
+    private ResumenExplain() {
+    }
+
+    static String de(Document explain) {
+        Document plan = buscarPlanGanador(explain);
+        return plan == null ? "sin plan" : describir(plan);
+    }
+
+    // En find está en queryPlanner; en aggregate, dentro de la primera etapa ($cursor)
+    private static Document buscarPlanGanador(Object valor) {
+        if (valor instanceof Document documento) {
+            if (documento.get("winningPlan") instanceof Document ganador) {
+                // Con el motor SBE el plan clásico queda en queryPlan
+                return ganador.get("queryPlan") instanceof Document queryPlan ? queryPlan : ganador;
+            }
+            for (Object hijo : documento.values()) {
+                Document plan = buscarPlanGanador(hijo);
+                if (plan != null) {
+                    return plan;
+                }
+            }
+        } else if (valor instanceof List<?> lista) {
+            for (Object hijo : lista) {
+                Document plan = buscarPlanGanador(hijo);
+                if (plan != null) {
+                    return plan;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String describir(Document etapa) {
+        String descripcion = etapa.getString("stage");
+        if (etapa.getString("indexName") != null) {
+            descripcion += "(" + etapa.getString("indexName") + ")";
+        }
+        if (etapa.get("inputStage") instanceof Document entrada) {
+            return descripcion + " <- " + describir(entrada);
+        }
+        if (etapa.get("inputStages") instanceof List<?> entradas) {
+            return descripcion + " <- [" + entradas.stream()
+                    .filter(Document.class::isInstance)
+                    .map(entrada -> describir((Document) entrada))
+                    .collect(Collectors.joining(" | ")) + "]";
+        }
+        return descripcion;
+    }
+}
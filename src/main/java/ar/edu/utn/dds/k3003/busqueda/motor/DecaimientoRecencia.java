@@ -0,0 +1,47 @@
+package ar.edu.utn.dds.k3003.busqueda.motor;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+
+//Combinación opcional del score de texto con la antigüedad del hecho, para el orden por relevancia:
+//  score final = score * ((1 - peso) + peso * 0.5 ^ (edad / vidaMedia))
+//Con peso 0 (default) el ranking es solo por texto; con peso 1 un hecho de una vida media
+//de antigüedad vale la mitad que uno recién actualizado con el mismo score.
+@Component
+class DecaimientoRecencia {
+
+    private final double peso;
+    private final long vidaMediaMillis;
+
+    DecaimientoRecencia(@Value("${busqueda.relevancia.peso-recencia:0}") double peso,
+                        @Value("${busqueda.relevancia.vida-media:30d}") Duration vidaMedia) {
+        if (peso < 0 || peso > 1) {
+            throw new IllegalArgumentException("busqueda.relevancia.peso-recencia debe estar entre 0 y 1");
+        }
+        this.peso = peso;
+        this.vidaMediaMillis = Math.max(1, vidaMedia.toMillis());
+    }
+
+    boolean activo() {
+        return peso > 0;
+    }
+
+    double peso() {
+        return peso;
+    }
+
+    long vidaMediaMillis() {
+        return vidaMediaMillis;
+    }
+
+    // Los hechos sin fecha de actualización se tratan como recientes (factor 1)
+    double factor(long edadMillis) {
+        if (!activo()) {
+            return 1.0;
+        }
+        return (1 - peso) + peso * Math.pow(0.5, (double) Math.max(0, edadMillis) / vidaMediaMillis);
+    }
+}
@@ -0,0 +1,370 @@
+package ar.edu.utn.dds.k3003.busqueda.motor;
+
+import ar.edu.utn.dds.k3003.busqueda.analisis.AnalizadorEspanol;
+import ar.edu.utn.dds.k3003.busqueda.dto.BusquedaRequestDTO;
+import ar.edu.utn.dds.k3003.busqueda.dto.CursorBusqueda;
+import ar.edu.utn.dds.k3003.busqueda.dto.OrdenBusqueda;
+import ar.edu.utn.dds.k3003.busqueda.model.HechoIndexado;
+import ar.edu.utn.dds.k3003.busqueda.model.PdIIndexado;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+
+//Índice invertido en memoria con ranking BM25.
+//Los pesos de cada campo son los mismos que los @TextIndexed de HechoIndexado,
+//así el ranking es comparable con el del índice $text de MongoDB.
+//Las actualizaciones marcan el docId viejo como borrado (tombstone) y agregan uno nuevo;
+//cuando los borrados superan a los vivos se compacta todo el índice.
+//Como el motor de Mongo, deduplica por título quedándose con el hecho más reciente.
+//Tokeniza con AnalizadorEspanol, igual que el campo tokens de Mongo.
+class IndiceInvertido {
+
+    static final int PESO_TITULO = 10;
+    static final int PESO_DESCRIPCION = 5;
+    static final int PESO_PDI_CONTENIDO = 4;
+    static final int PESO_UBICACION = 3;
+    static final int PESO_OCR = 2;
+
+    private static final int CAPACIDAD_INICIAL = 1024;
+    private static final int MINIMO_BORRADOS_PARA_COMPACTAR = 1024;
+
+    private final float k1;
+    private final float b;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final Map<String, Integer> docIdPorHecho = new HashMap<>();
+    private final BitSet vivos = new BitSet();
+
+    private String[] hechoIds = new String[CAPACIDAD_INICIAL];
+    private int[] longitudes = new int[CAPACIDAD_INICIAL];
+    private String[][] etiquetas = new String[CAPACIDAD_INICIAL][];
+    private String[] titulos = new String[CAPACIDAD_INICIAL];
+    private long[] actualizaciones = new long[CAPACIDAD_INICIAL];
+    private int siguienteDocId;
+    private int documentosVivos;
+    private long longitudTotal;
+
+    IndiceInvertido(float k1, float b) {
+        this.k1 = k1;
+        this.b = b;
+    }
+
+    record Coincidencia(String hechoId, float score) {
+    }
+
+    record Resultado(List<Coincidencia> coincidencias, long total) {
+    }
+
+    void indexar(HechoIndexado hecho) {
+        // Tokenizar fuera del lock: es la parte cara de la indexación
+        Map<String, Integer> frecuencias = new HashMap<>();
+        int longitud = acumular(frecuencias, hecho.getTitulo(), PESO_TITULO)
+                + acumular(frecuencias, hecho.getDescripcion(), PESO_DESCRIPCION)
+                + acumular(frecuencias, hecho.getUbicacion(), PESO_UBICACION);
+        for (PdIIndexado pdi : hecho.getPdis()) {
+            longitud += acumular(frecuencias, pdi.getContenido(), PESO_PDI_CONTENIDO)
+                    + acumular(frecuencias, pdi.getOcrText(), PESO_OCR);
+        }
+        String[] etiquetasHecho = etiquetasDe(hecho);
+        long actualizacion = hecho.getUltimaActualizacion() == null ? Long.MIN_VALUE
+                : nanosDesdeEpoch(hecho.getUltimaActualizacion());
+
+        lock.writeLock().lock();
+        try {
+            eliminarSinLock(hecho.getId());
+
+            if (siguienteDocId == hechoIds.length) {
+                crecer();
+            }
+            int docId = siguienteDocId++;
+            hechoIds[docId] = hecho.getId();
+            longitudes[docId] = longitud;
+            etiquetas[docId] = etiquetasHecho;
+            titulos[docId] = Objects.toString(hecho.getTitulo(), "");
+            actualizaciones[docId] = actualizacion;
+            vivos.set(docId);
+            documentosVivos++;
+            longitudTotal += longitud;
+            docIdPorHecho.put(hecho.getId(), docId);
+
+            frecuencias.forEach((termino, frecuencia) ->
+                    postings.computeIfAbsent(termino, t -> new PostingList()).agregar(docId, frecuencia));
+
+            int borrados = siguienteDocId - documentosVivos;
+            if (borrados > MINIMO_BORRADOS_PARA_COMPACTAR && borrados > documentosVivos) {
+                compactar();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void eliminar(String hechoId) {
+        lock.writeLock().lock();
+        try {
+            eliminarSinLock(hechoId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void limpiar() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            docIdPorHecho.clear();
+            vivos.clear();
+            hechoIds = new String[CAPACIDAD_INICIAL];
+            longitudes = new int[CAPACIDAD_INICIAL];
+            etiquetas = new String[CAPACIDAD_INICIAL][];
+            titulos = new String[CAPACIDAD_INICIAL];
+            actualizaciones = new long[CAPACIDAD_INICIAL];
+            siguienteDocId = 0;
+            documentosVivos = 0;
+            longitudTotal = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int documentos() {
+        lock.readLock().lock();
+        try {
+            return documentosVivos;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Busca los documentos que contienen al menos uno de los términos de la consulta
+     * (misma semántica OR que $text), deduplica por título y devuelve la ventana
+     * pedida junto con el total de únicos. El orden es por score BM25 (multiplicado por el
+     * factor de decaimiento) o por ultimaActualizacion, con el hechoId como desempate;
+     * con cursor solo entran los posteriores a la clave del cursor.
+     */
+    Resultado buscar(BusquedaRequestDTO request, DecaimientoRecencia decaimiento) {
+        // Misma referencia en todas las páginas de un cursor, para que el decaimiento no corra los scores
+        long ahora = nanosDesdeEpoch(LocalDateTime.ofInstant(request.referencia(), ZoneId.systemDefault()));
+        List<String> terminos = request.terminos();
+        Set<String> tagsFiltro = (request.tags() == null || request.tags().isEmpty())
+                ? null : new HashSet<>(request.tags());
+        boolean porRecencia = request.orden() == OrdenBusqueda.RECIENTE;
+        int offset = (int) request.offset();
+        int limite = request.limitePagina();
+
+        lock.readLock().lock();
+        try {
+            List<PostingList> listas = new ArrayList<>(terminos.size());
+            List<Float> idfs = new ArrayList<>(terminos.size());
+            for (String termino : terminos) {
+                PostingList lista = postings.get(termino);
+                if (lista != null) {
+                    listas.add(lista);
+                    idfs.add(idf(lista));
+                }
+            }
+            if (listas.isEmpty()) {
+                return new Resultado(List.of(), 0);
+            }
+
+            float longitudPromedio = (float) longitudTotal / Math.max(1, documentosVivos);
+            int capacidad = offset + limite;
+            Comparator<int[]> comparador = porRecencia ? this::compararPorRecencia : this::compararPorScore;
+            PriorityQueue<int[]> candidatos = new PriorityQueue<>(capacidad + 1, comparador);
+
+            int[] cursores = new int[listas.size()];
+            // Por título, el docId más reciente y su score
+            Map<String, int[]> porTitulo = new HashMap<>();
+
+            // Merge de las listas (todas ordenadas por docId) sin estructuras intermedias
+            while (true) {
+                int docId = Integer.MAX_VALUE;
+                for (int i = 0; i < listas.size(); i++) {
+                    if (cursores[i] < listas.get(i).size()) {
+                        docId = Math.min(docId, listas.get(i).docId(cursores[i]));
+                    }
+                }
+                if (docId == Integer.MAX_VALUE) {
+                    break;
+                }
+
+                float score = 0f;
+                for (int i = 0; i < listas.size(); i++) {
+                    PostingList lista = listas.get(i);
+                    if (cursores[i] < lista.size() && lista.docId(cursores[i]) == docId) {
+                        int tf = lista.frecuencia(cursores[i]);
+                        float normalizacion = k1 * (1 - b + b * longitudes[docId] / longitudPromedio);
+                        score += idfs.get(i) * (tf * (k1 + 1)) / (tf + normalizacion);
+                        cursores[i]++;
+                    }
+                }
+
+                if (!vivos.get(docId) || !coincideTags(docId, tagsFiltro)) {
+                    continue;
+                }
+                if (decaimiento.activo() && actualizaciones[docId] != Long.MIN_VALUE) {
+                    score *= (float) decaimiento.factor((ahora - actualizaciones[docId]) / 1_000_000);
+                }
+
+                int[] elegido = porTitulo.get(titulos[docId]);
+                if (elegido == null || actualizaciones[docId] > actualizaciones[elegido[0]]) {
+                    porTitulo.put(titulos[docId], new int[]{docId, Float.floatToIntBits(score)});
+                }
+            }
+
+            for (int[] candidato : porTitulo.values()) {
+                if (request.cursor() != null && !despuesDe(candidato, request.cursor(), porRecencia)) {
+                    continue;
+                }
+                candidatos.offer(candidato);
+                if (candidatos.size() > capacidad) {
+                    candidatos.poll();
+                }
+            }
+            long total = porTitulo.size();
+
+            List<Coincidencia> ordenados = new ArrayList<>(candidatos.size());
+            while (!candidatos.isEmpty()) {
+                int[] candidato = candidatos.poll();
+                ordenados.add(new Coincidencia(hechoIds[candidato[0]], Float.intBitsToFloat(candidato[1])));
+            }
+            Collections.reverse(ordenados);
+
+            List<Coincidencia> pagina = offset >= ordenados.size()
+                    ? List.of()
+                    : ordenados.subList(offset, ordenados.size());
+            return new Resultado(pagina, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static int acumular(Map<String, Integer> frecuencias, String texto, int peso) {
+        List<String> tokens = AnalizadorEspanol.analizar(texto);
+        for (String token : tokens) {
+            frecuencias.merge(token, peso, Integer::sum);
+        }
+        return tokens.size() * peso;
+    }
+
+    private static String[] etiquetasDe(HechoIndexado hecho) {
+        Set<String> todas = new HashSet<>(hecho.getEtiquetas());
+        todas.addAll(hecho.getEtiquetasIA());
+        return todas.toArray(String[]::new);
+    }
+
+    private static long nanosDesdeEpoch(LocalDateTime fecha) {
+        return fecha.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + fecha.getNano();
+    }
+
+    // Candidatos: {docId, bits del score}. Los comparadores solo se llaman con el read lock tomado.
+    // El desempate por hechoId es el mismo que el de _id en el motor de Mongo, para que los cursores
+    // (clave + _id) se comporten igual en los dos motores.
+
+    // Menor score primero (para descartar desde la cabeza del heap); a igual score, el menor hechoId
+    private int compararPorScore(int[] a, int[] b) {
+        int porScore = Float.compare(Float.intBitsToFloat(a[1]), Float.intBitsToFloat(b[1]));
+        return porScore != 0 ? porScore : hechoIds[a[0]].compareTo(hechoIds[b[0]]);
+    }
+
+    // Lo mismo por ultimaActualizacion
+    private int compararPorRecencia(int[] a, int[] b) {
+        int porFecha = Long.compare(actualizaciones[a[0]], actualizaciones[b[0]]);
+        return porFecha != 0 ? porFecha : hechoIds[a[0]].compareTo(hechoIds[b[0]]);
+    }
+
+    // Si el candidato va estrictamente después del cursor en el orden descendente de la página
+    private boolean despuesDe(int[] candidato, CursorBusqueda cursor, boolean porRecencia) {
+        int comparacion;
+        if (porRecencia) {
+            long fecha = cursor.ultimaActualizacion() == null ? Long.MIN_VALUE
+                    : nanosDesdeEpoch(cursor.ultimaActualizacion());
+            comparacion = Long.compare(actualizaciones[candidato[0]], fecha);
+        } else {
+            comparacion = Float.compare(Float.intBitsToFloat(candidato[1]), (float) cursor.score());
+        }
+        if (comparacion == 0) {
+            comparacion = hechoIds[candidato[0]].compareTo(cursor.id());
+        }
+        return comparacion < 0;
+    }
+
+    private float idf(PostingList lista) {
+        int df = 0;
+        for (int i = 0; i < lista.size(); i++) {
+            if (vivos.get(lista.docId(i))) {
+                df++;
+            }
+        }
+        return (float) Math.log(1 + (documentosVivos - df + 0.5) / (df + 0.5));
+    }
+
+    private boolean coincideTags(int docId, Set<String> tagsFiltro) {
+        if (tagsFiltro == null) {
+            return true;
+        }
+        for (String etiqueta : etiquetas[docId]) {
+            if (tagsFiltro.contains(etiqueta)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void eliminarSinLock(String hechoId) {
+        Integer docId = docIdPorHecho.remove(hechoId);
+        if (docId == null) {
+            return;
+        }
+        vivos.clear(docId);
+        documentosVivos--;
+        longitudTotal -= longitudes[docId];
+        hechoIds[docId] = null;
+        etiquetas[docId] = null;
+        titulos[docId] = null;
+    }
+
+    private void crecer() {
+        int nuevaCapacidad = hechoIds.length * 2;
+        hechoIds = Arrays.copyOf(hechoIds, nuevaCapacidad);
+        longitudes = Arrays.copyOf(longitudes, nuevaCapacidad);
+        etiquetas = Arrays.copyOf(etiquetas, nuevaCapacidad);
+        titulos = Arrays.copyOf(titulos, nuevaCapacidad);
+        actualizaciones = Arrays.copyOf(actualizaciones, nuevaCapacidad);
+    }
+
+    private void compactar() {
+        int[] remapeo = new int[siguienteDocId];
+        int destino = 0;
+        for (int docId = 0; docId < siguienteDocId; docId++) {
+            if (vivos.get(docId)) {
+                remapeo[docId] = destino;
+                hechoIds[destino] = hechoIds[docId];
+                longitudes[destino] = longitudes[docId];
+                etiquetas[destino] = etiquetas[docId];
+                titulos[destino] = titulos[docId];
+                actualizaciones[destino] = actualizaciones[docId];
+                docIdPorHecho.put(hechoIds[destino], destino);
+                destino++;
+            } else {
+                remapeo[docId] = -1;
+            }
+        }
+        Arrays.fill(hechoIds, destino, siguienteDocId, null);
+        Arrays.fill(etiquetas, destino, siguienteDocId, null);
+        Arrays.fill(titulos, destino, siguienteDocId, null);
+
+        postings.values().forEach(lista -> lista.remapear(remapeo));
+        postings.values().removeIf(lista -> lista.size() == 0);
+
+        vivos.clear();
+        vivos.set(0, destino);
+        siguienteDocId = destino;
+    }
+}
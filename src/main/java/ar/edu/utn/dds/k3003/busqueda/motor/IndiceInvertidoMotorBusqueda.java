@@ -0,0 +1,97 @@
+package ar.edu.utn.dds.k3003.busqueda.motor;
+
+import ar.edu.utn.dds.k3003.busqueda.dto.BusquedaRequestDTO;
+import ar.edu.utn.dds.k3003.busqueda.indice.IndiceEnMemoria;
+import ar.edu.utn.dds.k3003.busqueda.model.HechoIndexado;
+import ar.edu.utn.dds.k3003.busqueda.model.HechoResumen;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+
+//Motor en memoria: índice invertido con BM25 mantenido por IndexacionService.
+//MongoDB sigue siendo la fuente de verdad: el índice se reconstruye desde ahí al arrancar
+//y solo se va a Mongo para traer por _id los documentos de la página pedida.
+//Los resultados salen ordenados por ultimaActualizacion (el default) o por relevancia BM25 con orden=relevancia
+//y el score BM25 viaja en HechoResumen.score.
+@Component
+@ConditionalOnProperty(name = "busqueda.motor.tipo", havingValue = "memoria")
+@Slf4j
+public class IndiceInvertidoMotorBusqueda implements MotorBusqueda, IndiceEnMemoria {
+
+    private final MongoTemplate mongoTemplate;
+    private final IndiceInvertido indice;
+    private final DecaimientoRecencia decaimiento;
+
+    public IndiceInvertidoMotorBusqueda(MongoTemplate mongoTemplate,
+                                        DecaimientoRecencia decaimiento,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${busqueda.motor.memoria.bm25-k1:1.2}") float k1,
+                                        @Value("${busqueda.motor.memoria.bm25-b:0.75}") float b) {
+        this.mongoTemplate = mongoTemplate;
+        this.decaimiento = decaimiento;
+        this.indice = new IndiceInvertido(k1, b);
+
+        Gauge.builder("metamapa.busqueda.indice_memoria.documentos", indice, IndiceInvertido::documentos)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Page<HechoResumen> buscar(BusquedaRequestDTO request) {
+        IndiceInvertido.Resultado resultado = indice.buscar(request, decaimiento);
+
+        // Una sola ida a Mongo por _id, proyectada, respetando el orden del ranking
+        List<String> ids = resultado.coincidencias().stream()
+                .map(IndiceInvertido.Coincidencia::hechoId)
+                .toList();
+        Query query = Query.query(Criteria.where("_id").in(ids));
+        query.fields().include(HechoResumen.CAMPOS);
+        Map<String, HechoResumen> porId = mongoTemplate.find(query, HechoResumen.class, "hechos_indexados").stream()
+                .collect(Collectors.toMap(HechoResumen::id, Function.identity()));
+        List<HechoResumen> hechos = resultado.coincidencias().stream()
+                .filter(coincidencia -> porId.containsKey(coincidencia.hechoId()))
+                .map(coincidencia -> porId.get(coincidencia.hechoId()).conScore(coincidencia.score()))
+                .toList();
+
+        return new PageImpl<>(hechos,
+                PageRequest.of(request.pagina(), request.tamanio()),
+                resultado.total());
+    }
+
+    // Todo lo que entra al BM25, ultimaActualizacion para deduplicar, ordenar y decaer, y tags para filtrar
+    @Override
+    public Set<String> camposLeidos() {
+        return Set.of("titulo", "descripcion", "ubicacion", "pdis.contenido", "pdis.ocr_text",
+                "ultimaActualizacion", "tags", "etiquetas_ia");
+    }
+
+    @Override
+    public void limpiar() {
+        indice.limpiar();
+    }
+
+    @Override
+    public void indexar(HechoIndexado hecho) {
+        indice.indexar(hecho);
+    }
+
+    @Override
+    public void eliminar(String hechoId) {
+        indice.eliminar(hechoId);
+    }
+}
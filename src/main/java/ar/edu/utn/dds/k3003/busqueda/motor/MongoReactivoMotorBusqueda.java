@@ -0,0 +1,78 @@
+package ar.edu.utn.dds.k3003.busqueda.motor;
+
+import ar.edu.utn.dds.k3003.busqueda.dto.BusquedaRequestDTO;
+import ar.edu.utn.dds.k3003.busqueda.model.HechoResumen;
+import org.bson.Document;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+
+//Variante reactiva del motor mongo, sobre ReactiveMongoTemplate y con el mismo pipeline
+//que MongoTextMotorBusqueda. En lugar de un solo $facet con página y total, manda las
+//dos agregaciones a la vez (la página corta con top-k, el conteo recorre todo) sin bloquear
+//un thread propio esperando cada una. Que eso sostenga más concurrencia que el camino bloqueante
+//no está medido: falta la comparación de carga entre /api/busqueda y /api/busqueda/reactiva.
+@Component
+@ConditionalOnProperty(name = "busqueda.motor.tipo", havingValue = "mongo", matchIfMissing = true)
+public class MongoReactivoMotorBusqueda {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final MongoTextMotorBusqueda pipeline;
+
+    public MongoReactivoMotorBusqueda(ReactiveMongoTemplate reactiveMongoTemplate,
+                                      MongoTextMotorBusqueda pipeline) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.pipeline = pipeline;
+    }
+
+    /**
+     * Página y total en paralelo; termina cuando llegan los dos.
+     */
+    public Mono<Page<HechoResumen>> buscar(BusquedaRequestDTO request) {
+        return Mono.zip(pagina(request, request.limitePagina()).collectList(), contar(request))
+                .map(pagina -> new PageImpl<>(pagina.getT1(),
+                        PageRequest.of(request.pagina(), request.tamanio()),
+                        pagina.getT2()));
+    }
+
+    /**
+     * Sin conteo: un resultado de más para saber si hay página siguiente.
+     */
+    public Mono<Slice<HechoResumen>> buscarSinTotal(BusquedaRequestDTO request) {
+        return pagina(request, request.tamanio() + 1).collectList()
+                .map(hechos -> {
+                    boolean tieneSiguiente = hechos.size() > request.tamanio();
+                    List<HechoResumen> contenido = tieneSiguiente ? hechos.subList(0, request.tamanio()) : hechos;
+                    return new SliceImpl<>(contenido, PageRequest.of(request.pagina(), request.tamanio()), tieneSiguiente);
+                });
+    }
+
+    /**
+     * Los resultados de la página a medida que llegan del cursor, sin juntarlos.
+     */
+    public Flux<HechoResumen> pagina(BusquedaRequestDTO request, int limite) {
+        return reactiveMongoTemplate.aggregate(
+                        pipeline.agregacion(pipeline.etapasPagina(request, limite)),
+                        MongoTextMotorBusqueda.COLECCION, Document.class)
+                .map(pipeline::leer);
+    }
+
+    public Mono<Long> contar(BusquedaRequestDTO request) {
+        return reactiveMongoTemplate.aggregate(
+                        pipeline.agregacion(pipeline.etapasConteo(request)),
+                        MongoTextMotorBusqueda.COLECCION, Document.class)
+                .next()
+                .map(MongoTextMotorBusqueda::leerTotal)
+                .defaultIfEmpty(0L);
+    }
+}
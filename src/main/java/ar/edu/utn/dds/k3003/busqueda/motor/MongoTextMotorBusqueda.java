@@ -0,0 +1,441 @@
+package ar.edu.utn.dds.k3003.busqueda.motor;
+
+import ar.edu.utn.dds.k3003.busqueda.dto.BusquedaRequestDTO;
+import ar.edu.utn.dds.k3003.busqueda.dto.CursorBusqueda;
+import ar.edu.utn.dds.k3003.busqueda.dto.FacetasDTO;
+import ar.edu.utn.dds.k3003.busqueda.dto.OrdenBusqueda;
+import ar.edu.utn.dds.k3003.busqueda.model.HechoResumen;
+import com.mongodb.ReadPreference;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.FacetOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+
+//Motor por defecto sobre MongoDB, en un único aggregation:
+//  $match (términos + tags) -> $project a los campos de HechoResumen + score ($meta textScore)
+//  -> $group por titulo quedándose con el más reciente -> $facet { página ordenada, total deduplicado }
+//La proyección va antes del $group para no arrastrar los arrays de PDIs/OCR por el pipeline.
+//La página se ordena por score (relevancia, con decaimiento por antigüedad opcional) o por
+//ultimaActualizacion (reciente); en los dos casos $sort + $limit se resuelve con un top-k.
+//Con cursor, en lugar de $skip la página filtra por la clave del último resultado entregado.
+//Con coincidencia=tokens ese filtro va antes del $group (seek): solo se agrupan los posteriores
+//al cursor y un $lookup por el índice de titulo descarta los títulos ya entregados; el total y las
+//facetas salen entonces de otra agregación. Con =texto ($text no se puede usar dentro de un $lookup)
+//el filtro sigue aplicándose después del $group.
+//Con busqueda.motor.mongo.coincidencia=tokens (default) la consulta se analiza con AnalizadorEspanol
+//y matchea por igualdad ($in) contra el índice multikey de tokens; el score suma cada término de
+//la consulta con el peso del mejor campo donde aparece (título, resto del hecho o PDIs, con los
+//pesos de IndiceInvertido) normalizado a [0, 1]. Con =texto se usa el índice $text y su textScore.
+//Con facetas=true el mismo $facet agrega conteos por categoria, colección, tag y etiqueta IA
+//sobre las coincidencias ya deduplicadas.
+//buscarSinTotal omite el $facet/$count y contar hace solo el conteo, para los modos de conteo
+//estimado/asíncrono de BusquedaService.
+//Así la deduplicación por título abarca todos los resultados (no solo la página)
+//y el total y la paginación cuentan hechos únicos. Requiere MongoDB 5.2+ ($top).
+@Component
+@ConditionalOnProperty(name = "busqueda.motor.tipo", havingValue = "mongo", matchIfMissing = true)
+public class MongoTextMotorBusqueda implements MotorBusqueda {
+
+    static final String COLECCION = "hechos_indexados";
+
+    // Pesos por campo de origen del término en coincidencia=tokens. Los tokens de un PDI
+    // mezclan contenido y OCR, así que llevan el promedio de los dos pesos.
+    private static final double PESO_TITULO = IndiceInvertido.PESO_TITULO;
+    private static final double PESO_PROPIOS = IndiceInvertido.PESO_DESCRIPCION;
+    private static final double PESO_PDI = (IndiceInvertido.PESO_PDI_CONTENIDO + IndiceInvertido.PESO_OCR) / 2.0;
+
+    private final MongoTemplate mongoTemplate;
+    private final DecaimientoRecencia decaimiento;
+    private final boolean porTokens;
+    private final int maxValoresFaceta;
+    private final ReadPreference lecturaBusqueda;
+
+    public MongoTextMotorBusqueda(MongoTemplate mongoTemplate,
+                                  DecaimientoRecencia decaimiento,
+                                  ReadPreference lecturaBusqueda,
+                                  @Value("${busqueda.motor.mongo.coincidencia:tokens}") String coincidencia,
+                                  @Value("${busqueda.facetas.max-valores:10}") int maxValoresFaceta) {
+        this.mongoTemplate = mongoTemplate;
+        this.decaimiento = decaimiento;
+        this.maxValoresFaceta = maxValoresFaceta;
+        this.lecturaBusqueda = lecturaBusqueda;
+        this.porTokens = switch (coincidencia.toLowerCase()) {
+            case "tokens" -> true;
+            case "texto" -> false;
+            default -> throw new IllegalArgumentException(
+                    "busqueda.motor.mongo.coincidencia debe ser tokens o texto: " + coincidencia);
+        };
+    }
+
+    @Override
+    public Page<HechoResumen> buscar(BusquedaRequestDTO request) {
+        if (porSeek(request)) {
+            return buscarPorSeek(request);
+        }
+        List<AggregationOperation> etapas = coincidenciasUnicas(request);
+        FacetOperation facet = Aggregation.facet(pagina(request, request.limitePagina()).toArray(AggregationOperation[]::new))
+                .as("resultados")
+                .and(Aggregation.count().as("total"))
+                .as("total");
+        if (request.facetas()) {
+            facet = facet.and(faceta("categoria", false)).as("categorias")
+                    .and(faceta("nombreColeccion", false)).as("colecciones")
+                    .and(faceta("tags", true)).as("tags")
+                    .and(faceta("etiquetas_ia", true)).as("etiquetasIA");
+        }
+        etapas.add(facet);
+
+        Document resultado = mongoTemplate.aggregate(agregacion(etapas), COLECCION, Document.class)
+                .getUniqueMappedResult();
+
+        List<HechoResumen> hechos = resultado == null ? List.of()
+                : resultado.getList("resultados", Document.class).stream()
+                .map(this::leer)
+                .toList();
+
+        PageRequest pageable = PageRequest.of(request.pagina(), request.tamanio());
+        if (!request.facetas()) {
+            return new PageImpl<>(hechos, pageable, total(resultado));
+        }
+        return new PaginaConFacetas<>(hechos, pageable, total(resultado), facetas(resultado));
+    }
+
+    // La página (seek) no puede compartir el $facet con el total, que cuenta todas las coincidencias
+    private Page<HechoResumen> buscarPorSeek(BusquedaRequestDTO request) {
+        List<HechoResumen> hechos = mongoTemplate.aggregate(
+                        agregacion(etapasPagina(request, request.limitePagina())), COLECCION, Document.class)
+                .getMappedResults().stream()
+                .map(this::leer)
+                .toList();
+
+        PageRequest pageable = PageRequest.of(request.pagina(), request.tamanio());
+        if (!request.facetas()) {
+            return new PageImpl<>(hechos, pageable, contar(request));
+        }
+        List<AggregationOperation> etapas = coincidenciasUnicas(request);
+        etapas.add(Aggregation.facet(Aggregation.count().as("total")).as("total")
+                .and(faceta("categoria", false)).as("categorias")
+                .and(faceta("nombreColeccion", false)).as("colecciones")
+                .and(faceta("tags", true)).as("tags")
+                .and(faceta("etiquetas_ia", true)).as("etiquetasIA"));
+        Document resultado = mongoTemplate.aggregate(agregacion(etapas), COLECCION, Document.class)
+                .getUniqueMappedResult();
+        return new PaginaConFacetas<>(hechos, pageable, total(resultado), facetas(resultado));
+    }
+
+    // Sin $facet ni $count: pide un resultado de más para saber si hay página siguiente
+    @Override
+    public Slice<HechoResumen> buscarSinTotal(BusquedaRequestDTO request) {
+        Aggregation agregacion = agregacion(etapasPagina(request, request.tamanio() + 1));
+        List<HechoResumen> hechos = mongoTemplate.aggregate(agregacion, COLECCION, Document.class)
+                .getMappedResults().stream()
+                .map(this::leer)
+                .toList();
+
+        boolean tieneSiguiente = hechos.size() > request.tamanio();
+        return new SliceImpl<>(
+                tieneSiguiente ? hechos.subList(0, request.tamanio()) : hechos,
+                PageRequest.of(request.pagina(), request.tamanio()),
+                tieneSiguiente);
+    }
+
+    @Override
+    public long contar(BusquedaRequestDTO request) {
+        Document resultado = mongoTemplate.aggregate(agregacion(etapasConteo(request)), COLECCION, Document.class)
+                .getUniqueMappedResult();
+        return leerTotal(resultado);
+    }
+
+    // Las etapas de página y de conteo por separado también las usa MongoReactivoMotorBusqueda
+
+    /**
+     * Coincidencias deduplicadas, ordenadas y recortadas a limite (sin total).
+     */
+    List<AggregationOperation> etapasPagina(BusquedaRequestDTO request, int limite) {
+        if (!porSeek(request)) {
+            List<AggregationOperation> etapas = coincidenciasUnicas(request);
+            etapas.addAll(pagina(request, limite));
+            return etapas;
+        }
+        // Seek: el cursor filtra antes del $group, por la clave cruda (reciente) o recién calculada (score)
+        List<AggregationOperation> etapas = filtros(request);
+        boolean porRecencia = request.orden() == OrdenBusqueda.RECIENTE;
+        if (porRecencia) {
+            etapas.add(Aggregation.match(despuesDe(request.cursor())));
+        }
+        etapas.add(proyectarConScore(request));
+        if (!porRecencia) {
+            etapas.add(Aggregation.match(despuesDe(request.cursor())));
+        }
+        etapas.add(deduplicarPorTitulo());
+        etapas.add(Aggregation.replaceRoot("hecho"));
+        etapas.add(Aggregation.sort(orden(request.orden())));
+        // Después del $sort: el $lookup corre solo para los grupos que llegan al $limit
+        etapas.addAll(descartarYaEntregados(request));
+        etapas.add(Aggregation.limit(limite));
+        return etapas;
+    }
+
+    /**
+     * Solo cuenta títulos distintos: ni proyección de campos ni score. Devuelve un documento { total }.
+     */
+    List<AggregationOperation> etapasConteo(BusquedaRequestDTO request) {
+        List<AggregationOperation> etapas = filtros(request);
+        etapas.add(Aggregation.group("titulo"));
+        etapas.add(Aggregation.count().as("total"));
+        return etapas;
+    }
+
+    static long leerTotal(Document resultado) {
+        return resultado == null ? 0 : ((Number) resultado.get("total")).longValue();
+    }
+
+    private boolean porSeek(BusquedaRequestDTO request) {
+        return porTokens && request.cursor() != null;
+    }
+
+    private List<AggregationOperation> filtros(BusquedaRequestDTO request) {
+        Criteria filtro = filtroSinTerminos(request);
+
+        List<AggregationOperation> etapas = new ArrayList<>();
+        if (porTokens) {
+            // Al menos uno de los términos, como $text: un lookup por término en el índice multikey
+            etapas.add(Aggregation.match(Criteria.where("tokens").in(request.terminos()).andOperator(filtro)));
+        } else {
+            etapas.add(Aggregation.match(TextCriteria.forDefaultLanguage().matching(request.consulta())));
+            etapas.add(Aggregation.match(filtro));
+        }
+        return etapas;
+    }
+
+    private static Criteria filtroSinTerminos(BusquedaRequestDTO request) {
+        Criteria filtro = Criteria.where("censurado").is(false);
+        if (request.tags() != null && !request.tags().isEmpty()) {
+            // Al menos una de las etiquetas, manual o generada por IA
+            filtro.orOperator(
+                    Criteria.where("tags").in(request.tags()),
+                    Criteria.where("etiquetas_ia").in(request.tags())
+            );
+        }
+        return filtro;
+    }
+
+    // El seek deja afuera del $group los documentos anteriores al cursor. Si un título tiene una
+    // coincidencia más reciente que la elegida (mismo criterio que deduplicarPorTitulo), esa era su
+    // representante y el título ya salió en una página anterior: se descarta.
+    private static List<AggregationOperation> descartarYaEntregados(BusquedaRequestDTO request) {
+        Document coincidencia = Criteria.where("tokens").in(request.terminos())
+                .andOperator(filtroSinTerminos(request))
+                .getCriteriaObject();
+        coincidencia.append("$expr", new Document("$and", List.of(
+                new Document("$eq", List.of("$titulo", "$$titulo")),
+                new Document("$or", List.of(
+                        new Document("$gt", List.of("$ultimaActualizacion", "$$actualizacion")),
+                        new Document("$and", List.of(
+                                new Document("$eq", List.of("$ultimaActualizacion", "$$actualizacion")),
+                                new Document("$gt", List.of("$_id", "$$id")))))))));
+        Document lookup = new Document("$lookup", new Document()
+                .append("from", COLECCION)
+                .append("let", new Document()
+                        .append("titulo", "$titulo")
+                        .append("actualizacion", "$ultimaActualizacion")
+                        .append("id", "$_id"))
+                .append("pipeline", List.of(
+                        new Document("$match", coincidencia),
+                        new Document("$limit", 1),
+                        new Document("$project", new Document("_id", 1))))
+                .append("as", "posterior"));
+        return List.of(
+                context -> lookup,
+                Aggregation.match(Criteria.where("posterior").size(0)),
+                context -> new Document("$unset", "posterior"));
+    }
+
+    // Coincidencias proyectadas, con score y deduplicadas por título, todavía sin ordenar
+    private List<AggregationOperation> coincidenciasUnicas(BusquedaRequestDTO request) {
+        List<AggregationOperation> etapas = filtros(request);
+        etapas.add(proyectarConScore(request));
+        etapas.add(deduplicarPorTitulo());
+        etapas.add(Aggregation.replaceRoot("hecho"));
+        return etapas;
+    }
+
+    // Con la read preference de búsqueda: puede leer de secundarios aunque el template use el primario
+    Aggregation agregacion(List<AggregationOperation> etapas) {
+        return Aggregation.newAggregation(etapas)
+                .withOptions(AggregationOptions.builder()
+                        .allowDiskUse(true)
+                        .readPreference(lecturaBusqueda)
+                        .build());
+    }
+
+    HechoResumen leer(Document doc) {
+        return mongoTemplate.getConverter().read(HechoResumen.class, doc);
+    }
+
+    // Campos de HechoResumen + score, que con $text solo existe en la etapa siguiente al $match
+    private AggregationOperation proyectarConScore(BusquedaRequestDTO request) {
+        Document campos = new Document();
+        for (String campo : HechoResumen.CAMPOS) {
+            campos.append(campo, 1);
+        }
+        campos.append("score", expresionScore(request));
+        return context -> new Document("$project", campos);
+    }
+
+    // score * ((1 - peso) + peso * 0.5 ^ (edad / vidaMedia)), ver DecaimientoRecencia.
+    // La edad se mide contra request.referencia() y no $$NOW: con cursor es la de la primera página.
+    private Object expresionScore(BusquedaRequestDTO request) {
+        Object textScore = porTokens ? pesoDeTerminos(request.terminos()) : new Document("$meta", "textScore");
+        if (!decaimiento.activo()) {
+            return textScore;
+        }
+        Date referencia = Date.from(request.referencia());
+        Document edadMillis = new Document("$max", List.of(0, new Document("$subtract", List.of(
+                referencia, new Document("$ifNull", List.of("$ultimaActualizacion", referencia))))));
+        Document factor = new Document("$add", List.of(
+                1 - decaimiento.peso(),
+                new Document("$multiply", List.of(
+                        decaimiento.peso(),
+                        new Document("$pow", List.of(0.5,
+                                new Document("$divide", List.of(edadMillis, decaimiento.vidaMediaMillis())))))
+                )));
+        return new Document("$multiply", List.of(textScore, factor));
+    }
+
+    // Cada término de la consulta pesa según el mejor campo donde está: tokens_titulo ⊆ tokens_propios ⊆ tokens,
+    // así que las diferencias de tamaño cuentan los que aparecen solo fuera del título o solo en PDIs.
+    // Dividido por el máximo posible (todos en el título) queda entre 0 y 1.
+    private static Document pesoDeTerminos(List<String> terminos) {
+        Document sumaPesos = new Document("$add", List.of(
+                new Document("$multiply", List.of(PESO_TITULO, "$$enTitulo")),
+                new Document("$multiply", List.of(PESO_PROPIOS,
+                        new Document("$subtract", List.of("$$enPropios", "$$enTitulo")))),
+                new Document("$multiply", List.of(PESO_PDI,
+                        new Document("$subtract", List.of("$$enTodos", "$$enPropios"))))));
+        return new Document("$let", new Document()
+                .append("vars", new Document()
+                        .append("enTitulo", coincidencias("$tokens_titulo", terminos))
+                        .append("enPropios", coincidencias("$tokens_propios", terminos))
+                        .append("enTodos", coincidencias("$tokens", terminos)))
+                .append("in", new Document("$divide", List.of(sumaPesos, PESO_TITULO * terminos.size()))));
+    }
+
+    private static Document coincidencias(String campo, List<String> terminos) {
+        return new Document("$size", new Document("$setIntersection", List.of(
+                new Document("$ifNull", List.of(campo, List.of())),
+                new Document("$literal", terminos))));
+    }
+
+    // Sin seek: el cursor filtra los grupos ya deduplicados
+    private static List<AggregationOperation> pagina(BusquedaRequestDTO request, int limite) {
+        List<AggregationOperation> etapas = new ArrayList<>();
+        if (request.cursor() != null) {
+            etapas.add(Aggregation.match(despuesDe(request.cursor())));
+        }
+        etapas.add(Aggregation.sort(orden(request.orden())));
+        if (request.offset() > 0) {
+            etapas.add(Aggregation.skip(request.offset()));
+        }
+        etapas.add(Aggregation.limit(limite));
+        return etapas;
+    }
+
+    // (clave, _id) estrictamente menor que la del cursor, en el mismo orden descendente de la página.
+    // ultimaActualizacion se compara como Date, igual que la guarda el converter (zona del sistema).
+    private static Criteria despuesDe(CursorBusqueda cursor) {
+        if (cursor.orden() == OrdenBusqueda.RECIENTE && cursor.ultimaActualizacion() == null) {
+            // Los hechos sin fecha van al final del orden descendente
+            return Criteria.where("ultimaActualizacion").is(null).and("_id").lt(cursor.id());
+        }
+        String campo = cursor.orden() == OrdenBusqueda.RECIENTE ? "ultimaActualizacion" : "score";
+        Object clave = cursor.orden() == OrdenBusqueda.RECIENTE
+                ? Date.from(cursor.ultimaActualizacion().atZone(ZoneId.systemDefault()).toInstant())
+                : cursor.score();
+        if (cursor.orden() == OrdenBusqueda.RECIENTE) {
+            // Después de la última fecha siguen los hechos sin fecha
+            return new Criteria().orOperator(
+                    Criteria.where(campo).lt(clave),
+                    Criteria.where(campo).is(clave).and("_id").lt(cursor.id()),
+                    Criteria.where(campo).is(null)
+            );
+        }
+        return new Criteria().orOperator(
+                Criteria.where(campo).lt(clave),
+                Criteria.where(campo).is(clave).and("_id").lt(cursor.id())
+        );
+    }
+
+    private static Sort orden(OrdenBusqueda orden) {
+        return orden == OrdenBusqueda.RECIENTE
+                ? Sort.by(Sort.Direction.DESC, "ultimaActualizacion", "_id")
+                : Sort.by(Sort.Direction.DESC, "score", "_id");
+    }
+
+    // $group por título quedándose con el documento de ultimaActualizacion más reciente (desempate por _id).
+    // $top evita tener que ordenar todas las coincidencias antes del $group.
+    private static AggregationOperation deduplicarPorTitulo() {
+        return context -> new Document("$group", new Document("_id", "$titulo")
+                .append("hecho", new Document("$top", new Document()
+                        .append("sortBy", new Document("ultimaActualizacion", -1).append("_id", -1))
+                        .append("output", "$$ROOT"))));
+    }
+
+    // Valores más frecuentes del campo (desenrollando los arrays), desempatando por valor
+    private AggregationOperation[] faceta(String campo, boolean esArray) {
+        List<AggregationOperation> etapas = new ArrayList<>();
+        if (esArray) {
+            etapas.add(Aggregation.unwind(campo));
+        }
+        etapas.add(Aggregation.match(Criteria.where(campo).ne(null)));
+        etapas.add(Aggregation.group(campo).count().as("cantidad"));
+        etapas.add(Aggregation.sort(Sort.by(Sort.Direction.DESC, "cantidad").and(Sort.by("_id"))));
+        etapas.add(Aggregation.limit(maxValoresFaceta));
+        return etapas.toArray(AggregationOperation[]::new);
+    }
+
+    private static FacetasDTO facetas(Document resultado) {
+        if (resultado == null) {
+            return new FacetasDTO(List.of(), List.of(), List.of(), List.of());
+        }
+        return new FacetasDTO(
+                valores(resultado, "categorias"),
+                valores(resultado, "colecciones"),
+                valores(resultado, "tags"),
+                valores(resultado, "etiquetasIA"));
+    }
+
+    private static List<FacetasDTO.ValorFaceta> valores(Document resultado, String faceta) {
+        return resultado.getList(faceta, Document.class).stream()
+                .map(valor -> new FacetasDTO.ValorFaceta(
+                        String.valueOf(valor.get("_id")), ((Number) valor.get("cantidad")).longValue()))
+                .toList();
+    }
+
+    private static long total(Document resultado) {
+        if (resultado == null) {
+            return 0;
+        }
+        List<Document> total = resultado.getList("total", Document.class);
+        return total.isEmpty() ? 0 : ((Number) total.get(0).get("total")).longValue();
+    }
+}
@@ -0,0 +1,34 @@
+package ar.edu.utn.dds.k3003.busqueda.motor;
+
+import ar.edu.utn.dds.k3003.busqueda.dto.BusquedaRequestDTO;
+import ar.edu.utn.dds.k3003.busqueda.model.HechoResumen;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
+
+//SPI del motor de búsqueda usado por BusquedaService.
+//Cada implementación decide cómo matchear, rankear y paginar.
+//Se elige con busqueda.motor.tipo (mongo | memoria).
+public interface MotorBusqueda {
+
+    /**
+     * Ejecuta la búsqueda y devuelve la página pedida de hechos no censurados,
+     * proyectados a los campos de HechoResumen.
+     */
+    Page<HechoResumen> buscar(BusquedaRequestDTO request);
+
+    /**
+     * Igual que buscar pero sin calcular el total: solo informa si hay página siguiente.
+     * Por defecto delega en buscar, para motores donde el total no tiene costo extra.
+     */
+    default Slice<HechoResumen> buscarSinTotal(BusquedaRequestDTO request) {
+        return buscar(request);
+    }
+
+    /**
+     * Total de hechos únicos que matchean la consulta y los tags (ignora página y cursor).
+     */
+    default long contar(BusquedaRequestDTO request) {
+        return buscar(request).getTotalElements();
+    }
+}
@@ -0,0 +1,25 @@
+package ar.edu.utn.dds.k3003.busqueda.motor;
+
+import ar.edu.utn.dds.k3003.busqueda.dto.FacetasDTO;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+
+//Página de resultados que además trae los conteos por faceta de todas las coincidencias,
+//calculados en la misma consulta que la página. La devuelven los motores que soportan
+//facetas cuando el request las pide; BusquedaService las pasa a la respuesta.
+public class PaginaConFacetas<T> extends PageImpl<T> {
+
+    private final transient FacetasDTO facetas;
+
+    public PaginaConFacetas(List<T> contenido, Pageable pageable, long total, FacetasDTO facetas) {
+        super(contenido, pageable, total);
+        this.facetas = facetas;
+    }
+
+    public FacetasDTO getFacetas() {
+        return facetas;
+    }
+}
@@ -0,0 +1,57 @@
+package ar.edu.utn.dds.k3003.busqueda.motor;
+
+import java.util.Arrays;
+
+
+//Lista de postings compacta: docIds ascendentes + frecuencia ponderada, en arrays primitivos.
+//No es thread-safe; la sincronización la hace IndiceInvertido.
+class PostingList {
+
+    private int[] docIds = new int[4];
+    private int[] frecuencias = new int[4];
+    private int size;
+
+    void agregar(int docId, int frecuencia) {
+        if (size == docIds.length) {
+            int nuevaCapacidad = size + (size >> 1) + 1;
+            docIds = Arrays.copyOf(docIds, nuevaCapacidad);
+            frecuencias = Arrays.copyOf(frecuencias, nuevaCapacidad);
+        }
+        docIds[size] = docId;
+        frecuencias[size] = frecuencia;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int docId(int i) {
+        return docIds[i];
+    }
+
+    int frecuencia(int i) {
+        return frecuencias[i];
+    }
+
+    /**
+     * Reescribe los docIds según el remapeo de una compactación.
+     * Los docIds con valor -1 en el remapeo se descartan; el orden relativo se mantiene.
+     */
+    void remapear(int[] remapeo) {
+        int destino = 0;
+        for (int i = 0; i < size; i++) {
+            int nuevo = remapeo[docIds[i]];
+            if (nuevo >= 0) {
+                docIds[destino] = nuevo;
+                frecuencias[destino] = frecuencias[i];
+                destino++;
+            }
+        }
+        size = destino;
+        if (docIds.length > size * 2 + 4) {
+            docIds = Arrays.copyOf(docIds, size + 4);
+            frecuencias = Arrays.copyOf(frecuencias, size + 4);
+        }
+    }
+}
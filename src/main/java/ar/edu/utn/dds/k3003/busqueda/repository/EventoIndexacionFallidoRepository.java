@@ -0,0 +1,9 @@
+package ar.edu.utn.dds.k3003.busqueda.repository;
+
+import ar.edu.utn.dds.k3003.busqueda.model.EventoIndexacionFallido;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface EventoIndexacionFallidoRepository extends MongoRepository<EventoIndexacionFallido, String> {
+}
@@ -0,0 +1,14 @@
+package ar.edu.utn.dds.k3003.busqueda.repository;
+
+import ar.edu.utn.dds.k3003.busqueda.model.PdIPendiente;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PdIPendienteRepository extends MongoRepository<PdIPendiente, String> {
+
+    List<PdIPendiente> findByHechoIdIn(Collection<String> hechoIds);
+}
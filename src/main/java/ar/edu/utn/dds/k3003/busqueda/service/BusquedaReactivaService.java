@@ -0,0 +1,73 @@
+package ar.edu.utn.dds.k3003.busqueda.service;
+
+import ar.edu.utn.dds.k3003.busqueda.dto.BusquedaRequestDTO;
+import ar.edu.utn.dds.k3003.busqueda.dto.BusquedaResponseDTO;
+import ar.edu.utn.dds.k3003.busqueda.dto.BusquedaResultadoDTO;
+import ar.edu.utn.dds.k3003.busqueda.dto.ConteoBusqueda;
+import ar.edu.utn.dds.k3003.busqueda.motor.MongoReactivoMotorBusqueda;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+//Búsqueda sobre el driver reactivo, experimental: mismas respuestas que BusquedaService, con
+//la espera a Mongo en el driver reactivo en lugar de un thread por request. No pasa por
+//CacheBusqueda (la idea es comparar el acceso a Mongo) y el conteo asincrono se resuelve como omitir.
+//Todavía no hay números de carga que muestren si conviene frente a la bloqueante.
+//La latencia se mide aparte (metamapa.busqueda.reactiva.latencia) para comparar con la bloqueante.
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "busqueda.motor.tipo", havingValue = "mongo", matchIfMissing = true)
+public class BusquedaReactivaService {
+
+    private final MongoReactivoMotorBusqueda motor;
+    private final MeterRegistry meterRegistry;
+
+    public Mono<BusquedaResponseDTO> buscar(BusquedaRequestDTO request) {
+        return Mono.defer(() -> {
+            long startNanos = System.nanoTime();
+            return ejecutarBusqueda(request)
+                    .doOnSuccess(response -> registrarLatencia("ok", startNanos))
+                    .doOnError(e -> {
+                        log.error("❌ Error en búsqueda reactiva: {}", e.getMessage(), e);
+                        registrarLatencia("error", startNanos);
+                    });
+        });
+    }
+
+    /**
+     * Los resultados de la página uno por uno, a medida que los devuelve el cursor.
+     */
+    public Flux<BusquedaResultadoDTO> streamear(BusquedaRequestDTO request) {
+        if (request.terminos().isEmpty()) {
+            return Flux.empty();
+        }
+        return motor.pagina(request, request.tamanio())
+                .map(BusquedaResultadoDTO::from);
+    }
+
+    private Mono<BusquedaResponseDTO> ejecutarBusqueda(BusquedaRequestDTO request) {
+        if (request.terminos().isEmpty()) {
+            return Mono.just(BusquedaResponseDTO.of(List.of(), request.pagina(), request.tamanio(), 0));
+        }
+        if (request.conteo() == ConteoBusqueda.EXACTO) {
+            return motor.buscar(request)
+                    .map(pagina -> BusquedaService.respuestaConTotal(request, pagina));
+        }
+        return motor.buscarSinTotal(request)
+                .map(slice -> BusquedaService.respuestaSinTotal(request, slice));
+    }
+
+    private void registrarLatencia(String resultado, long startNanos) {
+        meterRegistry.timer("metamapa.busqueda.reactiva.latencia", BusquedaService.RESULTADO, resultado)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -3,20 +3,24 @@ package ar.edu.utn.dds.k3003.busqueda.service;
 import ar.edu.utn.dds.k3003.busqueda.dto.BusquedaRequestDTO;
 import ar.edu.utn.dds.k3003.busqueda.dto.BusquedaResponseDTO;
 import ar.edu.utn.dds.k3003.busqueda.dto.BusquedaResultadoDTO;
-import ar.edu.utn.dds.k3003.busqueda.model.HechoIndexado;
-import ar.edu.utn.dds.k3003.busqueda.repository.HechoIndexadoRepository;
+import ar.edu.utn.dds.k3003.busqueda.dto.ConteoBusqueda;
+import ar.edu.utn.dds.k3003.busqueda.dto.CursorBusqueda;
+import ar.edu.utn.dds.k3003.busqueda.dto.FacetasDTO;
+import ar.edu.utn.dds.k3003.busqueda.indice.ContadoresFacetas;
+import ar.edu.utn.dds.k3003.busqueda.indice.IndiceSugerencias;
+import ar.edu.utn.dds.k3003.busqueda.model.HechoResumen;
+import ar.edu.utn.dds.k3003.busqueda.motor.MotorBusqueda;
+import ar.edu.utn.dds.k3003.busqueda.motor.PaginaConFacetas;
 import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 @Service
 @Slf4j
@@ -24,8 +28,12 @@ import java.util.stream.Collectors;
 public class BusquedaService {
 
     public static final String RESULTADO = "resultado";
-    private final HechoIndexadoRepository repository;
+    private final MotorBusqueda motorBusqueda;
+    private final CacheBusqueda cacheBusqueda;
+    private final ConteoAsincrono conteoAsincrono;
     private final MeterRegistry meterRegistry;
+    private final ObjectProvider<IndiceSugerencias> indiceSugerencias;
+    private final ObjectProvider<ContadoresFacetas> contadoresFacetas;
 
     public BusquedaResponseDTO buscar(BusquedaRequestDTO request) {
         long startNanos = System.nanoTime();
@@ -36,42 +44,16 @@ public class BusquedaService {
                 request.consulta(), request.tags(), request.pagina());
 
         try {
-            Pageable pageable = PageRequest.of(
-                    request.pagina(),
-                    request.tamanio(),
-                    Sort.by(Sort.Direction.DESC, "ultimaActualizacion")
-            );
-
-            Page<HechoIndexado> resultadosPage;
-
-            if (request.tags() != null && !request.tags().isEmpty()) {
-                resultadosPage = repository.buscarPorTextoYTags(
-                        request.consulta(),
-                        request.tags(),
-                        pageable
-                );
-            } else {
-                resultadosPage = repository.buscarPorTexto(
-                        request.consulta(),
-                        pageable
-                );
+            BusquedaResponseDTO response = cacheBusqueda.obtener(request, () -> ejecutarBusqueda(request));
+
+            // El total asíncrono se agrega fuera del cache: puede llegar después que la página
+            if (request.conteo() == ConteoBusqueda.ASINCRONO) {
+                Long total = conteoAsincrono.obtener(request);
+                if (total != null) {
+                    response = response.conTotalEstimado(total);
+                }
             }
 
-            List<BusquedaResultadoDTO> resultadosDeduplicados = deduplicarPorTitulo(
-                    resultadosPage.getContent()
-            );
-
-            log.info("✅ Encontrados {} resultados (únicos: {})",
-                    resultadosPage.getTotalElements(),
-                    resultadosDeduplicados.size());
-
-            BusquedaResponseDTO response = BusquedaResponseDTO.of(
-                    resultadosDeduplicados,
-                    request.pagina(),
-                    request.tamanio(),
-                    resultadosPage.getTotalElements()
-            );
-
             // Registrar métricas de éxito
             registrarMetricasBusqueda(request, response, "ok", tipoConsulta, startNanos);
 
@@ -84,6 +66,112 @@ public class BusquedaService {
         }
     }
 
+    /**
+     * Sugerencias por prefijo desde el índice en memoria, sin ir a Mongo.
+     * Vacío si las sugerencias están deshabilitadas (busqueda.sugerencias.enabled=false).
+     */
+    public List<IndiceSugerencias.Sugerencia> sugerir(String prefijo, int limite) {
+        long startNanos = System.nanoTime();
+        IndiceSugerencias indice = indiceSugerencias.getIfAvailable();
+        List<IndiceSugerencias.Sugerencia> sugerencias = indice == null ? List.of() : indice.sugerir(prefijo, limite);
+
+        meterRegistry.timer("metamapa.busqueda.sugerencias.latencia")
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        return sugerencias;
+    }
+
+    /**
+     * Conteos por faceta de todos los hechos no censurados, desde los contadores en memoria.
+     * Vacío si los contadores están deshabilitados (busqueda.facetas.enabled=false).
+     */
+    public FacetasDTO facetasGlobales(int limite) {
+        ContadoresFacetas contadores = contadoresFacetas.getIfAvailable();
+        return contadores == null
+                ? new FacetasDTO(List.of(), List.of(), List.of(), List.of())
+                : contadores.facetas(limite);
+    }
+
+    private BusquedaResponseDTO ejecutarBusqueda(BusquedaRequestDTO request) {
+        // Consulta que el analizador deja sin términos (solo stopwords o signos): no matchea nada
+        if (request.terminos().isEmpty()) {
+            log.info("✅ Consulta sin términos buscables, sin resultados");
+            return BusquedaResponseDTO.of(List.of(), request.pagina(), request.tamanio(), 0);
+        }
+
+        if (request.conteo() != ConteoBusqueda.EXACTO) {
+            return ejecutarBusquedaSinTotal(request);
+        }
+
+        // El motor ya devuelve los resultados deduplicados por título
+        Page<HechoResumen> resultadosPage = motorBusqueda.buscar(request);
+        log.info("✅ Encontrados {} resultados únicos", resultadosPage.getTotalElements());
+        return respuestaConTotal(request, resultadosPage);
+    }
+
+    // Compartido con BusquedaReactivaService: misma respuesta para la misma página
+    static BusquedaResponseDTO respuestaConTotal(BusquedaRequestDTO request, Page<HechoResumen> resultadosPage) {
+        // Con cursor el motor trae limitePagina() = tamanio + 1: el de más solo dice si hay siguiente
+        List<HechoResumen> contenido = resultadosPage.getContent();
+        boolean hayMas = contenido.size() > request.tamanio();
+        if (hayMas) {
+            contenido = contenido.subList(0, request.tamanio());
+        }
+        List<BusquedaResultadoDTO> resultados = contenido.stream()
+                .map(BusquedaResultadoDTO::from)
+                .toList();
+
+        // Página completa: la siguiente arranca después del último resultado
+        CursorBusqueda siguiente = contenido.size() == request.tamanio()
+                ? CursorBusqueda.despuesDe(contenido.get(contenido.size() - 1), request.orden(), request.referencia())
+                : null;
+
+        BusquedaResponseDTO response = request.cursor() != null
+                ? BusquedaResponseDTO.of(resultados, request.pagina(), request.tamanio(),
+                        resultadosPage.getTotalElements(), hayMas, siguiente)
+                : BusquedaResponseDTO.of(resultados, request.pagina(), request.tamanio(),
+                        resultadosPage.getTotalElements(), siguiente);
+        // Las facetas salen de la misma consulta, si el motor las soporta
+        return resultadosPage instanceof PaginaConFacetas<HechoResumen> conFacetas
+                ? response.conFacetas(conFacetas.getFacetas())
+                : response;
+    }
+
+    // Una sola consulta a Mongo, sin $count: el motor trae tamanio + 1 para saber si hay más
+    private BusquedaResponseDTO ejecutarBusquedaSinTotal(BusquedaRequestDTO request) {
+        return respuestaSinTotal(request, motorBusqueda.buscarSinTotal(request));
+    }
+
+    static BusquedaResponseDTO respuestaSinTotal(BusquedaRequestDTO request, Slice<HechoResumen> slice) {
+        List<BusquedaResultadoDTO> resultados = slice.getContent().stream()
+                .map(BusquedaResultadoDTO::from)
+                .toList();
+
+        List<HechoResumen> contenido = slice.getContent();
+        CursorBusqueda siguiente = contenido.isEmpty()
+                ? null
+                : CursorBusqueda.despuesDe(contenido.get(contenido.size() - 1), request.orden(), request.referencia());
+
+        // Cota inferior: lo ya recorrido + esta página + al menos uno más si hay siguiente
+        Long total = request.conteo() == ConteoBusqueda.ESTIMADO
+                ? (long) request.pagina() * request.tamanio() + contenido.size() + (slice.hasNext() ? 1 : 0)
+                : null;
+
+        return BusquedaResponseDTO.slice(
+                resultados,
+                request.pagina(),
+                request.tamanio(),
+                slice.hasNext(),
+                total,
+                siguiente
+        );
+    }
+
+    private static long cantidadResultados(BusquedaResponseDTO response) {
+        return response.totalResultados() != null
+                ? response.totalResultados()
+                : response.resultados().size();
+    }
+
     private void registrarMetricasBusqueda(BusquedaRequestDTO request,
                                            BusquedaResponseDTO response,
                                            String resultado,
@@ -96,7 +184,7 @@ public class BusquedaService {
                 "metamapa.busqueda.consultas",
                 RESULTADO, resultado,
                 "tipo", tipoConsulta,
-                "tiene_resultados", response.totalResultados() > 0 ? "si" : "no"
+                "tiene_resultados", cantidadResultados(response) > 0 ? "si" : "no"
         ).increment();
 
         // Tiempo de respuesta de búsqueda
@@ -108,7 +196,7 @@ public class BusquedaService {
 
         // Histograma de cantidad de resultados
         meterRegistry.summary("metamapa.busqueda.cantidad_resultados")
-                .record(response.totalResultados());
+                .record(cantidadResultados(response));
     }
 
     private void registrarMetricasError(String tipoConsulta, long startNanos) {
@@ -127,24 +215,4 @@ public class BusquedaService {
                 "tipo", tipoConsulta
         ).record(duracionNanos, TimeUnit.NANOSECONDS);
     }
-
-    private List<BusquedaResultadoDTO> deduplicarPorTitulo(List<HechoIndexado> hechos) {
-        Map<String, HechoIndexado> unicos = new LinkedHashMap<>();
-
-        for (HechoIndexado hecho : hechos) {
-            String titulo = hecho.getTitulo();
-            HechoIndexado existente = unicos.get(titulo);
-
-            if (existente == null ||
-                    (hecho.getUltimaActualizacion() != null &&
-                            existente.getUltimaActualizacion() != null &&
-                            hecho.getUltimaActualizacion().isAfter(existente.getUltimaActualizacion()))) {
-                unicos.put(titulo, hecho);
-            }
-        }
-
-        return unicos.values().stream()
-                .map(BusquedaResultadoDTO::from)
-                .collect(Collectors.toList());
-    }
 }
\ No newline at end of file
@@ -0,0 +1,148 @@
+package ar.edu.utn.dds.k3003.busqueda.service;
+
+import ar.edu.utn.dds.k3003.busqueda.dto.BusquedaRequestDTO;
+import ar.edu.utn.dds.k3003.busqueda.dto.BusquedaResponseDTO;
+import ar.edu.utn.dds.k3003.busqueda.dto.BusquedaResultadoDTO;
+import ar.edu.utn.dds.k3003.busqueda.dto.ConteoBusqueda;
+import ar.edu.utn.dds.k3003.busqueda.dto.CursorBusqueda;
+import ar.edu.utn.dds.k3003.busqueda.dto.FacetasDTO;
+import ar.edu.utn.dds.k3003.busqueda.dto.OrdenBusqueda;
+import ar.edu.utn.dds.k3003.busqueda.indice.HechoIndexadoEvent;
+import ar.edu.utn.dds.k3003.busqueda.indice.IndiceLimpiadoEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mongodb.ReadPreference;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+
+//Cache de respuestas de búsqueda (Caffeine: W-TinyLFU, acotada por bytes estimados y con TTL).
+//La clave incluye un número de generación global que se incrementa con cada escritura
+//de IndexacionService: después de un cambio ninguna búsqueda vuelve a leer respuestas viejas,
+//y las entradas huérfanas salen por TTL o por tamaño.
+//Eso vale si la búsqueda lee del primario (el default). Con busqueda.mongo.lectura-busqueda en una
+//read preference que admite secundarios, la primera búsqueda después de un cambio puede leer una réplica
+//atrasada y cachear esa página vieja bajo la generación nueva: por eso en ese caso la cache se apaga,
+//salvo que se configure busqueda.cache.ttl-lectura-secundaria, que acota cuánto puede durar esa página
+//(además del atraso de la réplica, hasta max-staleness).
+@Component
+@Slf4j
+public class CacheBusqueda {
+
+    private final boolean habilitada;
+    private final AtomicLong generacion = new AtomicLong();
+    private final Cache<Clave, BusquedaResponseDTO> cache;
+
+    public CacheBusqueda(MeterRegistry meterRegistry,
+                         @Value("${busqueda.cache.enabled:true}") boolean habilitada,
+                         @Value("${busqueda.cache.max-bytes:33554432}") long maxBytes,
+                         @Value("${busqueda.cache.ttl:60s}") Duration ttl,
+                         ReadPreference lecturaBusqueda,
+                         @Value("${busqueda.cache.ttl-lectura-secundaria:0s}") Duration ttlLecturaSecundaria) {
+        if (habilitada && lecturaBusqueda.isSecondaryOk()) {
+            if (ttlLecturaSecundaria.isZero()) {
+                log.warn("⚠️ Cache de búsqueda desactivada: la búsqueda lee con {} y podría cachear páginas viejas",
+                        lecturaBusqueda.getName());
+                habilitada = false;
+            } else if (ttlLecturaSecundaria.compareTo(ttl) < 0) {
+                log.info("🗄️ Cache de búsqueda con TTL {} por leer con {}", ttlLecturaSecundaria, lecturaBusqueda.getName());
+                ttl = ttlLecturaSecundaria;
+            }
+        }
+        this.habilitada = habilitada;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Clave clave, BusquedaResponseDTO respuesta) -> pesoEstimado(respuesta))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        // cache.gets{result=hit|miss}, cache.evictions, cache.size, etc.
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "busqueda");
+    }
+
+    record Clave(String consulta, List<String> tags, int pagina, int tamanio,
+                 OrdenBusqueda orden, CursorBusqueda cursor, ConteoBusqueda conteo, boolean facetas,
+                 long generacion) {
+
+        static Clave de(BusquedaRequestDTO request, long generacion) {
+            return new Clave(request.consultaNormalizada(), request.tagsNormalizados(),
+                    request.pagina(), request.tamanio(), request.orden(),
+                    request.cursor(), request.conteo(), request.facetas(), generacion);
+        }
+    }
+
+    /**
+     * Devuelve la respuesta cacheada o ejecuta la búsqueda una sola vez por clave
+     * (las búsquedas concurrentes iguales esperan el mismo resultado).
+     */
+    public BusquedaResponseDTO obtener(BusquedaRequestDTO request, Supplier<BusquedaResponseDTO> busqueda) {
+        if (!habilitada) {
+            return busqueda.get();
+        }
+        Clave clave = Clave.de(request, generacion.get());
+        return cache.get(clave, k -> busqueda.get());
+    }
+
+    @EventListener(HechoIndexadoEvent.class)
+    public void onHechoIndexado() {
+        generacion.incrementAndGet();
+    }
+
+    @EventListener(IndiceLimpiadoEvent.class)
+    public void onIndiceLimpiado() {
+        generacion.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    // Estimación grosera del tamaño en heap: 2 bytes por char más overhead por objeto
+    private static int pesoEstimado(BusquedaResponseDTO respuesta) {
+        long bytes = 128;
+        for (BusquedaResultadoDTO resultado : respuesta.resultados()) {
+            bytes += 96
+                    + largo(resultado.id()) + largo(resultado.titulo())
+                    + largo(resultado.nombreColeccion()) + largo(resultado.descripcion())
+                    + largo(resultado.ubicacion()) + largo(resultado.categoria())
+                    + largo(resultado.origen())
+                    + largo(resultado.etiquetas()) + largo(resultado.etiquetasIA());
+        }
+        if (respuesta.facetas() != null) {
+            bytes += largo(respuesta.facetas().categorias()) + largo(respuesta.facetas().colecciones())
+                    + largo(respuesta.facetas().tags()) + largo(respuesta.facetas().etiquetasIA());
+        }
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+    private static long largo(Collection<FacetasDTO.ValorFaceta> valores) {
+        long bytes = 24;
+        for (FacetasDTO.ValorFaceta valor : valores) {
+            bytes += 32 + largo(valor.valor());
+        }
+        return bytes;
+    }
+
+    private static long largo(String valor) {
+        return valor == null ? 0 : 40 + 2L * valor.length();
+    }
+
+    private static long largo(List<String> valores) {
+        if (valores == null) {
+            return 0;
+        }
+        long bytes = 24;
+        for (String valor : valores) {
+            bytes += largo(valor);
+        }
+        return bytes;
+    }
+}
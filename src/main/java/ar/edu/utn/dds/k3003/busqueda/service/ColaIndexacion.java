@@ -0,0 +1,423 @@
+package ar.edu.utn.dds.k3003.busqueda.service;
+
+import ar.edu.utn.dds.k3003.busqueda.dto.HechoDTO;
+import ar.edu.utn.dds.k3003.busqueda.dto.PdIDTO;
+import ar.edu.utn.dds.k3003.busqueda.model.EventoIndexacionFallido;
+import ar.edu.utn.dds.k3003.busqueda.repository.EventoIndexacionFallidoRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+
+//Cola en memoria para los webhooks de indexación: el controller encola y responde 202
+//y un único escritor en segundo plano vuelca a MongoDB por lotes.
+//Los eventos pendientes se coalescen por hechoId: del hecho queda solo la última versión,
+//de cada PDI también (un PDI eliminado descarta su alta pendiente y viceversa),
+//y la censura se aplica una vez después de los demás cambios.
+//El vuelco se dispara al juntar tamanio-flush ítems o al pasar intervalo-flush, lo que ocurra primero,
+//y usa las escrituras bulk de IndexacionService (una por tipo de evento por lote).
+//La cola está acotada en ítems pendientes: si está llena, encolar devuelve false (429 en el controller).
+//Lo que falla al volcar ya fue aceptado con 202 y la marca de sincronización incremental puede haberlo
+//dejado atrás, así que no se descarta: se reencola (sin pisar cambios más nuevos del mismo hecho)
+//hasta max-reintentos veces, y después se guarda en webhooks_fallidos, de donde el mismo escritor
+//lo vuelve a encolar cada reproceso-fallidos.
+@Component
+@Slf4j
+public class ColaIndexacion {
+
+    private final IndexacionService indexacionService;
+    private final EventoIndexacionFallidoRepository fallidosRepository;
+    private final MeterRegistry meterRegistry;
+    private final int capacidad;
+    private final int tamanioFlush;
+    private final Duration intervaloFlush;
+    private final int maxReintentos;
+    private final Duration reprocesoFallidos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition hayTrabajo = lock.newCondition();
+    private Map<String, Pendiente> pendientes = new LinkedHashMap<>();
+    private int items;
+    private volatile boolean activa;
+    private Thread escritor;
+    // Solo lo usa el escritor
+    private long proximoReproceso;
+
+    public ColaIndexacion(IndexacionService indexacionService,
+                          EventoIndexacionFallidoRepository fallidosRepository,
+                          MeterRegistry meterRegistry,
+                          @Value("${busqueda.webhook.cola.capacidad:10000}") int capacidad,
+                          @Value("${busqueda.webhook.cola.tamanio-flush:500}") int tamanioFlush,
+                          @Value("${busqueda.webhook.cola.intervalo-flush:200ms}") Duration intervaloFlush,
+                          @Value("${busqueda.webhook.cola.max-reintentos:3}") int maxReintentos,
+                          @Value("${busqueda.webhook.cola.reproceso-fallidos:5m}") Duration reprocesoFallidos) {
+        this.indexacionService = indexacionService;
+        this.fallidosRepository = fallidosRepository;
+        this.meterRegistry = meterRegistry;
+        this.capacidad = capacidad;
+        this.tamanioFlush = tamanioFlush;
+        this.intervaloFlush = intervaloFlush;
+        this.maxReintentos = maxReintentos;
+        this.reprocesoFallidos = reprocesoFallidos;
+
+        meterRegistry.gauge("metamapa.busqueda.webhook.cola.profundidad", this, ColaIndexacion::profundidad);
+    }
+
+    // Cambios pendientes de un hecho desde el último vuelco
+    private static final class Pendiente {
+        private HechoDTO hecho;
+        private final Map<String, PdIDTO> pdis = new LinkedHashMap<>();
+        private final List<PdIDTO> pdisSinId = new ArrayList<>();
+        private final Set<String> pdisEliminados = new LinkedHashSet<>();
+        private boolean censurar;
+        // Vuelcos fallidos de estos cambios
+        private int intentos;
+
+        private int items() {
+            return (hecho != null ? 1 : 0) + pdis.size() + pdisSinId.size() + pdisEliminados.size()
+                    + (censurar ? 1 : 0);
+        }
+
+        // Suma los cambios de un pendiente anterior que este no pisó; devuelve cuántos ítems agregó
+        private int absorber(Pendiente anterior) {
+            int agregados = 0;
+            if (hecho == null && anterior.hecho != null) {
+                hecho = anterior.hecho;
+                agregados++;
+            }
+            for (Map.Entry<String, PdIDTO> pdi : anterior.pdis.entrySet()) {
+                if (!pdis.containsKey(pdi.getKey()) && !pdisEliminados.contains(pdi.getKey())) {
+                    pdis.put(pdi.getKey(), pdi.getValue());
+                    agregados++;
+                }
+            }
+            pdisSinId.addAll(0, anterior.pdisSinId);
+            agregados += anterior.pdisSinId.size();
+            for (String pdiId : anterior.pdisEliminados) {
+                if (!pdis.containsKey(pdiId) && pdisEliminados.add(pdiId)) {
+                    agregados++;
+                }
+            }
+            if (anterior.censurar && !censurar) {
+                censurar = true;
+                agregados++;
+            }
+            intentos = Math.max(intentos, anterior.intentos);
+            return agregados;
+        }
+    }
+
+    @PostConstruct
+    void iniciar() {
+        activa = true;
+        proximoReproceso = System.nanoTime();
+        escritor = Thread.ofPlatform()
+                .name("cola-indexacion")
+                .daemon(true)
+                .start(this::procesar);
+    }
+
+    // Vuelca lo pendiente antes de cerrar el contexto
+    @PreDestroy
+    void detener() throws InterruptedException {
+        lock.lock();
+        try {
+            activa = false;
+            hayTrabajo.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        escritor.join(Duration.ofSeconds(30));
+    }
+
+    public boolean encolarHecho(HechoDTO hecho) {
+        return encolar(hecho.id(), "hecho", pendiente -> {
+            boolean nuevo = pendiente.hecho == null;
+            pendiente.hecho = hecho;
+            return nuevo;
+        });
+    }
+
+    public boolean encolarPdI(PdIDTO pdi) {
+        return encolar(pdi.hechoId(), "pdi", pendiente -> {
+            if (pdi.id() == null) {
+                pendiente.pdisSinId.add(pdi);
+                return true;
+            }
+            boolean eraEliminado = pendiente.pdisEliminados.remove(pdi.id());
+            return pendiente.pdis.put(pdi.id(), pdi) == null && !eraEliminado;
+        });
+    }
+
+    public boolean encolarEliminacionPdI(String hechoId, String pdiId) {
+        return encolar(hechoId, "eliminacion_pdi", pendiente -> {
+            boolean eraAlta = pendiente.pdis.remove(pdiId) != null;
+            return pendiente.pdisEliminados.add(pdiId) && !eraAlta;
+        });
+    }
+
+    public boolean encolarCensura(String hechoId) {
+        return encolar(hechoId, "censura", pendiente -> {
+            boolean nuevo = !pendiente.censurar;
+            pendiente.censurar = true;
+            return nuevo;
+        });
+    }
+
+    public int profundidad() {
+        lock.lock();
+        try {
+            return items;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // coalescer aplica el evento sobre lo pendiente: true si agregó un ítem, false si reemplazó uno existente
+    private boolean encolar(String hechoId, String tipo, Predicate<Pendiente> coalescer) {
+        if (hechoId == null) {
+            throw new IllegalArgumentException("El evento no tiene hechoId");
+        }
+        lock.lock();
+        try {
+            if (!activa || items >= capacidad) {
+                meterRegistry.counter("metamapa.busqueda.webhook.cola.rechazados", "tipo", tipo).increment();
+                return false;
+            }
+            Pendiente pendiente = pendientes.computeIfAbsent(hechoId, id -> new Pendiente());
+            if (coalescer.test(pendiente)) {
+                items++;
+            } else {
+                meterRegistry.counter("metamapa.busqueda.webhook.cola.coalescidos", "tipo", tipo).increment();
+            }
+            if (items >= tamanioFlush) {
+                hayTrabajo.signal();
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void procesar() {
+        while (true) {
+            if (activa && System.nanoTime() - proximoReproceso >= 0) {
+                reprocesarFallidos();
+                proximoReproceso = System.nanoTime() + reprocesoFallidos.toNanos();
+            }
+            Map<String, Pendiente> lote;
+            lock.lock();
+            try {
+                long restante = intervaloFlush.toNanos();
+                while (activa && items < tamanioFlush && restante > 0) {
+                    restante = hayTrabajo.awaitNanos(restante);
+                }
+                if (pendientes.isEmpty()) {
+                    if (!activa) {
+                        return;
+                    }
+                    continue;
+                }
+                lote = pendientes;
+                pendientes = new LinkedHashMap<>();
+                items = 0;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            volcar(lote);
+        }
+    }
+
+    /**
+     * Escribe un lote coalescido: primero los hechos (así los PDIs del mismo lote encuentran
+     * su hecho), después los PDIs, las eliminaciones de PDIs y al final las censuras.
+     */
+    private void volcar(Map<String, Pendiente> lote) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        List<HechoDTO> hechos = new ArrayList<>();
+        List<PdIDTO> pdis = new ArrayList<>();
+        List<String[]> eliminaciones = new ArrayList<>();
+        List<String> censuras = new ArrayList<>();
+        lote.forEach((hechoId, pendiente) -> {
+            if (pendiente.hecho != null) {
+                hechos.add(pendiente.hecho);
+            }
+            pdis.addAll(pendiente.pdis.values());
+            pdis.addAll(pendiente.pdisSinId);
+            pendiente.pdisEliminados.forEach(pdiId -> eliminaciones.add(new String[]{hechoId, pdiId}));
+            if (pendiente.censurar) {
+                censuras.add(hechoId);
+            }
+        });
+
+        Map<String, Pendiente> fallidos = new LinkedHashMap<>();
+        String resultadoMetrica = "ok";
+        try {
+            if (!hechos.isEmpty()) {
+                indexacionService.indexarHechos(hechos, hecho -> fallido(fallidos, hecho.id()).hecho = hecho);
+            }
+            if (!pdis.isEmpty()) {
+                indexacionService.indexarPdIs(pdis, pdi -> {
+                    Pendiente pendiente = fallido(fallidos, pdi.hechoId());
+                    if (pdi.id() == null) {
+                        pendiente.pdisSinId.add(pdi);
+                    } else {
+                        pendiente.pdis.put(pdi.id(), pdi);
+                    }
+                });
+            }
+            for (String[] eliminacion : eliminaciones) {
+                try {
+                    indexacionService.eliminarPdI(eliminacion[0], eliminacion[1]);
+                } catch (Exception e) {
+                    fallido(fallidos, eliminacion[0]).pdisEliminados.add(eliminacion[1]);
+                }
+            }
+            for (String hechoId : censuras) {
+                try {
+                    indexacionService.censurarHecho(hechoId);
+                } catch (Exception e) {
+                    fallido(fallidos, hechoId).censurar = true;
+                }
+            }
+            int errores = fallidos.values().stream().mapToInt(Pendiente::items).sum();
+            log.info("📤 Cola de indexación volcada: {} hechos, {} PDIs, {} PDIs eliminados, {} censuras ({} con error)",
+                    hechos.size(), pdis.size(), eliminaciones.size(), censuras.size(), errores);
+            if (errores > 0) {
+                resultadoMetrica = "con_errores";
+            }
+        } catch (Exception e) {
+            resultadoMetrica = "error";
+            log.error("❌ Error volcando la cola de indexación: {}", e.getMessage(), e);
+            // No se sabe qué llegó a escribirse: se reintenta todo, lo ya indexado se saltea sin reescribir
+            fallidos.clear();
+            fallidos.putAll(lote);
+        } finally {
+            sample.stop(meterRegistry.timer("metamapa.busqueda.webhook.flush",
+                    "resultado", resultadoMetrica));
+            meterRegistry.summary("metamapa.busqueda.webhook.flush.items")
+                    .record(hechos.size() + pdis.size() + eliminaciones.size() + censuras.size());
+        }
+
+        fallidos.forEach((hechoId, pendiente) -> {
+            Pendiente original = lote.get(hechoId);
+            pendiente.intentos = (original != null ? original.intentos : 0) + 1;
+            if (pendiente.intentos <= maxReintentos) {
+                reencolar(hechoId, pendiente, "reintento");
+            } else {
+                guardarFallido(hechoId, pendiente);
+            }
+        });
+    }
+
+    private static Pendiente fallido(Map<String, Pendiente> fallidos, String hechoId) {
+        return fallidos.computeIfAbsent(hechoId, id -> new Pendiente());
+    }
+
+    // Vuelve a poner cambios ya aceptados en la cola: no cuentan contra la capacidad y los más nuevos ganan
+    private void reencolar(String hechoId, Pendiente anterior, String motivo) {
+        int agregados;
+        lock.lock();
+        try {
+            Pendiente actual = pendientes.get(hechoId);
+            if (actual == null) {
+                pendientes.put(hechoId, anterior);
+                agregados = anterior.items();
+            } else {
+                agregados = actual.absorber(anterior);
+            }
+            items += agregados;
+        } finally {
+            lock.unlock();
+        }
+        meterRegistry.counter("metamapa.busqueda.webhook.cola.reencolados", "motivo", motivo)
+                .increment(agregados);
+    }
+
+    // Agotó los reintentos: se guarda (combinado con lo que ya hubiera del hecho) para reprocesarlo más tarde
+    private void guardarFallido(String hechoId, Pendiente pendiente) {
+        try {
+            fallidosRepository.findById(hechoId)
+                    .map(ColaIndexacion::desdeFallido)
+                    .ifPresent(pendiente::absorber);
+            fallidosRepository.save(new EventoIndexacionFallido(hechoId, pendiente.hecho,
+                    new ArrayList<>(concatenar(pendiente.pdis.values(), pendiente.pdisSinId)),
+                    new ArrayList<>(pendiente.pdisEliminados), pendiente.censurar, Instant.now()));
+            meterRegistry.counter("metamapa.busqueda.webhook.cola.fallidos").increment(pendiente.items());
+            log.error("❌ Cambios del hecho {} guardados en webhooks_fallidos tras {} vuelcos fallidos",
+                    hechoId, pendiente.intentos);
+        } catch (Exception e) {
+            // Sin Mongo tampoco se puede guardar: quedan en memoria hasta que vuelva
+            log.warn("⚠️ No se pudieron guardar los cambios fallidos del hecho {}: {}", hechoId, e.getMessage());
+            reencolar(hechoId, pendiente, "sin_guardar");
+        }
+    }
+
+    // Trae a la cola lo guardado en webhooks_fallidos, hasta donde alcance la capacidad
+    private void reprocesarFallidos() {
+        try {
+            int lugar = capacidad - profundidad();
+            if (lugar <= 0) {
+                return;
+            }
+            List<EventoIndexacionFallido> guardados =
+                    fallidosRepository.findAll(PageRequest.of(0, lugar)).getContent();
+            for (EventoIndexacionFallido guardado : guardados) {
+                reencolar(guardado.getHechoId(), desdeFallido(guardado), "reproceso");
+                fallidosRepository.deleteById(guardado.getHechoId());
+            }
+            if (!guardados.isEmpty()) {
+                log.info("🔁 {} hechos con cambios fallidos vueltos a encolar", guardados.size());
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ No se pudieron reprocesar los cambios fallidos: {}", e.getMessage());
+        }
+    }
+
+    private static Pendiente desdeFallido(EventoIndexacionFallido guardado) {
+        Pendiente pendiente = new Pendiente();
+        pendiente.hecho = guardado.getHecho();
+        if (guardado.getPdis() != null) {
+            for (PdIDTO pdi : guardado.getPdis()) {
+                if (pdi.id() == null) {
+                    pendiente.pdisSinId.add(pdi);
+                } else {
+                    pendiente.pdis.put(pdi.id(), pdi);
+                }
+            }
+        }
+        if (guardado.getPdisEliminados() != null) {
+            pendiente.pdisEliminados.addAll(guardado.getPdisEliminados());
+        }
+        pendiente.censurar = guardado.isCensurar();
+        return pendiente;
+    }
+
+    private static List<PdIDTO> concatenar(Collection<PdIDTO> conId, List<PdIDTO> sinId) {
+        List<PdIDTO> todos = new ArrayList<>(conId);
+        todos.addAll(sinId);
+        return todos;
+    }
+}
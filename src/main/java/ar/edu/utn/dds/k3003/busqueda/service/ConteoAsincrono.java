@@ -0,0 +1,76 @@
+package ar.edu.utn.dds.k3003.busqueda.service;
+
+import ar.edu.utn.dds.k3003.busqueda.dto.BusquedaRequestDTO;
+import ar.edu.utn.dds.k3003.busqueda.indice.IndiceLimpiadoEvent;
+import ar.edu.utn.dds.k3003.busqueda.motor.MotorBusqueda;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+
+//Totales de búsqueda calculados en segundo plano (conteo=asincrono).
+//La primera búsqueda de una consulta dispara el conteo y responde sin total;
+//las siguientes páginas de la misma consulta lo encuentran cacheado.
+//Los totales no se invalidan con cada indexación (son aproximados por definición):
+//vencen por TTL y se descartan al limpiar el índice.
+@Component
+@Slf4j
+public class ConteoAsincrono {
+
+    private final MotorBusqueda motorBusqueda;
+    private final AsyncCache<Clave, Long> totales;
+
+    public ConteoAsincrono(MotorBusqueda motorBusqueda,
+                           MeterRegistry meterRegistry,
+                           @Qualifier("applicationTaskExecutor") Executor executor,
+                           @Value("${busqueda.conteo.max-consultas:10000}") long maxConsultas,
+                           @Value("${busqueda.conteo.ttl:5m}") Duration ttl) {
+        this.motorBusqueda = motorBusqueda;
+        this.totales = Caffeine.newBuilder()
+                .executor(executor)
+                .maximumSize(maxConsultas)
+                .expireAfterWrite(ttl)
+                .buildAsync();
+
+        meterRegistry.gauge("metamapa.busqueda.conteo.consultas_cacheadas", totales,
+                cache -> cache.synchronous().estimatedSize());
+    }
+
+    record Clave(String consulta, List<String> tags) {
+
+        static Clave de(BusquedaRequestDTO request) {
+            return new Clave(request.consultaNormalizada(), request.tagsNormalizados());
+        }
+    }
+
+    /**
+     * Devuelve el total si ya está calculado; si no, lo encola (una sola vez por consulta)
+     * y devuelve null.
+     */
+    public Long obtener(BusquedaRequestDTO request) {
+        CompletableFuture<Long> total = totales.get(Clave.de(request), (clave, executor) ->
+                CompletableFuture.supplyAsync(() -> motorBusqueda.contar(request), executor));
+        try {
+            return total.getNow(null);
+        } catch (Exception e) {
+            // Caffeine ya descartó el futuro fallido: la próxima búsqueda lo reintenta
+            log.warn("⚠️ Error en conteo asíncrono de '{}': {}", request.consulta(), e.getMessage());
+            return null;
+        }
+    }
+
+    @EventListener(IndiceLimpiadoEvent.class)
+    public void onIndiceLimpiado() {
+        totales.synchronous().invalidateAll();
+    }
+}
@@ -0,0 +1,84 @@
+package ar.edu.utn.dds.k3003.busqueda.service;
+
+import ar.edu.utn.dds.k3003.busqueda.model.HechoIndexado;
+import com.mongodb.client.MongoCursor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.RawBsonDocumentCodec;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriter;
+import org.bson.json.JsonWriterSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+
+//Exportación del índice completo (GET /api/admin/export) para reindexar, analizar offline
+//o cargar otro nodo: un HechoIndexado por línea en Extended JSON relajado, el formato que
+//acepta mongoimport. Se lee la colección con un cursor de a tamanio-lote documentos y cada
+//documento se escribe apenas llega, sin mapearlo a HechoIndexado: los bytes BSON pasan a JSON
+//directo sobre el stream de salida. En memoria solo quedan el lote del cursor y los buffers.
+@Service
+@Slf4j
+public class ExportacionService {
+
+    private static final int TAMANIO_BUFFER = 64 * 1024;
+    private static final JsonWriterSettings JSON = JsonWriterSettings.builder()
+            .outputMode(JsonMode.RELAXED)
+            .build();
+    private static final RawBsonDocumentCodec CODEC = new RawBsonDocumentCodec();
+
+    private final MongoTemplate mongoTemplate;
+    private final int tamanioLote;
+
+    public ExportacionService(MongoTemplate mongoTemplate,
+                              @Value("${busqueda.export.tamanio-lote:1000}") int tamanioLote) {
+        this.mongoTemplate = mongoTemplate;
+        this.tamanioLote = tamanioLote;
+    }
+
+    /**
+     * Escribe todos los hechos indexados en salida como NDJSON (comprimido si gzip).
+     * No cierra salida. Devuelve la cantidad de hechos exportados.
+     */
+    public long exportar(OutputStream salida, boolean gzip) throws IOException {
+        // Nivel más rápido: con la compresión por defecto el cuello de botella pasa a ser la CPU
+        GZIPOutputStream comprimida = gzip
+                ? new GZIPOutputStream(salida, TAMANIO_BUFFER) {{
+                    def.setLevel(Deflater.BEST_SPEED);
+                }}
+                : null;
+        Writer writer = new BufferedWriter(
+                new OutputStreamWriter(gzip ? comprimida : salida, StandardCharsets.UTF_8), TAMANIO_BUFFER);
+
+        long exportados = 0;
+        String coleccion = mongoTemplate.getCollectionName(HechoIndexado.class);
+        try (MongoCursor<RawBsonDocument> cursor = mongoTemplate.getCollection(coleccion)
+                .withDocumentClass(RawBsonDocument.class)
+                .find()
+                .batchSize(tamanioLote)
+                .cursor()) {
+            while (cursor.hasNext()) {
+                CODEC.encode(new JsonWriter(writer, JSON), cursor.next(), EncoderContext.builder().build());
+                writer.write('\n');
+                exportados++;
+            }
+        }
+
+        writer.flush();
+        if (comprimida != null) {
+            comprimida.finish();
+        }
+        return exportados;
+    }
+}
@@ -1,57 +1,142 @@
 package ar.edu.utn.dds.k3003.busqueda.service;
 
+import ar.edu.utn.dds.k3003.busqueda.analisis.AnalizadorEspanol;
+import ar.edu.utn.dds.k3003.busqueda.indice.HechoIndexadoEvent;
 import ar.edu.utn.dds.k3003.busqueda.model.HechoIndexado;
+import ar.edu.utn.dds.k3003.busqueda.model.OcrPdI;
+import ar.edu.utn.dds.k3003.busqueda.model.PdIPendiente;
 import ar.edu.utn.dds.k3003.busqueda.repository.HechoIndexadoRepository;
+import ar.edu.utn.dds.k3003.busqueda.repository.PdIPendienteRepository;
 import ar.edu.utn.dds.k3003.busqueda.dto.HechoDTO;
 import ar.edu.utn.dds.k3003.busqueda.dto.PdIDTO;
+import ar.edu.utn.dds.k3003.busqueda.dto.ResultadoLoteDTO;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.UpdateResult;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.retry.support.RetryTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.Optional;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
 
 //Servicio para indexar hechos y PDIs en MongoDB.
 //Mantiene consistencia eventual con los módulos de Fuente y PDI
 //NOTA: No usa @Transactional porque MongoDB no soporta transacciones
 //en operaciones simples (solo en replica sets con sesiones).
+//Cada escritura publica un HechoIndexadoEvent para mantener los índices en memoria.
+//Las escrituras de documento completo están condicionadas por version (ver HechoIndexado)
+//y ante un conflicto se vuelven a leer y mergear con indexacionRetryTemplate.
+//Los PDIs de hechos que todavía no están indexados se estacionan en pdis_pendientes
+//y se aplican en un solo bulk cuando se crea el hecho.
+//Cada PDI es un subdocumento de pdis que se agrega, reemplaza o borra por id con un único update
+//(pipeline) sin leer el hecho. El OCR completo se guarda en ocr_pdis y en el hecho queda una copia
+//recortada a ocr-max-caracteres, solo en los max-con-ocr PDIs más recientes.
+//Cada escritura analiza el texto (AnalizadorEspanol) y guarda sus términos en tokens,
+//para que la búsqueda matchee por igualdad sin procesar texto al consultar.
 
 @Service
 @Slf4j
 public class IndexacionService {
 
-    private final HechoIndexadoRepository repository;
+    private static final int CODIGO_CLAVE_DUPLICADA = 11000;
 
-    public IndexacionService(HechoIndexadoRepository repository) {
+    private final HechoIndexadoRepository repository;
+    private final PdIPendienteRepository pendientesRepository;
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RetryTemplate retryTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int tamanioLote;
+    private final int ocrMaxCaracteres;
+    private final int maxPdIsConOcr;
+
+    public IndexacionService(HechoIndexadoRepository repository,
+                             PdIPendienteRepository pendientesRepository,
+                             MongoTemplate mongoTemplate,
+                             ApplicationEventPublisher eventPublisher,
+                             RetryTemplate indexacionRetryTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${busqueda.indexacion.tamanio-lote:500}") int tamanioLote,
+                             @Value("${busqueda.indexacion.pdis.ocr-max-caracteres:2000}") int ocrMaxCaracteres,
+                             @Value("${busqueda.indexacion.pdis.max-con-ocr:50}") int maxPdIsConOcr) {
         this.repository = repository;
+        this.pendientesRepository = pendientesRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
+        this.retryTemplate = indexacionRetryTemplate;
+        this.meterRegistry = meterRegistry;
+        this.tamanioLote = tamanioLote;
+        this.ocrMaxCaracteres = ocrMaxCaracteres;
+        this.maxPdIsConOcr = maxPdIsConOcr;
+
+        // Conteo estimado (metadata de la colección, sin recorrerla)
+        meterRegistry.gauge("metamapa.busqueda.pdis_pendientes", mongoTemplate,
+                template -> template.estimatedCount(PdIPendiente.class));
     }
 
     /**
      * Indexa o actualiza un hecho en MongoDB.
      * Si el hecho ya existe, actualiza sus campos.
+     * Si otro escritor lo modificó entre la lectura y el save, reintenta con backoff.
+     * Si lo crea, aplica los PDIs que estaban estacionados esperándolo.
      */
     public void indexarHecho(HechoDTO hechoDTO) {
         log.info("Indexando hecho: {} - {}", hechoDTO.id(), hechoDTO.titulo());
 
         try {
-            // Buscar si ya existe
-            Optional<HechoIndexado> existente = repository.findById(hechoDTO.id());
-
-            HechoIndexado indexado;
-            if (existente.isPresent()) {
-                indexado = existente.get();
-                log.debug("   Actualizando hecho existente");
-            } else {
-                indexado = crearNuevoIndexado(hechoDTO);
-                log.debug("   Creando nuevo hecho en índice");
-            }
-
-            actualizarDesdeDTO(indexado, hechoDTO);
-            repository.save(indexado);
+            boolean creado = retryTemplate.execute(context -> {
+                // Buscar si ya existe (en cada intento, para mergear sobre la última versión)
+                Optional<HechoIndexado> existente = repository.findById(hechoDTO.id());
+
+                HechoIndexado indexado;
+                if (existente.isPresent()) {
+                    indexado = existente.get();
+                    log.debug("   Actualizando hecho existente (intento {})", context.getRetryCount() + 1);
+                } else {
+                    indexado = crearNuevoIndexado(hechoDTO);
+                    log.debug("   Creando nuevo hecho en índice (intento {})", context.getRetryCount() + 1);
+                }
+
+                if (!actualizarDesdeDTO(indexado, hechoDTO) && existente.isPresent()) {
+                    // Llegó igual a lo indexado: no se reescribe ni se invalida nada
+                    meterRegistry.counter("metamapa.busqueda.indexacion.sin_cambios", "tipo", "hecho").increment();
+                    return false;
+                }
+                HechoIndexado guardado = guardar(indexado, existente.isEmpty());
+                eventPublisher.publishEvent(HechoIndexadoEvent.de(guardado));
+                return existente.isEmpty();
+            });
 
             log.info("Hecho indexado exitosamente: {}", hechoDTO.id());
 
+            if (creado) {
+                drenarPdIsPendientes(List.of(hechoDTO.id()));
+            }
+
         } catch (Exception e) {
             log.error("❌ Error indexando hecho {}: {}", hechoDTO.id(), e.getMessage(), e);
             // Re-lanzar para que el llamador sepa que falló
@@ -60,45 +145,57 @@ public class IndexacionService {
     }
 
     /**
-     * Indexa un PDI asociado a un hecho.
-     * Si el hecho no existe en el índice, se omite el PDI.
+     * Save con el control de versión del repositorio. Una clave duplicada al insertar es una carrera
+     * solo si el _id ya existe (otro escritor creó el hecho entre la lectura y el insert): se reporta
+     * como conflicto para que se reintente. Si no, es el índice único de título+colección
+     * y falla sin reintentos.
+     */
+    private HechoIndexado guardar(HechoIndexado indexado, boolean nuevo) {
+        try {
+            return repository.save(indexado);
+        } catch (DuplicateKeyException e) {
+            if (nuevo && repository.existsById(indexado.getId())) {
+                throw new OptimisticLockingFailureException(
+                        "Hecho " + indexado.getId() + " creado por otro escritor", e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Indexa un PDI asociado a un hecho con un update atómico del lado del servidor,
+     * sin leer ni reescribir el documento completo: si el hecho ya tiene ese PDI lo reemplaza
+     * (un OCR reprocesado pisa al anterior) y si no lo agrega. Es idempotente ante webhooks repetidos.
+     * Si el hecho no existe en el índice, el PDI se estaciona hasta que llegue el hecho
+     * (no se hace upsert: un hecho creado solo con datos del PDI no tendría título ni colección).
      */
     public void indexarPdI(PdIDTO pdiDTO) {
         log.info("Indexando PDI: {} para hecho: {}", pdiDTO.id(), pdiDTO.hechoId());
 
         try {
-            Optional<HechoIndexado> hechoOpt = repository.findById(pdiDTO.hechoId());
+            Criteria filtro = Criteria.where("_id").is(pdiDTO.hechoId());
+            if (pdiDTO.id() != null) {
+                // Si el hecho ya tiene el PDI con la misma huella no hay nada que escribir
+                filtro = filtro.and("pdis").not().elemMatch(
+                        Criteria.where("id").is(pdiDTO.id()).and("huella").is(huella(pdiDTO)));
+            }
+            UpdateResult resultado = mongoTemplate.updateFirst(
+                    Query.query(filtro), upsertPdIUpdate(pdiDTO), HechoIndexado.class);
 
-            if (hechoOpt.isEmpty()) {
-                log.warn("Hecho {} no existe en índice. El PDI {} será indexado cuando llegue el hecho.",
-                        pdiDTO.hechoId(), pdiDTO.id());
-                // Opción: podrías guardar en una cola para reintentar más tarde
+            if (resultado.getMatchedCount() == 0 && pdiDTO.id() != null && repository.existsById(pdiDTO.hechoId())) {
+                meterRegistry.counter("metamapa.busqueda.indexacion.sin_cambios", "tipo", "pdi").increment();
+                log.info("PDI {} sin cambios, no se reescribe", pdiDTO.id());
                 return;
             }
-
-            HechoIndexado hecho = hechoOpt.get();
-
-            // Verificar si el PDI ya fue procesado
-            if (hecho.tienePdI(pdiDTO.id())) {
-                // Actualizar datos del PDI (OCR y etiquetas pueden haber cambiado)
-                hecho.actualizarPdI(
-                        pdiDTO.id(),
-                        pdiDTO.ocrText(),
-                        pdiDTO.etiquetasIA()
-                );
-                log.debug("   PDI {} actualizado en hecho {}", pdiDTO.id(), pdiDTO.hechoId());
-            } else {
-                // Agregar nuevo PDI
-                hecho.agregarPdI(
-                        pdiDTO.id(),
-                        pdiDTO.contenido(),
-                        pdiDTO.ocrText(),
-                        pdiDTO.etiquetasIA()
-                );
-                log.debug("   PDI {} agregado a hecho {}", pdiDTO.id(), pdiDTO.hechoId());
+            if (resultado.getMatchedCount() == 0) {
+                log.warn("Hecho {} no existe en índice. El PDI {} queda estacionado hasta que llegue el hecho.",
+                        pdiDTO.hechoId(), pdiDTO.id());
+                estacionarPdIs(List.of(pdiDTO));
+                return;
             }
 
-            repository.save(hecho);
+            ocrCompleto(pdiDTO).ifPresent(mongoTemplate::save);
+            eventPublisher.publishEvent(HechoIndexadoEvent.porId(pdiDTO.hechoId(), this::cargarParaIndicesEnMemoria));
             log.info("PDI indexado exitosamente: {}", pdiDTO.id());
 
         } catch (Exception e) {
@@ -108,29 +205,61 @@ public class IndexacionService {
     }
 
     /**
-     * Marca un hecho como censurado (no aparecerá en búsquedas).
-     * Esto ocurre cuando se acepta una solicitud de borrado.
+     * Quita un PDI de su hecho (y su OCR de ocr_pdis) sin leer el documento.
+     * Si el PDI estaba estacionado esperando al hecho, se descarta.
      */
-    public void censurarHecho(String hechoId) {
-        log.info("🚫 Censurando hecho: {}", hechoId);
+    public void eliminarPdI(String hechoId, String pdiId) {
+        log.info("🗑️ Eliminando PDI: {} de hecho: {}", pdiId, hechoId);
 
         try {
-            Optional<HechoIndexado> hechoOpt = repository.findById(hechoId);
-
-            if (hechoOpt.isEmpty()) {
-                log.warn("⚠️ Hecho {} no existe en índice, no se puede censurar", hechoId);
+            UpdateResult resultado = mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("_id").is(hechoId).and("pdis.id").is(pdiId)),
+                    eliminarPdIUpdate(pdiId),
+                    HechoIndexado.class);
+            mongoTemplate.remove(Query.query(Criteria.where("_id").is(pdiId)), OcrPdI.class);
+            pendientesRepository.deleteById(pdiId);
+
+            if (resultado.getMatchedCount() == 0) {
+                log.debug("   PDI {} no estaba en el hecho {}", pdiId, hechoId);
                 return;
             }
 
-            HechoIndexado hecho = hechoOpt.get();
+            eventPublisher.publishEvent(HechoIndexadoEvent.porId(hechoId, this::cargarParaIndicesEnMemoria));
+            log.info("✅ PDI eliminado exitosamente: {}", pdiId);
+
+        } catch (Exception e) {
+            log.error("❌ Error eliminando PDI {}: {}", pdiId, e.getMessage(), e);
+            throw new RuntimeException("Error eliminando PDI", e);
+        }
+    }
 
-            if (hecho.isCensurado()) {
-                log.debug("   Hecho {} ya estaba censurado", hechoId);
+    /**
+     * Marca un hecho como censurado (no aparecerá en búsquedas).
+     * Esto ocurre cuando se acepta una solicitud de borrado.
+     */
+    public void censurarHecho(String hechoId) {
+        log.info("🚫 Censurando hecho: {}", hechoId);
+
+        try {
+            UpdateResult resultado = mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("_id").is(hechoId).and("censurado").is(false)),
+                    new Update()
+                            .set("censurado", true)
+                            .set("ultimaActualizacion", LocalDateTime.now())
+                            .inc("version", 1),
+                    HechoIndexado.class);
+
+            if (resultado.getMatchedCount() == 0) {
+                // Solo en el caso sin cambios se consulta por qué no matcheó
+                if (repository.existsById(hechoId)) {
+                    log.debug("   Hecho {} ya estaba censurado", hechoId);
+                } else {
+                    log.warn("⚠️ Hecho {} no existe en índice, no se puede censurar", hechoId);
+                }
                 return;
             }
 
-            hecho.censurar();
-            repository.save(hecho);
+            eventPublisher.publishEvent(HechoIndexadoEvent.porId(hechoId, this::cargarParaIndicesEnMemoria));
 
             log.info("✅ Hecho censurado exitosamente: {}", hechoId);
 
@@ -140,6 +269,607 @@ public class IndexacionService {
         }
     }
 
+    /**
+     * Indexa un lote de hechos. Por cada tramo de tamanioLote hace una sola lectura ($in)
+     * de los existentes y una sola escritura bulk desordenada de upserts.
+     * Los errores se reportan por ítem: un hecho que falla no afecta al resto.
+     */
+    public ResultadoLoteDTO indexarHechos(List<HechoDTO> hechos) {
+        return indexarHechos(hechos, hecho -> { });
+    }
+
+    /**
+     * Igual que indexarHechos, pero avisa a alFallar cada hecho que no se pudo escribir
+     * (los inválidos, sin id, solo se cuentan).
+     */
+    public ResultadoLoteDTO indexarHechos(List<HechoDTO> hechos, Consumer<HechoDTO> alFallar) {
+        ResultadoLoteDTO resultado = ResultadoLoteDTO.vacio();
+        for (int desde = 0; desde < hechos.size(); desde += tamanioLote) {
+            List<HechoDTO> tramo = hechos.subList(desde, Math.min(hechos.size(), desde + tamanioLote));
+            resultado = resultado.sumar(indexarTramoDeHechos(tramo, alFallar));
+        }
+        return resultado;
+    }
+
+    /**
+     * Indexa un lote de PDIs agrupándolos por hecho: una lectura ($in) de los hechos
+     * y una escritura bulk por tramo. Igual que indexarPdI, los PDIs de hechos
+     * que todavía no están en el índice se estacionan sin contarse como error.
+     */
+    public ResultadoLoteDTO indexarPdIs(List<PdIDTO> pdis) {
+        return indexarPdIs(pdis, pdi -> { });
+    }
+
+    /**
+     * Igual que indexarPdIs, pero avisa a alFallar cada PDI que no se pudo escribir
+     * (los inválidos, sin hechoId, solo se cuentan).
+     */
+    public ResultadoLoteDTO indexarPdIs(List<PdIDTO> pdis, Consumer<PdIDTO> alFallar) {
+        ResultadoLoteDTO resultado = ResultadoLoteDTO.vacio();
+        for (int desde = 0; desde < pdis.size(); desde += tamanioLote) {
+            List<PdIDTO> tramo = pdis.subList(desde, Math.min(pdis.size(), desde + tamanioLote));
+            resultado = resultado.sumar(indexarTramoDePdIs(tramo, alFallar));
+        }
+        return resultado;
+    }
+
+    private ResultadoLoteDTO indexarTramoDeHechos(List<HechoDTO> tramo, Consumer<HechoDTO> alFallar) {
+        // Si el mismo hecho viene repetido gana la última versión, igual que indexándolos de a uno
+        Map<String, HechoDTO> porId = new LinkedHashMap<>();
+        int invalidos = 0;
+        for (HechoDTO dto : tramo) {
+            if (dto == null || dto.id() == null) {
+                invalidos++;
+            } else {
+                porId.put(dto.id(), dto);
+            }
+        }
+
+        try {
+            Map<String, HechoIndexado> existentes = cargarExistentes(porId.keySet());
+
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, HechoIndexado.class);
+            List<HechoIndexado> escritos = new ArrayList<>(porId.size());
+            int sinCambios = 0;
+            for (HechoDTO dto : porId.values()) {
+                HechoIndexado indexado = existentes.get(dto.id());
+                if (indexado == null) {
+                    // Solo inserta: si otro escritor lo creó entretanto, el upsert choca con el _id
+                    indexado = crearNuevoIndexado(dto);
+                    actualizarDesdeDTO(indexado, dto);
+                    indexado.setVersion(0L);
+                    bulk.replaceOne(
+                            Query.query(Criteria.where("_id").is(dto.id()).and("version").exists(false)),
+                            indexado,
+                            FindAndReplaceOptions.options().upsert());
+                } else {
+                    // Compare-and-set sobre la versión leída
+                    Long versionLeida = indexado.getVersion();
+                    if (!actualizarDesdeDTO(indexado, dto)) {
+                        // Igual a lo indexado (ej. una sincronización que vuelve a traer todo): no se escribe
+                        sinCambios++;
+                        continue;
+                    }
+                    indexado.setVersion(versionLeida == null ? 1L : versionLeida + 1);
+                    bulk.replaceOne(
+                            Query.query(Criteria.where("_id").is(dto.id()).and("version").is(versionLeida)),
+                            indexado);
+                }
+                escritos.add(indexado);
+            }
+
+            if (sinCambios > 0) {
+                meterRegistry.counter("metamapa.busqueda.indexacion.sin_cambios", "tipo", "hecho")
+                        .increment(sinCambios);
+            }
+
+            Set<String> fallidos = new HashSet<>();
+            Set<String> conflictos = new HashSet<>();
+            if (!escritos.isEmpty()) {
+                ejecutarBulkCondicionado(bulk, escritos, fallidos, conflictos);
+            }
+
+            escritos.stream()
+                    .filter(hecho -> !fallidos.contains(hecho.getId()) && !conflictos.contains(hecho.getId()))
+                    .forEach(hecho -> eventPublisher.publishEvent(HechoIndexadoEvent.de(hecho)));
+
+            // Hechos recién creados: aplicar sus PDIs estacionados en una sola pasada
+            List<String> creados = porId.keySet().stream()
+                    .filter(id -> !existentes.containsKey(id) && !fallidos.contains(id) && !conflictos.contains(id))
+                    .toList();
+            if (!creados.isEmpty()) {
+                drenarPdIsPendientes(creados);
+            }
+
+            // Los conflictos se resuelven de a uno: releer, mergear y reintentar con backoff
+            if (!conflictos.isEmpty()) {
+                meterRegistry.counter("metamapa.busqueda.indexacion.conflictos", "tipo", "lote")
+                        .increment(conflictos.size());
+                for (String id : conflictos) {
+                    try {
+                        indexarHecho(porId.get(id));
+                    } catch (Exception e) {
+                        fallidos.add(id);
+                    }
+                }
+            }
+
+            int errores = invalidos;
+            for (HechoDTO dto : tramo) {
+                if (dto != null && fallidos.contains(dto.id())) {
+                    errores++;
+                }
+            }
+            fallidos.forEach(id -> alFallar.accept(porId.get(id)));
+            log.info("Lote de hechos indexado: {} ok ({} sin cambios), {} con error ({} conflictos reintentados)",
+                    tramo.size() - errores, sinCambios, errores, conflictos.size());
+            return new ResultadoLoteDTO(tramo.size(), tramo.size() - errores, errores);
+
+        } catch (Exception e) {
+            log.error("❌ Error indexando lote de {} hechos: {}", tramo.size(), e.getMessage(), e);
+            porId.values().forEach(alFallar);
+            return new ResultadoLoteDTO(tramo.size(), 0, tramo.size());
+        }
+    }
+
+    private ResultadoLoteDTO indexarTramoDePdIs(List<PdIDTO> tramo, Consumer<PdIDTO> alFallar) {
+        Map<String, List<PdIDTO>> porHecho = new LinkedHashMap<>();
+        int invalidos = 0;
+        for (PdIDTO pdi : tramo) {
+            if (pdi == null || pdi.hechoId() == null) {
+                invalidos++;
+            } else {
+                porHecho.computeIfAbsent(pdi.hechoId(), id -> new ArrayList<>()).add(pdi);
+            }
+        }
+
+        try {
+            // Solo se lee qué hechos existen y la huella de sus PDIs: el update de cada PDI
+            // decide solo si agrega o reemplaza, y los que llegan iguales no se escriben
+            Map<String, Map<String, String>> huellas = cargarHuellasDePdIs(porHecho.keySet());
+
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, HechoIndexado.class);
+            List<PdIDTO> operaciones = new ArrayList<>();
+            List<PdIDTO> huerfanos = new ArrayList<>();
+            int sinCambios = 0;
+            for (Map.Entry<String, List<PdIDTO>> entrada : porHecho.entrySet()) {
+                String hechoId = entrada.getKey();
+                Map<String, String> huellasDelHecho = huellas.get(hechoId);
+                if (huellasDelHecho == null) {
+                    log.warn("Hecho {} no existe en índice. Se estacionan {} PDIs.", hechoId, entrada.getValue().size());
+                    huerfanos.addAll(entrada.getValue());
+                    continue;
+                }
+                for (PdIDTO pdi : entrada.getValue()) {
+                    if (pdi.id() != null && huella(pdi).equals(huellasDelHecho.get(pdi.id()))) {
+                        sinCambios++;
+                        continue;
+                    }
+                    bulk.updateOne(Query.query(Criteria.where("_id").is(hechoId)), upsertPdIUpdate(pdi));
+                    operaciones.add(pdi);
+                }
+            }
+            if (sinCambios > 0) {
+                meterRegistry.counter("metamapa.busqueda.indexacion.sin_cambios", "tipo", "pdi")
+                        .increment(sinCambios);
+            }
+
+            Set<PdIDTO> fallidos = Collections.newSetFromMap(new IdentityHashMap<>());
+            if (!operaciones.isEmpty()) {
+                try {
+                    bulk.execute();
+                } catch (BulkOperationException e) {
+                    e.getErrors().forEach(error -> {
+                        PdIDTO pdi = operaciones.get(error.getIndex());
+                        log.error("❌ Error en escritura bulk del PDI {}: {}", pdi.id(), error.getMessage());
+                        fallidos.add(pdi);
+                    });
+                }
+                guardarOcrCompleto(operaciones, fallidos);
+            }
+
+            operaciones.stream()
+                    .filter(pdi -> !fallidos.contains(pdi))
+                    .map(PdIDTO::hechoId)
+                    .distinct()
+                    .forEach(hechoId -> eventPublisher.publishEvent(
+                            HechoIndexadoEvent.porId(hechoId, this::cargarParaIndicesEnMemoria)));
+
+            if (!huerfanos.isEmpty()) {
+                estacionarPdIs(huerfanos);
+            }
+
+            int errores = invalidos + fallidos.size();
+            fallidos.forEach(alFallar);
+            log.info("Lote de PDIs indexado: {} ok ({} sin cambios), {} con error",
+                    tramo.size() - errores, sinCambios, errores);
+            return new ResultadoLoteDTO(tramo.size(), tramo.size() - errores, errores);
+
+        } catch (Exception e) {
+            log.error("❌ Error indexando lote de {} PDIs: {}", tramo.size(), e.getMessage(), e);
+            porHecho.values().forEach(pdisDelHecho -> pdisDelHecho.forEach(alFallar));
+            return new ResultadoLoteDTO(tramo.size(), 0, tramo.size());
+        }
+    }
+
+    /**
+     * Guarda PDIs cuyo hecho todavía no existe. Como el hecho pudo haberse creado
+     * entre la verificación y el guardado (y ya haber drenado), se vuelve a mirar
+     * y se drenan en el momento los que ya tienen hecho.
+     */
+    private void estacionarPdIs(List<PdIDTO> pdis) {
+        Instant ahora = Instant.now();
+        pendientesRepository.saveAll(pdis.stream()
+                .map(pdi -> new PdIPendiente(pdi.id(), pdi.hechoId(), pdi, ahora))
+                .toList());
+        meterRegistry.counter("metamapa.busqueda.pdis_pendientes.estacionados").increment(pdis.size());
+
+        Set<String> yaCreados = cargarIdsExistentes(
+                pdis.stream().map(PdIDTO::hechoId).collect(Collectors.toSet()));
+        if (!yaCreados.isEmpty()) {
+            drenarPdIsPendientes(yaCreados);
+        }
+    }
+
+    /**
+     * Aplica con indexarPdIs (un bulk por tramo) los PDIs estacionados de estos hechos
+     * y los borra del estacionamiento. Si alguno falla se dejan todos: aplicar un PDI
+     * dos veces es idempotente, y si nadie los vuelve a drenar vencen por TTL.
+     */
+    private void drenarPdIsPendientes(Collection<String> hechoIds) {
+        try {
+            List<PdIPendiente> pendientes = pendientesRepository.findByHechoIdIn(hechoIds);
+            if (pendientes.isEmpty()) {
+                return;
+            }
+
+            ResultadoLoteDTO resultado = indexarPdIs(pendientes.stream().map(PdIPendiente::getPdi).toList());
+            if (resultado.errores() > 0) {
+                log.warn("⚠️ {} PDIs estacionados con error, quedan pendientes", resultado.errores());
+                return;
+            }
+
+            // Solo los leídos: si un PDI se volvió a estacionar entretanto, queda la versión nueva
+            Instant ultimoLeido = pendientes.stream()
+                    .map(PdIPendiente::getEstacionado)
+                    .max(Comparator.naturalOrder())
+                    .orElseThrow();
+            mongoTemplate.remove(Query.query(Criteria.where("_id").in(pendientes.stream().map(PdIPendiente::getId).toList())
+                    .and("estacionado").lte(ultimoLeido)), PdIPendiente.class);
+            meterRegistry.counter("metamapa.busqueda.pdis_pendientes.drenados").increment(pendientes.size());
+            log.info("📥 {} PDIs estacionados aplicados a {} hechos", pendientes.size(), hechoIds.size());
+        } catch (Exception e) {
+            // El hecho ya quedó indexado: un error acá no debe hacer fallar su indexación
+            log.error("❌ Error drenando PDIs estacionados: {}", e.getMessage(), e);
+        }
+    }
+
+    // Solo los campos que leen los índices en memoria activos: solo se ejecuta si hay alguno
+    private Optional<HechoIndexado> cargarParaIndicesEnMemoria(String hechoId, Collection<String> campos) {
+        Query query = Query.query(Criteria.where("_id").is(hechoId));
+        campos.forEach(campo -> query.fields().include(campo));
+        return Optional.ofNullable(mongoTemplate.findOne(query, HechoIndexado.class));
+    }
+
+    // Por cada hecho existente, la huella de cada uno de sus PDIs (sin traer el resto del documento)
+    private Map<String, Map<String, String>> cargarHuellasDePdIs(Collection<String> hechoIds) {
+        Query query = Query.query(Criteria.where("_id").in(hechoIds));
+        query.fields().include("_id").include("pdis.id").include("pdis.huella");
+        Map<String, Map<String, String>> huellas = new HashMap<>();
+        mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(HechoIndexado.class))
+                .forEach(hecho -> {
+                    Map<String, String> delHecho = new HashMap<>();
+                    for (Document pdi : hecho.getList("pdis", Document.class, List.of())) {
+                        if (pdi.getString("id") != null && pdi.getString("huella") != null) {
+                            delHecho.put(pdi.getString("id"), pdi.getString("huella"));
+                        }
+                    }
+                    huellas.put(hecho.getString("_id"), delHecho);
+                });
+        return huellas;
+    }
+
+    private Set<String> cargarIdsExistentes(Collection<String> hechoIds) {
+        Query query = Query.query(Criteria.where("_id").in(hechoIds));
+        query.fields().include("_id");
+        return mongoTemplate.find(query, HechoIndexado.class).stream()
+                .map(HechoIndexado::getId)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Guarda en ocr_pdis, en un solo bulk, el OCR completo de los PDIs ya aplicados al hecho.
+     * Si falla, el PDI se cuenta con error: el hecho tiene la copia recortada pero falta el texto completo,
+     * y la próxima entrega del PDI lo vuelve a escribir.
+     */
+    private void guardarOcrCompleto(List<PdIDTO> operaciones, Set<PdIDTO> fallidos) {
+        List<PdIDTO> conOcr = new ArrayList<>();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, OcrPdI.class);
+        for (PdIDTO pdi : operaciones) {
+            if (fallidos.contains(pdi)) {
+                continue;
+            }
+            ocrCompleto(pdi).ifPresent(ocr -> {
+                bulk.replaceOne(Query.query(Criteria.where("_id").is(ocr.getId())), ocr,
+                        FindAndReplaceOptions.options().upsert());
+                conOcr.add(pdi);
+            });
+        }
+        if (conOcr.isEmpty()) {
+            return;
+        }
+        try {
+            bulk.execute();
+        } catch (BulkOperationException e) {
+            e.getErrors().forEach(error -> {
+                PdIDTO pdi = conOcr.get(error.getIndex());
+                log.error("❌ Error guardando el OCR del PDI {}: {}", pdi.id(), error.getMessage());
+                fallidos.add(pdi);
+            });
+        }
+    }
+
+    private Map<String, HechoIndexado> cargarExistentes(Collection<String> ids) {
+        return StreamSupport.stream(repository.findAllById(ids).spliterator(), false)
+                .collect(Collectors.toMap(HechoIndexado::getId, Function.identity()));
+    }
+
+    /**
+     * Ejecuta el bulk de replaces condicionados y clasifica los ids que no se aplicaron:
+     * conflictos (versión cambiada o _id insertado por otro escritor) o errores definitivos.
+     * El índice de cada BulkWriteError corresponde a la posición en escritos.
+     */
+    private void ejecutarBulkCondicionado(BulkOperations bulk,
+                                          List<HechoIndexado> escritos,
+                                          Set<String> fallidos,
+                                          Set<String> conflictos) {
+        BulkWriteResult resultado;
+        try {
+            resultado = bulk.execute();
+        } catch (BulkOperationException e) {
+            resultado = e.getResult();
+            Map<String, String> clavesDuplicadas = new HashMap<>();
+            e.getErrors().forEach(error -> {
+                HechoIndexado escrito = escritos.get(error.getIndex());
+                String id = escrito.getId();
+                if (error.getCode() == CODIGO_CLAVE_DUPLICADA && esInsercion(escrito)) {
+                    clavesDuplicadas.put(id, error.getMessage());
+                } else {
+                    log.error("❌ Error en escritura bulk del hecho {}: {}", id, error.getMessage());
+                    fallidos.add(id);
+                }
+            });
+            clasificarClavesDuplicadas(clavesDuplicadas, fallidos, conflictos);
+        }
+
+        // Un replace condicionado que no matchea no es un error para Mongo: se detecta por conteo.
+        // La versión sola no alcanza: otro escritor que partió de la misma versión leída llega al mismo
+        // número, así que también se compara el contenido con lo que este lote quiso escribir
+        long aplicados = resultado.getMatchedCount() + resultado.getUpserts().size();
+        long esperados = escritos.size() - fallidos.size() - conflictos.size();
+        if (aplicados < esperados) {
+            List<HechoIndexado> candidatos = escritos.stream()
+                    .filter(hecho -> !fallidos.contains(hecho.getId()) && !conflictos.contains(hecho.getId()))
+                    .toList();
+            Map<String, HechoIndexado> guardados = cargarExistentes(
+                    candidatos.stream().map(HechoIndexado::getId).toList());
+
+            candidatos.stream()
+                    .filter(hecho -> {
+                        HechoIndexado guardado = guardados.get(hecho.getId());
+                        return guardado == null
+                                || !Objects.equals(guardado.getVersion(), hecho.getVersion())
+                                || !contenido(guardado).equals(contenido(hecho));
+                    })
+                    .forEach(hecho -> conflictos.add(hecho.getId()));
+        }
+    }
+
+    // En el bulk los hechos nuevos van con version 0 y los existentes con la leída + 1
+    private static boolean esInsercion(HechoIndexado escrito) {
+        return Long.valueOf(0L).equals(escrito.getVersion());
+    }
+
+    /**
+     * Separa las claves duplicadas de los upserts de un bulk: si el _id ya existe, el upsert perdió
+     * la carrera con otro escritor que insertó el mismo hecho (conflicto, se reintenta); si no existe,
+     * lo que se violó es el índice único de título+colección, y reintentar no lo arregla.
+     * En un replace de un hecho existente la clave duplicada siempre es la del título.
+     * Se consulta la colección porque el driver no expone el keyPattern de cada error de un bulk
+     * y el texto del mensaje depende de la versión del servidor.
+     */
+    private void clasificarClavesDuplicadas(Map<String, String> clavesDuplicadas,
+                                            Set<String> fallidos,
+                                            Set<String> conflictos) {
+        if (clavesDuplicadas.isEmpty()) {
+            return;
+        }
+        Set<String> existentes = cargarIdsExistentes(clavesDuplicadas.keySet());
+        clavesDuplicadas.forEach((id, mensaje) -> {
+            if (existentes.contains(id)) {
+                conflictos.add(id);
+            } else {
+                log.error("❌ Hecho {} duplicado por título y colección: {}", id, mensaje);
+                fallidos.add(id);
+            }
+        });
+    }
+
+    /**
+     * Update (pipeline) que agrega el PDI a pdis o, si ya hay uno con el mismo id, le mezcla encima
+     * los campos informados. Después recorta el OCR de los PDIs más viejos y recalcula etiquetas_ia.
+     * Los valores del DTO van como $literal: un texto que empiece con $ no se toma como campo.
+     */
+    private AggregationUpdate upsertPdIUpdate(PdIDTO pdi) {
+        Document datos = new Document();
+        if (pdi.id() != null) {
+            datos.append("id", pdi.id());
+        }
+        if (pdi.contenido() != null && !pdi.contenido().isBlank()) {
+            datos.append("contenido", pdi.contenido().trim());
+        }
+        if (pdi.ocrText() != null && !pdi.ocrText().isBlank()) {
+            // Sin id no hay copia en ocr_pdis: el OCR queda completo en el hecho
+            String ocr = pdi.ocrText().trim();
+            boolean recortar = pdi.id() != null && ocr.length() > ocrMaxCaracteres;
+            datos.append("ocr_text", recortar ? recortarOcr(ocr) : ocr)
+                    .append("ocr_archivado", recortar);
+        }
+        if (pdi.etiquetasIA() != null) {
+            datos.append("etiquetas_ia", pdi.etiquetasIA());
+        }
+        if (pdi.id() != null) {
+            datos.append("huella", huella(pdi));
+        }
+        // Términos del texto completo que llegó, aunque en el hecho quede recortado
+        boolean conContenido = datos.containsKey("contenido");
+        boolean conOcr = datos.containsKey("ocr_text");
+        List<String> terminos = AnalizadorEspanol.terminos(
+                conContenido ? pdi.contenido() : null, conOcr ? pdi.ocrText() : null);
+        if (conContenido || conOcr) {
+            datos.append("tokens", terminos);
+        }
+        Document nuevo = new Document("$mergeObjects", List.of(
+                new Document("$literal", datos),
+                new Document("actualizado", "$$NOW")));
+        // Si llega solo uno de los dos textos, los términos del otro se conservan
+        Document mezcla = conContenido != conOcr
+                ? new Document("$mergeObjects", List.of("$$p", nuevo, new Document("tokens", new Document("$setUnion", List.of(
+                        new Document("$ifNull", List.of("$$p.tokens", List.of())),
+                        new Document("$literal", terminos))))))
+                : new Document("$mergeObjects", List.of("$$p", nuevo));
+
+        Document actuales = new Document("$ifNull", List.of("$pdis", List.of()));
+        Document pdis = pdi.id() == null
+                ? new Document("$concatArrays", List.of(actuales, List.of(nuevo)))
+                : new Document("$let", new Document()
+                .append("vars", new Document("actuales", actuales))
+                .append("in", new Document("$cond", List.of(
+                        new Document("$in", List.of(pdi.id(), "$$actuales.id")),
+                        new Document("$map", new Document()
+                                .append("input", "$$actuales")
+                                .append("as", "p")
+                                .append("in", new Document("$cond", List.of(
+                                        new Document("$eq", List.of("$$p.id", pdi.id())),
+                                        mezcla,
+                                        "$$p")))),
+                        new Document("$concatArrays", List.of("$$actuales", List.of(nuevo)))))));
+
+        return AggregationUpdate.from(List.of(
+                etapa(new Document("$set", new Document("pdis", pdis)
+                        .append("ultimaActualizacion", "$$NOW")
+                        .append("version", new Document("$add", List.of(
+                                new Document("$ifNull", List.of("$version", 0)), 1))))),
+                etapa(new Document("$set", new Document("pdis", archivarOcrExcedente()))),
+                etapa(new Document("$set", new Document("etiquetas_ia", unionEtiquetasIA())
+                        .append("tokens", unionTokens())))));
+    }
+
+    private static AggregationUpdate eliminarPdIUpdate(String pdiId) {
+        return AggregationUpdate.from(List.of(
+                etapa(new Document("$set", new Document()
+                        .append("pdis", new Document("$filter", new Document()
+                                .append("input", "$pdis")
+                                .append("as", "p")
+                                .append("cond", new Document("$ne", List.of(
+                                        "$$p.id", new Document("$literal", pdiId))))))
+                        .append("ultimaActualizacion", "$$NOW")
+                        .append("version", new Document("$add", List.of(
+                                new Document("$ifNull", List.of("$version", 0)), 1))))),
+                etapa(new Document("$set", new Document("etiquetas_ia", unionEtiquetasIA())
+                        .append("tokens", unionTokens())))));
+    }
+
+    /**
+     * Si hay más de maxPdIsConOcr PDIs con OCR en el hecho, a los más viejos (los primeros de pdis)
+     * les saca la copia: el texto completo ya está en ocr_pdis. Solo cuenta PDIs con id,
+     * que son los que tienen esa copia.
+     */
+    private Document archivarOcrExcedente() {
+        Document conOcr = new Document("$and", List.of(
+                new Document("$gt", Arrays.asList("$$p.ocr_text", null)),
+                new Document("$gt", Arrays.asList("$$p.id", null))));
+        Document cantidadConOcr = new Document("$size", new Document("$filter", new Document()
+                .append("input", "$pdis")
+                .append("as", "p")
+                .append("cond", conOcr)));
+
+        Document thisConOcr = new Document("$and", List.of(
+                new Document("$gt", Arrays.asList("$$this.ocr_text", null)),
+                new Document("$gt", Arrays.asList("$$this.id", null)),
+                new Document("$lt", List.of("$$value.archivados", "$$exceso"))));
+        Document recorrer = new Document("$reduce", new Document()
+                .append("input", "$pdis")
+                .append("initialValue", new Document("archivados", 0).append("pdis", List.of()))
+                .append("in", new Document("$cond", List.of(
+                        thisConOcr,
+                        new Document()
+                                .append("archivados", new Document("$add", List.of("$$value.archivados", 1)))
+                                .append("pdis", new Document("$concatArrays", List.of("$$value.pdis", List.of(
+                                        new Document("$mergeObjects", List.of("$$this",
+                                                new Document("ocr_text", null).append("ocr_archivado", true))))))),
+                        new Document()
+                                .append("archivados", "$$value.archivados")
+                                .append("pdis", new Document("$concatArrays", List.of(
+                                        "$$value.pdis", List.of("$$this"))))))));
+
+        return new Document("$let", new Document()
+                .append("vars", new Document("exceso", new Document("$subtract", List.of(cantidadConOcr, maxPdIsConOcr))))
+                .append("in", new Document("$cond", List.of(
+                        new Document("$lte", List.of("$$exceso", 0)),
+                        "$pdis",
+                        new Document("$let", new Document()
+                                .append("vars", new Document("resultado", recorrer))
+                                .append("in", "$$resultado.pdis"))))));
+    }
+
+    private static Document unionEtiquetasIA() {
+        return new Document("$reduce", new Document()
+                .append("input", new Document("$ifNull", List.of("$pdis", List.of())))
+                .append("initialValue", List.of())
+                .append("in", new Document("$setUnion", List.of(
+                        "$$value", new Document("$ifNull", List.of("$$this.etiquetas_ia", List.of()))))));
+    }
+
+    // tokens_propios + tokens de cada PDI, igual que HechoIndexado.recalcularTokens
+    private static Document unionTokens() {
+        return new Document("$reduce", new Document()
+                .append("input", new Document("$ifNull", List.of("$pdis", List.of())))
+                .append("initialValue", new Document("$ifNull", List.of("$tokens_propios", List.of())))
+                .append("in", new Document("$setUnion", List.of(
+                        "$$value", new Document("$ifNull", List.of("$$this.tokens", List.of()))))));
+    }
+
+    private static AggregationOperation etapa(Document etapa) {
+        return context -> etapa;
+    }
+
+    // Corta en el último espacio antes del límite, para no dejar una palabra partida en el índice de texto
+    private String recortarOcr(String ocr) {
+        int corte = ocr.lastIndexOf(' ', ocrMaxCaracteres);
+        return ocr.substring(0, corte > 0 ? corte : ocrMaxCaracteres);
+    }
+
+    // Lo que upsertPdIUpdate toma del DTO; el estado y las fechas de procesamiento no se indexan
+    private static String huella(PdIDTO pdi) {
+        String campos = String.join("\u0000",
+                String.valueOf(sinBlancos(pdi.contenido())),
+                String.valueOf(sinBlancos(pdi.ocrText())),
+                String.valueOf(pdi.etiquetasIA()));
+        return DigestUtils.md5DigestAsHex(campos.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String sinBlancos(String texto) {
+        return texto == null || texto.isBlank() ? null : texto.trim();
+    }
+
+    private static Optional<OcrPdI> ocrCompleto(PdIDTO pdi) {
+        if (pdi.id() == null || pdi.ocrText() == null || pdi.ocrText().isBlank()) {
+            return Optional.empty();
+        }
+        return Optional.of(new OcrPdI(pdi.id(), pdi.hechoId(), pdi.ocrText().trim(), LocalDateTime.now()));
+    }
+
     /**
      * Crea un nuevo documento HechoIndexado desde el DTO.
      */
@@ -156,14 +886,16 @@ public class IndexacionService {
                 .origen(dto.origen())
                 .censurado(false)
                 .ultimaActualizacion(LocalDateTime.now())
-                .version(1L)
                 .build();
     }
 
     /**
      * Actualiza los campos de un HechoIndexado desde el DTO.
+     * Devuelve si cambió algún campo; si no, ultimaActualizacion queda como estaba.
      */
-    private void actualizarDesdeDTO(HechoIndexado indexado, HechoDTO dto) {
+    private boolean actualizarDesdeDTO(HechoIndexado indexado, HechoDTO dto) {
+        List<Object> anterior = contenido(indexado);
+
         indexado.setTitulo(dto.titulo());
         indexado.setNombreColeccion(dto.nombreColeccion());
 
@@ -187,7 +919,20 @@ public class IndexacionService {
             indexado.setOrigen(dto.origen());
         }
 
-        indexado.setUltimaActualizacion(LocalDateTime.now());
-        indexado.setVersion(indexado.getVersion() + 1);
+        indexado.recalcularTokens();
+        boolean cambio = !anterior.equals(contenido(indexado));
+        if (cambio) {
+            indexado.setUltimaActualizacion(LocalDateTime.now());
+        }
+        return cambio;
+    }
+
+    // Campos que escribe actualizarDesdeDTO. Mongo guarda las fechas en milisegundos:
+    // sin truncar, una fecha con nanos se vería siempre distinta a la leída
+    private static List<Object> contenido(HechoIndexado indexado) {
+        return Arrays.asList(indexado.getTitulo(), indexado.getNombreColeccion(), indexado.getEtiquetas(),
+                indexado.getCategoria(), indexado.getUbicacion(),
+                indexado.getFecha() == null ? null : indexado.getFecha().truncatedTo(ChronoUnit.MILLIS),
+                indexado.getOrigen());
     }
 }
\ No newline at end of file
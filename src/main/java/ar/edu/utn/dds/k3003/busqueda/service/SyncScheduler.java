@@ -3,22 +3,54 @@ package ar.edu.utn.dds.k3003.busqueda.service;
 import ar.edu.utn.dds.k3003.busqueda.dto.ColeccionDTO;
 import ar.edu.utn.dds.k3003.busqueda.dto.HechoDTO;
 import ar.edu.utn.dds.k3003.busqueda.dto.PdIDTO;
+import ar.edu.utn.dds.k3003.busqueda.dto.ResultadoLoteDTO;
+import ar.edu.utn.dds.k3003.busqueda.model.MarcaSincronizacion;
+import ar.edu.utn.dds.k3003.busqueda.repository.MarcaSincronizacionRepository;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @Service
 @Slf4j
 public class SyncScheduler {
 
+    private static final String MARCA_PDIS = "pdis";
+
     private final IndexacionService indexacionService;
+    private final MarcaSincronizacionRepository marcaRepository;
     private final RestClient restClient;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    // Límites de concurrencia: por módulo upstream y para las escrituras en MongoDB
+    private final Semaphore permisosFuente;
+    private final Semaphore permisosPdi;
+    private final Semaphore permisosEscritura;
+
+    // Evita que la sincronización periódica se superponga con la inicial si esta tarda
+    private final AtomicBoolean enCurso = new AtomicBoolean(false);
 
     @Value("${modules.fuente.url}")
     private String fuenteUrl;
@@ -29,14 +61,37 @@ public class SyncScheduler {
     @Value("${busqueda.sync.enabled}")
     private boolean syncEnabled;
 
+    @Value("${busqueda.indexacion.tamanio-lote:500}")
+    private int tamanioLote;
+
+    @Value("${busqueda.sync.incremental:true}")
+    private boolean incremental;
+
+    // Se resta a la marca al pedir cambios, para cubrir diferencias de reloj con los otros módulos
+    @Value("${busqueda.sync.margen-marca:PT1M}")
+    private Duration margenMarca;
+
     public SyncScheduler(IndexacionService indexacionService,
-                         RestClient.Builder restClientBuilder) {
+                         MarcaSincronizacionRepository marcaRepository,
+                         RestClient.Builder restClientBuilder,
+                         ObjectMapper objectMapper,
+                         MeterRegistry meterRegistry,
+                         @Value("${modules.fuente.max-concurrencia:4}") int maxConcurrenciaFuente,
+                         @Value("${modules.pdi.max-concurrencia:2}") int maxConcurrenciaPdi,
+                         @Value("${busqueda.sync.max-escrituras-concurrentes:4}") int maxEscrituras) {
         this.indexacionService = indexacionService;
+        this.marcaRepository = marcaRepository;
         this.restClient = restClientBuilder.build();
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.permisosFuente = new Semaphore(maxConcurrenciaFuente);
+        this.permisosPdi = new Semaphore(maxConcurrenciaPdi);
+        this.permisosEscritura = new Semaphore(maxEscrituras);
     }
 
 
     //  Sincronización inicial al arrancar
+    //  Con busqueda.sync.incremental solo trae lo modificado desde la última marca guardada
 
     @EventListener(ApplicationReadyEvent.class)
     public void sincronizacionInicial() {
@@ -46,6 +101,30 @@ public class SyncScheduler {
         }
 
         log.info("🔄 Iniciando sincronización inicial...");
+        sincronizar("inicial");
+    }
+
+    /**
+     * Sincronización periódica (incremental si hay marcas guardadas)
+     */
+    @Scheduled(
+            initialDelayString = "${busqueda.sync.initial-delay}",
+            fixedDelayString = "${busqueda.sync.fixed-delay}"
+    )
+    public void sincronizacionPeriodica() {
+        if (!syncEnabled) {
+            return;
+        }
+
+        log.info("🔄 Sincronización periódica iniciada...");
+        sincronizar("periódica");
+    }
+
+    private void sincronizar(String tipo) {
+        if (!enCurso.compareAndSet(false, true)) {
+            log.info("Sincronización {} omitida: hay otra en curso", tipo);
+            return;
+        }
 
         try {
             // Sincronizar hechos de todas las fuentes conocidas
@@ -54,81 +133,74 @@ public class SyncScheduler {
             // Sincronizar PDIs
             sincronizarPdIs();
 
-            log.info("✅ Sincronización inicial completada");
+            log.info("✅ Sincronización {} completada", tipo);
         } catch (Exception e) {
-            log.error("❌ Error en sincronización inicial: {}", e.getMessage(), e);
+            log.error("❌ Error en sincronización {}: {}", tipo, e.getMessage(), e);
+        } finally {
+            enCurso.set(false);
         }
     }
 
     /**
-     * Sincronización periódica
+     * Sincroniza todas las colecciones en paralelo, una virtual thread por colección.
+     * Los semáforos limitan cuántas descargas a Fuente y cuántas escrituras a Mongo
+     * corren a la vez; el resto de las tareas espera su turno sin ocupar threads de plataforma.
      */
-//    @Scheduled(
-//            initialDelayString = "${busqueda.sync.initial-delay}",
-//            fixedDelayString = "${busqueda.sync.fixed-delay}"
-//    )
-//    public void sincronizacionPeriodica() {
-//        if (!syncEnabled) {
-//            return;
-//        }
-//
-//        log.info("🔄 Sincronización periódica iniciada...");
-//
-//        try {
-//            sincronizarHechos();
-//            sincronizarPdIs();
-//
-//            log.info("✅ Sincronización periódica completada");
-//        } catch (Exception e) {
-//            log.error("❌ Error en sincronización periódica: {}", e.getMessage(), e);
-//        }
-//    }
-
     private void sincronizarHechos() {
         try {
             // Obtener todas las colecciones
             List<String> colecciones = obtenerColecciones();
 
-            for (String coleccion : colecciones) {
-                log.info("📥 Sincronizando hechos de colección: {}", coleccion);
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                colecciones.forEach(coleccion -> executor.submit(() -> sincronizarColeccion(coleccion)));
+            }
+        } catch (Exception e) {
+            log.error("❌ Error sincronizando hechos: {}", e.getMessage(), e);
+        }
+    }
 
-                List<HechoDTO> hechos = obtenerHechosDeColeccion(coleccion);
+    private void sincronizarColeccion(String coleccion) {
+        log.info("📥 Sincronizando hechos de colección: {}", coleccion);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String resultadoMetrica = "ok";
+        String claveMarca = "hechos:" + coleccion;
+        LocalDateTime inicio = LocalDateTime.now();
 
-                for (HechoDTO hecho : hechos) {
-                    try {
-                        indexacionService.indexarHecho(hecho);
-                    } catch (Exception e) {
-                        log.error("❌ Error indexando hecho {}: {}", hecho.id(), e.getMessage());
-                    }
-                }
+        try {
+            ResultadoLoteDTO resultado = conPermiso(permisosFuente, () -> indexarEnLotes(
+                    desdeUltimaMarca(fuenteUrl + "/api/colecciones/" + coleccion + "/hechos", claveMarca),
+                    HechoDTO.class,
+                    lote -> conPermiso(permisosEscritura, () -> indexacionService.indexarHechos(lote))
+            ));
 
-                log.info("✅ {} hechos sincronizados de colección {}", hechos.size(), coleccion);
-            }
+            log.info("✅ {} hechos sincronizados de colección {} ({} con error)",
+                    resultado.exitosos(), coleccion, resultado.errores());
+            avanzarMarca(claveMarca, inicio, resultado);
         } catch (Exception e) {
-            log.error("❌ Error sincronizando hechos: {}", e.getMessage(), e);
+            resultadoMetrica = "error";
+            log.error("❌ Error sincronizando colección {}: {}", coleccion, e.getMessage(), e);
+        } finally {
+            sample.stop(meterRegistry.timer(
+                    "metamapa.busqueda.sync.coleccion",
+                    "coleccion", coleccion,
+                    "resultado", resultadoMetrica
+            ));
         }
     }
 
     private void sincronizarPdIs() {
         try {
             log.info("📥 Sincronizando PDIs...");
+            LocalDateTime inicio = LocalDateTime.now();
 
-            List<PdIDTO> pdis = restClient.get()
-                    .uri(pdiUrl + "/api/PdIs")
-                    .retrieve()
-                    .body(new ParameterizedTypeReference<List<PdIDTO>>() {});
-
-            if (pdis != null) {
-                for (PdIDTO pdi : pdis) {
-                    try {
-                        indexacionService.indexarPdI(pdi);
-                    } catch (Exception e) {
-                        log.error("❌ Error indexando PDI {}: {}", pdi.id(), e.getMessage());
-                    }
-                }
+            ResultadoLoteDTO resultado = conPermiso(permisosPdi, () -> indexarEnLotes(
+                    desdeUltimaMarca(pdiUrl + "/api/PdIs", MARCA_PDIS),
+                    PdIDTO.class,
+                    lote -> conPermiso(permisosEscritura, () -> indexacionService.indexarPdIs(lote))
+            ));
 
-                log.info("✅ {} PDIs sincronizados", pdis.size());
-            }
+            log.info("✅ {} PDIs sincronizados ({} con error)", resultado.exitosos(), resultado.errores());
+            avanzarMarca(MARCA_PDIS, inicio, resultado);
         } catch (Exception e) {
             log.error("❌ Error sincronizando PDIs: {}", e.getMessage(), e);
         }
@@ -137,10 +209,10 @@ public class SyncScheduler {
     private List<String> obtenerColecciones() {
         try {
             // Obtener colecciones reales desde el módulo Fuente
-            List<ColeccionDTO> colecciones = restClient.get()
+            List<ColeccionDTO> colecciones = conPermiso(permisosFuente, () -> restClient.get()
                     .uri(fuenteUrl + "/api/colecciones")
                     .retrieve()
-                    .body(new ParameterizedTypeReference<List<ColeccionDTO>>() {});
+                    .body(new ParameterizedTypeReference<List<ColeccionDTO>>() {}));
 
             if (colecciones != null) {
                 return colecciones.stream()
@@ -154,10 +226,79 @@ public class SyncScheduler {
         }
     }
 
-    private List<HechoDTO> obtenerHechosDeColeccion(String coleccion) {
+    /**
+     * Lee el array JSON de la respuesta de a un elemento con el parser de Jackson
+     * y va indexando lotes de tamanioLote a medida que llegan.
+     * Nunca hay más de un lote en memoria, sin importar el tamaño de la respuesta.
+     */
+    private <T> ResultadoLoteDTO indexarEnLotes(String url,
+                                                Class<T> tipo,
+                                                Function<List<T>, ResultadoLoteDTO> indexar) {
         return restClient.get()
-                .uri(fuenteUrl + "/api/colecciones/" + coleccion + "/hechos")
-                .retrieve()
-                .body(new ParameterizedTypeReference<List<HechoDTO>>() {});
+                .uri(url)
+                .exchange((request, response) -> {
+                    if (response.getStatusCode().isError()) {
+                        throw new IllegalStateException("HTTP " + response.getStatusCode() + " en " + url);
+                    }
+
+                    try (JsonParser parser = objectMapper.getFactory().createParser(response.getBody())) {
+                        JsonToken inicio = parser.nextToken();
+                        if (inicio == null || inicio == JsonToken.VALUE_NULL) {
+                            return ResultadoLoteDTO.vacio();
+                        }
+                        if (inicio != JsonToken.START_ARRAY) {
+                            throw new IllegalStateException("Se esperaba un array JSON en " + url);
+                        }
+
+                        ResultadoLoteDTO resultado = ResultadoLoteDTO.vacio();
+                        List<T> lote = new ArrayList<>(tamanioLote);
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            lote.add(objectMapper.readValue(parser, tipo));
+                            if (lote.size() == tamanioLote) {
+                                resultado = resultado.sumar(indexar.apply(lote));
+                                lote = new ArrayList<>(tamanioLote);
+                            }
+                        }
+                        if (!lote.isEmpty()) {
+                            resultado = resultado.sumar(indexar.apply(lote));
+                        }
+                        return resultado;
+                    }
+                });
+    }
+
+    /**
+     * Agrega ?desde=<marca - margen> a la URL si hay una marca guardada.
+     * Si el módulo upstream ignora el parámetro llega el corpus completo: la
+     * indexación descarta los hechos y PDIs cuyo contenido no cambió, así que
+     * no se reescriben ni invalidan caché, pero se siguen descargando y leyendo.
+     */
+    private String desdeUltimaMarca(String url, String claveMarca) {
+        if (!incremental) {
+            return url;
+        }
+        return marcaRepository.findById(claveMarca)
+                .map(marca -> UriComponentsBuilder.fromUriString(url)
+                        .queryParam("desde", marca.getUltimaSincronizacion().minus(margenMarca))
+                        .toUriString())
+                .orElse(url);
+    }
+
+    // La marca solo avanza si no hubo errores: lo fallido se vuelve a pedir en la próxima corrida
+    private void avanzarMarca(String claveMarca, LocalDateTime inicio, ResultadoLoteDTO resultado) {
+        if (resultado.errores() > 0) {
+            log.warn("Marca {} sin avanzar: {} ítems con error", claveMarca, resultado.errores());
+            return;
+        }
+        marcaRepository.save(new MarcaSincronizacion(claveMarca, inicio));
+    }
+
+    private static <T> T conPermiso(Semaphore permisos, Supplier<T> accion) {
+        permisos.acquireUninterruptibly();
+        try {
+            return accion.get();
+        } finally {
+            permisos.release();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,62 @@
+package ar.edu.utn.dds.k3003.busqueda.analisis;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+//Normalización, stopwords y stemmer liviano: lo que se indexa y lo que se busca tiene que llegar al mismo término.
+class AnalizadorEspanolTest {
+
+    @Test
+    void singularPluralYAcentosLleganALaMismaRaiz() {
+        assertThat(AnalizadorEspanol.terminos("Córdoba", "cordoba", "CÓRDOBAS")).containsExactly("cordob");
+        assertThat(AnalizadorEspanol.terminos("ruta", "rutas")).containsExactly("rut");
+        assertThat(AnalizadorEspanol.terminos("vecino", "vecinas", "vecinos")).containsExactly("vecin");
+        assertThat(AnalizadorEspanol.terminos("calle", "calles")).containsExactly("call");
+    }
+
+    @Test
+    void pluralesIrregularesComunes() {
+        assertThat(AnalizadorEspanol.raiz("luces")).isEqualTo("luz");
+        assertThat(AnalizadorEspanol.raiz("meses")).isEqualTo("mes");
+        assertThat(AnalizadorEspanol.raiz("mes")).isEqualTo("mes");
+    }
+
+    @Test
+    void dejaAlMenosTresLetras() {
+        assertThat(AnalizadorEspanol.raiz("ojo")).isEqualTo("ojo");
+        assertThat(AnalizadorEspanol.raiz("ojos")).isEqualTo("ojo");
+        assertThat(AnalizadorEspanol.raiz("casa")).isEqualTo("cas");
+    }
+
+    @Test
+    void noTocaTokensConDigitos() {
+        assertThat(AnalizadorEspanol.analizar("ruta 2025 km40s")).containsExactly("rut", "2025", "km40s");
+    }
+
+    @Test
+    void sacaStopwordsAunqueVenganConAcento() {
+        assertThat(AnalizadorEspanol.analizar("El corte de luz en la calle, y además está sin agua"))
+                .containsExactly("cort", "luz", "call", "adem", "agu");
+        assertThat(AnalizadorEspanol.analizar("Más también")).isEmpty();
+    }
+
+    @Test
+    void analizarConservaRepeticionesYTerminosLasDescarta() {
+        assertThat(AnalizadorEspanol.analizar("agua, agua y más aguas")).containsExactly("agu", "agu", "agu");
+        assertThat(AnalizadorEspanol.terminos("agua, agua y más aguas")).containsExactly("agu");
+    }
+
+    @Test
+    void textoVacioNoTieneTerminos() {
+        assertThat(AnalizadorEspanol.analizar(null)).isEmpty();
+        assertThat(AnalizadorEspanol.analizar("  ¡¿...?!  ")).isEmpty();
+    }
+
+    @Test
+    void normalizarNoSacaPalabrasNiHaceStemming() {
+        assertThat(AnalizadorEspanol.normalizar("  Corte   de LUZ en Córdoba ")).isEqualTo("corte de luz en cordoba");
+        assertThat(AnalizadorEspanol.normalizar(null)).isEmpty();
+    }
+}
@@ -0,0 +1,486 @@
+package ar.edu.utn.dds.k3003.busqueda.benchmark;
+
+import ar.edu.utn.dds.k3003.busqueda.DdsBusquedaApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.InsertManyOptions;
+import de.flapdoodle.embed.mongo.commands.ServerAddress;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.ImmutableMongod;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.embed.mongo.types.DatabaseDir;
+import de.flapdoodle.embed.mongo.types.DistributionBaseUrl;
+import de.flapdoodle.reverse.TransitionWalker;
+import de.flapdoodle.reverse.transitions.Start;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.bson.Document;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+
+//Benchmark de carga de punta a punta: MongoDB embebido (flapdoodle) + la aplicación completa
+//en el mismo proceso + un generador de carga HTTP a QPS fijo con mezcla de operaciones:
+//  busqueda  GET  /api/busqueda
+//  busqueda_reactiva  GET  /api/busqueda/reactiva  (mismos parámetros, sobre el driver reactivo)
+//  hecho     POST /api/indexacion/hecho      (mitad hechos nuevos, mitad actualizaciones)
+//  pdi       POST /api/indexacion/pdi        (PDI nuevo sobre un hecho existente)
+//  censura   POST /api/indexacion/censurar/{id}
+//
+//La carga es de lazo abierto: cada request tiene un instante programado (inicio + n / qps) y la
+//latencia se mide desde ese instante, así una pausa del servidor no baja la carga ni esconde la
+//cola que se forma (coordinated omission). Las operaciones de Mongo por request salen de la
+//diferencia de opcounters de serverStatus durante la medición, incluyendo lo que la aplicación
+//hace en segundo plano por esos requests (flush de la cola de webhooks, conteos asíncronos).
+//
+//Uso:  mvn -Pcarga -DskipTests verify -Dcarga.args="documentos=1000000 qps=300 duracion=120"
+//      (o ejecutar esta clase con el classpath de test y los mismos argumentos clave=valor)
+//
+//Argumentos (clave=valor):
+//  documentos=1000000   hechos sintéticos a cargar (si la base ya los tiene no se recargan)
+//  pdis=3               PDIs promedio por hecho; el 2% de los hechos tiene entre 50 y 200
+//  qps=200              requests por segundo programados
+//  duracion=60          segundos de medición
+//  calentamiento=15     segundos de carga previos a la medición, descartados
+//  mezcla=busqueda:90,hecho:5,pdi:4,censura:1
+//                       (busqueda:50,busqueda_reactiva:50 compara las dos búsquedas con la misma carga;
+//                       con busqueda.cache.enabled=false para que las dos vayan siempre a Mongo)
+//  concurrencia=512     requests en vuelo como máximo; si se supera, el request se descarta y se cuenta
+//  semilla=42
+//  version=7.0          versión de MongoDB
+//  datos=<dir>          directorio de datos de mongod, para reutilizar la carga entre corridas
+//  distribucion=<url>   base URL de descarga de MongoDB, ej. file:///opt/mongodb-mirror
+//  salida=target/carga-resultado.json
+//Cualquier otra clave con prefijo busqueda., spring., server. o management. se pasa a la aplicación,
+//ej. busqueda.motor.tipo=memoria busqueda.cache.enabled=false.
+//
+//Sin red: flapdoodle guarda la distribución descargada en ~/.embedmongo y la reutiliza; en una
+//máquina aislada copiar ese directorio o apuntar distribucion a un mirror local.
+public final class CargaEndToEnd {
+
+    private static final String BASE = "dds_busqueda";
+    private static final String COLECCION = "hechos_indexados";
+    private static final int TAMANIO_LOTE_CARGA = 1000;
+    private static final String[] PREFIJOS_APLICACION = {"busqueda.", "spring.", "server.", "management."};
+
+    private final Map<String, String> argumentos;
+    private final int documentos;
+    private final int pdisPromedio;
+    private final int qps;
+    private final Duration duracion;
+    private final Duration calentamiento;
+    private final int concurrencia;
+    private final long semilla;
+    private final Map<String, Integer> mezcla;
+
+    private final Map<String, Recorder> latencias = new LinkedHashMap<>();
+    private final Map<String, Map<String, LongAdder>> estados = new ConcurrentHashMap<>();
+    private final LongAdder descartados = new LongAdder();
+    private final AtomicInteger hechosNuevos = new AtomicInteger();
+    private final AtomicInteger pdisNuevos = new AtomicInteger();
+
+    private CargaEndToEnd(Map<String, String> argumentos) {
+        this.argumentos = argumentos;
+        this.documentos = Integer.parseInt(argumentos.getOrDefault("documentos", "1000000"));
+        this.pdisPromedio = Integer.parseInt(argumentos.getOrDefault("pdis", "3"));
+        this.qps = Integer.parseInt(argumentos.getOrDefault("qps", "200"));
+        this.duracion = Duration.ofSeconds(Long.parseLong(argumentos.getOrDefault("duracion", "60")));
+        this.calentamiento = Duration.ofSeconds(Long.parseLong(argumentos.getOrDefault("calentamiento", "15")));
+        this.concurrencia = Integer.parseInt(argumentos.getOrDefault("concurrencia", "512"));
+        this.semilla = Long.parseLong(argumentos.getOrDefault("semilla", "42"));
+        this.mezcla = leerMezcla(argumentos.getOrDefault("mezcla", "busqueda:90,hecho:5,pdi:4,censura:1"));
+        // 3 dígitos significativos, rango autoajustable
+        mezcla.keySet().forEach(operacion -> latencias.put(operacion, new Recorder(3)));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> argumentos = new LinkedHashMap<>();
+        for (String arg : args) {
+            int igual = arg.indexOf('=');
+            if (igual <= 0) {
+                throw new IllegalArgumentException("Argumento inválido (se espera clave=valor): " + arg);
+            }
+            argumentos.put(arg.substring(0, igual), arg.substring(igual + 1));
+        }
+        new CargaEndToEnd(argumentos).ejecutar();
+        System.exit(0);
+    }
+
+    private void ejecutar() throws Exception {
+        try (TransitionWalker.ReachedState<RunningMongodProcess> mongod = iniciarMongo();
+             MongoClient cliente = MongoClients.create(uri(mongod.current().getServerAddress()))) {
+
+            MongoDatabase base = cliente.getDatabase(BASE);
+            cargarDatos(base.getCollection(COLECCION));
+
+            log("Iniciando aplicación...");
+            try (ConfigurableApplicationContext contexto = iniciarAplicacion(mongod.current().getServerAddress())) {
+                String url = "http://localhost:" + contexto.getEnvironment().getProperty("local.server.port");
+                HttpClient http = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .executor(Executors.newVirtualThreadPerTaskExecutor())
+                        .connectTimeout(Duration.ofSeconds(5))
+                        .build();
+
+                log("Calentamiento: %ds a %d qps", calentamiento.toSeconds(), qps);
+                generarCarga(http, url, calentamiento, new Random(semilla));
+                latencias.values().forEach(Recorder::reset);
+                estados.clear();
+                descartados.reset();
+
+                log("Medición: %ds a %d qps, mezcla %s", duracion.toSeconds(), qps, mezcla);
+                Document opsAntes = opcounters(cliente);
+                long inicio = System.nanoTime();
+                long enviados = generarCarga(http, url, duracion, new Random(semilla + 1));
+                double segundos = (System.nanoTime() - inicio) / 1e9;
+                Document opsDespues = opcounters(cliente);
+
+                informar(enviados, segundos, opsAntes, opsDespues, base);
+            }
+        }
+    }
+
+    private TransitionWalker.ReachedState<RunningMongodProcess> iniciarMongo() {
+        ImmutableMongod mongod = Mongod.instance();
+        if (argumentos.containsKey("distribucion")) {
+            mongod = mongod.withDistributionBaseUrl(Start.to(DistributionBaseUrl.class)
+                    .initializedWith(DistributionBaseUrl.of(argumentos.get("distribucion"))));
+        }
+        if (argumentos.containsKey("datos")) {
+            Path datos = Path.of(argumentos.get("datos")).toAbsolutePath();
+            datos.toFile().mkdirs();
+            mongod = mongod.withDatabaseDir(Start.to(DatabaseDir.class).initializedWith(DatabaseDir.of(datos)));
+        }
+        String version = argumentos.getOrDefault("version", "7.0");
+        log("Iniciando MongoDB %s embebido...", version);
+        return mongod.start(Version.Main.valueOf("V" + version.replace('.', '_')));
+    }
+
+    /**
+     * Inserta los hechos sintéticos que falten, en paralelo, convertidos con el mismo mapeo
+     * de Spring Data que usa la aplicación. La cantidad de PDIs por hecho es determinística
+     * (depende de la semilla y del índice), así dos corridas cargan exactamente lo mismo.
+     */
+    private void cargarDatos(MongoCollection<Document> coleccion) throws Exception {
+        long existentes = coleccion.estimatedDocumentCount();
+        if (existentes >= documentos) {
+            log("La base ya tiene %d hechos, se reutilizan", existentes);
+            return;
+        }
+
+        log("Cargando %d hechos sintéticos (%d ya existentes)...", documentos - existentes, existentes);
+        MappingMongoConverter converter = converter();
+        long inicio = System.nanoTime();
+        AtomicInteger cargados = new AtomicInteger();
+        List<Future<?>> lotes = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors())) {
+            for (int desde = (int) existentes; desde < documentos; desde += TAMANIO_LOTE_CARGA) {
+                int inicioLote = desde;
+                int finLote = Math.min(desde + TAMANIO_LOTE_CARGA, documentos);
+                lotes.add(executor.submit(() -> {
+                    List<Document> lote = new ArrayList<>(finLote - inicioLote);
+                    for (int i = inicioLote; i < finLote; i++) {
+                        Document doc = new Document();
+                        converter.write(DatosSinteticos.hecho(i, pdisDelHecho(i)), doc);
+                        lote.add(doc);
+                    }
+                    coleccion.insertMany(lote, new InsertManyOptions().ordered(false));
+                    int total = cargados.addAndGet(lote.size());
+                    if (total % 100_000 < TAMANIO_LOTE_CARGA) {
+                        log("  %d hechos cargados", total);
+                    }
+                }));
+            }
+            for (Future<?> lote : lotes) {
+                lote.get();
+            }
+        }
+        log("Carga completa en %ds", TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - inicio));
+    }
+
+    private int pdisDelHecho(int i) {
+        Random random = new Random(semilla * 31 + i);
+        return random.nextDouble() < 0.02
+                ? 50 + random.nextInt(151)
+                : random.nextInt(2 * pdisPromedio + 1);
+    }
+
+    private ConfigurableApplicationContext iniciarAplicacion(ServerAddress direccion) {
+        Map<String, Object> propiedades = new HashMap<>();
+        propiedades.put("spring.data.mongodb.uri", uri(direccion));
+        propiedades.put("server.port", "0");
+        propiedades.put("busqueda.sync.enabled", "false");
+        propiedades.put("management.datadog.metrics.export.enabled", "false");
+        propiedades.put("management.datadog.metrics.export.api-key", "carga");
+        propiedades.put("management.datadog.metrics.export.application-key", "carga");
+        propiedades.put("logging.level.ar.edu.utn.dds.k3003.busqueda", "WARN");
+        propiedades.put("logging.level.org.springframework.data.mongodb", "WARN");
+        // La aplicación usa el mongod de este proceso, no el que levantaría la autoconfiguración de test
+        propiedades.put("spring.autoconfigure.exclude",
+                "de.flapdoodle.embed.mongo.spring.autoconfigure.EmbeddedMongoAutoConfiguration");
+        argumentos.forEach((clave, valor) -> {
+            for (String prefijo : PREFIJOS_APLICACION) {
+                if (clave.startsWith(prefijo)) {
+                    propiedades.put(clave, valor);
+                }
+            }
+        });
+
+        return new SpringApplicationBuilder(DdsBusquedaApplication.class)
+                .properties(propiedades)
+                .run();
+    }
+
+    /**
+     * Programa un request cada 1 / qps segundos durante la duración pedida y espera a que
+     * terminen los que quedaron en vuelo. Devuelve la cantidad de requests programados.
+     */
+    private long generarCarga(HttpClient http, String url, Duration tiempo, Random random) throws InterruptedException {
+        long intervalo = TimeUnit.SECONDS.toNanos(1) / qps;
+        long inicio = System.nanoTime();
+        long fin = inicio + tiempo.toNanos();
+        Semaphore enVuelo = new Semaphore(concurrencia);
+        long programados = 0;
+
+        for (long instante = inicio; instante < fin; instante = inicio + ++programados * intervalo) {
+            long espera = instante - System.nanoTime();
+            if (espera > 0) {
+                LockSupport.parkNanos(espera);
+            }
+            String operacion = elegirOperacion(random);
+            if (!enVuelo.tryAcquire()) {
+                descartados.increment();
+                continue;
+            }
+            long programado = instante;
+            http.sendAsync(request(operacion, url, random), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((respuesta, error) -> {
+                        latencias.get(operacion).recordValue(Math.max(0, System.nanoTime() - programado));
+                        estado(operacion, error != null ? "error" : String.valueOf(respuesta.statusCode()));
+                        enVuelo.release();
+                    });
+        }
+
+        if (!enVuelo.tryAcquire(concurrencia, 1, TimeUnit.MINUTES)) {
+            log("⚠️ Quedaron requests sin responder después de 1 minuto");
+        } else {
+            enVuelo.release(concurrencia);
+        }
+        return programados;
+    }
+
+    private String elegirOperacion(Random random) {
+        int total = mezcla.values().stream().mapToInt(Integer::intValue).sum();
+        int valor = random.nextInt(total);
+        for (Map.Entry<String, Integer> operacion : mezcla.entrySet()) {
+            valor -= operacion.getValue();
+            if (valor < 0) {
+                return operacion.getKey();
+            }
+        }
+        throw new IllegalStateException("Mezcla vacía");
+    }
+
+    private HttpRequest request(String operacion, String url, Random random) {
+        return switch (operacion) {
+            case "busqueda" -> HttpRequest.newBuilder(URI.create(url + "/api/busqueda?" + parametrosBusqueda(random)))
+                    .GET()
+                    .build();
+            case "busqueda_reactiva" -> HttpRequest.newBuilder(
+                            URI.create(url + "/api/busqueda/reactiva?" + parametrosBusqueda(random)))
+                    .GET()
+                    .build();
+            case "hecho" -> {
+                // Mitad hechos nuevos, mitad re-notificaciones de hechos existentes
+                int i = random.nextBoolean() ? documentos + hechosNuevos.getAndIncrement() : random.nextInt(documentos);
+                yield post(url + "/api/indexacion/hecho", DatosSinteticos.hechoJson(i));
+            }
+            case "pdi" -> {
+                int n = pdisNuevos.getAndIncrement();
+                yield post(url + "/api/indexacion/pdi",
+                        DatosSinteticos.pdiJson("pdi-carga-" + n, "hecho-" + random.nextInt(documentos), n));
+            }
+            case "censura" -> post(url + "/api/indexacion/censurar/hecho-" + random.nextInt(documentos), "");
+            default -> throw new IllegalArgumentException("Operación desconocida en la mezcla: " + operacion);
+        };
+    }
+
+    // Consultas de 1 o 2 palabras sesgadas a las más frecuentes, como el tráfico real del bot
+    private static String parametrosBusqueda(Random random) {
+        int palabras = DatosSinteticos.cantidadPalabras();
+        StringBuilder consulta = new StringBuilder(DatosSinteticos.palabra(sesgado(random, palabras)));
+        if (random.nextInt(4) == 0) {
+            consulta.append(' ').append(DatosSinteticos.palabra(sesgado(random, palabras)));
+        }
+
+        StringBuilder parametros = new StringBuilder("q=")
+                .append(URLEncoder.encode(consulta.toString(), StandardCharsets.UTF_8));
+        if (random.nextInt(5) == 0) {
+            parametros.append("&tags=incendio");
+        }
+        if (random.nextInt(5) == 0) {
+            parametros.append("&page=").append(1 + random.nextInt(3));
+        }
+        if (random.nextInt(5) == 0) {
+            parametros.append("&orden=reciente");
+        }
+        return parametros.toString();
+    }
+
+    private static int sesgado(Random random, int n) {
+        double u = random.nextDouble();
+        return (int) (u * u * n);
+    }
+
+    private static HttpRequest post(String url, String cuerpo) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(cuerpo))
+                .build();
+    }
+
+    private void estado(String operacion, String estado) {
+        estados.computeIfAbsent(operacion, o -> new ConcurrentHashMap<>())
+                .computeIfAbsent(estado, e -> new LongAdder())
+                .increment();
+    }
+
+    private static Document opcounters(MongoClient cliente) {
+        return cliente.getDatabase("admin").runCommand(new Document("serverStatus", 1))
+                .get("opcounters", Document.class);
+    }
+
+    private void informar(long programados, double segundos, Document opsAntes, Document opsDespues,
+                          MongoDatabase base) throws Exception {
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("configuracion", argumentos);
+        resultado.put("segundos", segundos);
+        resultado.put("programados", programados);
+        resultado.put("descartados", descartados.sum());
+
+        long completados = 0;
+        Map<String, Object> operaciones = new LinkedHashMap<>();
+        System.out.printf("%n%-10s %9s %9s %9s %9s %9s %9s  %s%n",
+                "operación", "cantidad", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "estados");
+        for (Map.Entry<String, Recorder> entrada : latencias.entrySet()) {
+            Histogram histograma = entrada.getValue().getIntervalHistogram();
+            Map<String, Long> estadosOperacion = new LinkedHashMap<>();
+            estados.getOrDefault(entrada.getKey(), Map.of())
+                    .forEach((estado, cantidad) -> estadosOperacion.put(estado, cantidad.sum()));
+
+            Map<String, Object> operacion = new LinkedHashMap<>();
+            operacion.put("cantidad", histograma.getTotalCount());
+            operacion.put("throughput", histograma.getTotalCount() / segundos);
+            operacion.put("p50Ms", millis(histograma.getValueAtPercentile(50)));
+            operacion.put("p99Ms", millis(histograma.getValueAtPercentile(99)));
+            operacion.put("p999Ms", millis(histograma.getValueAtPercentile(99.9)));
+            operacion.put("maxMs", millis(histograma.getMaxValue()));
+            operacion.put("estados", estadosOperacion);
+            operaciones.put(entrada.getKey(), operacion);
+            completados += histograma.getTotalCount();
+
+            System.out.printf("%-10s %9d %9.1f %9.2f %9.2f %9.2f %9.2f  %s%n",
+                    entrada.getKey(), histograma.getTotalCount(), histograma.getTotalCount() / segundos,
+                    millis(histograma.getValueAtPercentile(50)), millis(histograma.getValueAtPercentile(99)),
+                    millis(histograma.getValueAtPercentile(99.9)), millis(histograma.getMaxValue()),
+                    estadosOperacion);
+        }
+        resultado.put("throughput", completados / segundos);
+        resultado.put("operaciones", operaciones);
+
+        Map<String, Object> mongo = new LinkedHashMap<>();
+        long opsTotal = 0;
+        for (String contador : opsDespues.keySet()) {
+            long delta = ((Number) opsDespues.get(contador)).longValue() - ((Number) opsAntes.get(contador)).longValue();
+            mongo.put(contador, delta);
+            opsTotal += delta;
+        }
+        double opsPorRequest = completados == 0 ? 0 : (double) opsTotal / completados;
+        mongo.put("opsPorRequest", opsPorRequest);
+        Document estadisticas = base.runCommand(new Document("dbStats", 1));
+        mongo.put("tamanioDatosBytes", estadisticas.get("dataSize"));
+        mongo.put("tamanioIndicesBytes", estadisticas.get("indexSize"));
+        resultado.put("mongo", mongo);
+
+        System.out.printf("%nThroughput: %.1f req/s (%d programados, %d descartados por concurrencia)%n",
+                completados / segundos, programados, descartados.sum());
+        System.out.printf("MongoDB: %.2f ops/request %s%n", opsPorRequest, mongo);
+
+        Path salida = Path.of(argumentos.getOrDefault("salida", "target/carga-resultado.json"));
+        Files.createDirectories(salida.toAbsolutePath().getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(salida.toFile(), resultado);
+        log("Resultado en %s", salida.toAbsolutePath());
+    }
+
+    private static Map<String, Integer> leerMezcla(String especificacion) {
+        Map<String, Integer> mezcla = new LinkedHashMap<>();
+        for (String parte : especificacion.split(",")) {
+            String[] operacionPeso = parte.trim().split(":");
+            int peso = Integer.parseInt(operacionPeso[1]);
+            if (peso > 0) {
+                mezcla.put(operacionPeso[0], peso);
+            }
+        }
+        if (mezcla.isEmpty()) {
+            throw new IllegalArgumentException("La mezcla no tiene operaciones: " + especificacion);
+        }
+        return mezcla;
+    }
+
+    private static MappingMongoConverter converter() {
+        MongoCustomConversions conversiones = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversiones.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversiones);
+        converter.afterPropertiesSet();
+        return converter;
+    }
+
+    private static String uri(ServerAddress direccion) {
+        return "mongodb://" + direccion.getHost() + ":" + direccion.getPort();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static void log(String formato, Object... args) {
+        System.out.printf("[carga] " + formato + "%n", args);
+    }
+}
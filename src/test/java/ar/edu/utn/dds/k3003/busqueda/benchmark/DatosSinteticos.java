@@ -0,0 +1,113 @@
+package ar.edu.utn.dds.k3003.busqueda.benchmark;
+
+import ar.edu.utn.dds.k3003.busqueda.analisis.AnalizadorEspanol;
+import ar.edu.utn.dds.k3003.busqueda.model.HechoIndexado;
+import ar.edu.utn.dds.k3003.busqueda.model.HechoResumen;
+import ar.edu.utn.dds.k3003.busqueda.model.PdIIndexado;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+
+//Datos sintéticos compartidos por los benchmarks, con tamaños parecidos a los reales:
+//títulos y descripciones cortos, contenido de PDI de ~200 caracteres y OCR de ~500.
+public final class DatosSinteticos {
+
+    private static final String[] PALABRAS = {
+            "incendio", "forestal", "inundación", "corte", "ruta", "vecinos", "evacuación",
+            "tormenta", "granizo", "accidente", "choque", "protesta", "barrio", "centro",
+            "escuela", "hospital", "puente", "río", "humo", "luz"
+    };
+
+    private DatosSinteticos() {
+    }
+
+    public static String palabra(int i) {
+        return PALABRAS[Math.floorMod(i, PALABRAS.length)];
+    }
+
+    public static int cantidadPalabras() {
+        return PALABRAS.length;
+    }
+
+    public static String titulo(int i) {
+        return PALABRAS[i % PALABRAS.length] + " " + PALABRAS[(i / PALABRAS.length) % PALABRAS.length] + " " + i;
+    }
+
+    public static HechoIndexado hecho(int i, int pdis) {
+        List<PdIIndexado> subdocumentos = new ArrayList<>(pdis);
+        List<String> etiquetasIA = new ArrayList<>(pdis);
+        for (int p = 0; p < pdis; p++) {
+            String contenido = ("Descripción del PDI " + p + " con detalle del lugar y testigos. ").repeat(4);
+            String ocr = ("Texto reconocido en la imagen " + p + " del cartel de la esquina. ").repeat(8);
+            subdocumentos.add(PdIIndexado.builder()
+                    .id("pdi-" + i + "-" + p)
+                    .contenido(contenido)
+                    .ocrText(ocr)
+                    .etiquetasIA(new ArrayList<>(List.of("etiqueta-" + p)))
+                    .tokens(AnalizadorEspanol.terminos(contenido, ocr))
+                    .actualizado(LocalDateTime.now())
+                    .build());
+            etiquetasIA.add("etiqueta-" + p);
+        }
+        HechoIndexado hecho = HechoIndexado.builder()
+                .id("hecho-" + i)
+                .nombreColeccion("coleccion-" + (i % 5))
+                .titulo(titulo(i))
+                .descripcion("Hecho reportado en la zona norte con " + PALABRAS[i % PALABRAS.length])
+                .ubicacion("Córdoba")
+                .categoria("incendio")
+                .fecha(LocalDateTime.now())
+                .origen("fuente")
+                .etiquetas(new ArrayList<>(List.of("incendio", "forestal")))
+                .etiquetasIA(etiquetasIA)
+                .pdis(subdocumentos)
+                .ultimaActualizacion(LocalDateTime.now().minusMinutes(i))
+                .version(3L)
+                .build();
+        hecho.recalcularTokens();
+        return hecho;
+    }
+
+    public static HechoResumen resumen(int i) {
+        return new HechoResumen(
+                "hecho-" + i,
+                titulo(i),
+                "coleccion-" + (i % 5),
+                "Hecho reportado en la zona norte con " + PALABRAS[i % PALABRAS.length],
+                "Córdoba",
+                "incendio",
+                LocalDateTime.now(),
+                List.of("incendio", "forestal"),
+                List.of("humo", "fuego", "árboles"),
+                "fuente",
+                LocalDateTime.now().minusMinutes(i),
+                1.5 + i);
+    }
+
+    // Un PDI como lo manda el módulo de PDIs, con imagen procesada
+    public static String pdiJson(int i) {
+        return pdiJson("pdi-" + i, "hecho-" + (i / 10), i);
+    }
+
+    public static String pdiJson(String pdiId, String hechoId, int i) {
+        return """
+                {"id":"%s","hechoId":"%s","descripcion":"Foto del lugar","lugar":"Córdoba",\
+                "momento":"2025-03-01T10:15:30","contenido":"%s","imagenUrl":"https://img.example/%d.jpg",\
+                "ocrText":"%s","etiquetasIA":["humo","fuego","árboles"],"estadoProcesamiento":"COMPLETADO",\
+                "fechaProcesamiento":"2025-03-01T10:16:00"}"""
+                .formatted(pdiId, hechoId,
+                        ("Descripción del PDI " + i + " con detalle del lugar. ").repeat(4),
+                        i,
+                        ("Texto reconocido en la imagen " + i + ". ").repeat(10));
+    }
+
+    // Un hecho como lo manda el módulo Fuente al webhook
+    public static String hechoJson(int i) {
+        return """
+                {"id":"hecho-%d","nombreColeccion":"coleccion-%d","titulo":"%s","etiquetas":["incendio","forestal"],\
+                "categoria":"DESASTRE","ubicacion":"Córdoba","fecha":"2025-03-01T10:15:30","origen":"fuente"}"""
+                .formatted(i, i % 5, titulo(i));
+    }
+}
@@ -0,0 +1,92 @@
+package ar.edu.utn.dds.k3003.busqueda.benchmark;
+
+import ar.edu.utn.dds.k3003.busqueda.dto.BusquedaResponseDTO;
+import ar.edu.utn.dds.k3003.busqueda.dto.BusquedaResultadoDTO;
+import ar.edu.utn.dds.k3003.busqueda.dto.PdIDTO;
+import ar.edu.utn.dds.k3003.busqueda.model.HechoResumen;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+
+//DTOs del camino de búsqueda e ingesta:
+//  mapeo HechoResumen -> BusquedaResultadoDTO, serialización de la respuesta de /api/busqueda
+//  y parseo de PDIs (de a uno como en el webhook, y en streaming como en SyncScheduler).
+//El ObjectMapper se configura como el de la aplicación (spring.jackson en application.yaml).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoBenchmark {
+
+    @Param({"10", "50"})
+    public int tamanioPagina;
+
+    private ObjectMapper objectMapper;
+    private HechoResumen resumen;
+    private BusquedaResponseDTO respuesta;
+    private byte[] pdi;
+    private byte[] lotePdIs;
+
+    @Setup
+    public void preparar() {
+        objectMapper = JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+
+        resumen = DatosSinteticos.resumen(1);
+        List<BusquedaResultadoDTO> resultados = IntStream.range(0, tamanioPagina)
+                .mapToObj(DatosSinteticos::resumen)
+                .map(BusquedaResultadoDTO::from)
+                .toList();
+        respuesta = BusquedaResponseDTO.of(resultados, 0, tamanioPagina, 1_000);
+
+        pdi = DatosSinteticos.pdiJson(1).getBytes(StandardCharsets.UTF_8);
+        lotePdIs = IntStream.range(0, tamanioPagina)
+                .mapToObj(DatosSinteticos::pdiJson)
+                .collect(Collectors.joining(",", "[", "]"))
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public BusquedaResultadoDTO resultadoDesdeResumen() {
+        return BusquedaResultadoDTO.from(resumen);
+    }
+
+    @Benchmark
+    public byte[] serializarRespuesta() throws IOException {
+        return objectMapper.writeValueAsBytes(respuesta);
+    }
+
+    @Benchmark
+    public PdIDTO parsearPdI() throws IOException {
+        return objectMapper.readValue(pdi, PdIDTO.class);
+    }
+
+    // tamanioPagina PDIs leídos de a uno con el parser, igual que SyncScheduler.indexarEnLotes
+    @Benchmark
+    public void parsearLotePdIsEnStreaming(Blackhole blackhole) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(lotePdIs)) {
+            parser.nextToken();
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                blackhole.consume(objectMapper.readValue(parser, PdIDTO.class));
+            }
+        }
+    }
+}
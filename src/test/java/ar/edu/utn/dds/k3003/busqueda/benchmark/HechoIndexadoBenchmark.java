@@ -0,0 +1,57 @@
+package ar.edu.utn.dds.k3003.busqueda.benchmark;
+
+import ar.edu.utn.dds.k3003.busqueda.model.HechoIndexado;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+//Merge de PDIs en memoria sobre un hecho que ya tiene pdisExistentes PDIs.
+//El PDI se busca por id en O(1), pero recalcular la unión de etiquetas IA
+//sigue recorriendo todos los PDIs del hecho.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HechoIndexadoBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int pdisExistentes;
+
+    private HechoIndexado hecho;
+    private String idExistente;
+    private String ocrExistente;
+    private List<String> etiquetasNuevas;
+    private List<String> etiquetasExistentes;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        hecho = DatosSinteticos.hecho(1, pdisExistentes);
+        idExistente = hecho.getPdis().get(pdisExistentes - 1).getId();
+        ocrExistente = hecho.getPdis().get(pdisExistentes - 1).getOcrText();
+        etiquetasExistentes = List.of("etiqueta-" + (pdisExistentes - 1), "etiqueta-" + (pdisExistentes - 2));
+        etiquetasNuevas = List.of("humo", "fuego", "árboles");
+    }
+
+    // Deshace el PDI agregado para que cada invocación mida sobre el mismo tamaño
+    @TearDown(Level.Invocation)
+    public void deshacerAgregado() {
+        hecho.eliminarPdI("pdi-nuevo");
+    }
+
+    @Benchmark
+    public HechoIndexado agregarPdINuevo() {
+        hecho.agregarPdI("pdi-nuevo", "Contenido del PDI nuevo", "Texto OCR del PDI nuevo", etiquetasNuevas);
+        return hecho;
+    }
+
+    // Webhook repetido de un PDI ya indexado: reemplaza sus campos con los mismos valores
+    @Benchmark
+    public HechoIndexado actualizarPdIExistente() {
+        hecho.actualizarPdI(idExistente, ocrExistente, etiquetasExistentes);
+        return hecho;
+    }
+}
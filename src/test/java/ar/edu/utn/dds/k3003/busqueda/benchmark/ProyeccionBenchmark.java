@@ -0,0 +1,99 @@
+package ar.edu.utn.dds.k3003.busqueda.benchmark;
+
+import ar.edu.utn.dds.k3003.busqueda.model.HechoIndexado;
+import ar.edu.utn.dds.k3003.busqueda.model.HechoResumen;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+//Compara documento completo vs proyección a HechoResumen para hechos con muchos PDIs:
+//tiempo de decodificar + mapear una página de tamanioPagina resultados.
+//Los bytes BSON de cada página se imprimen en el setup (no son tiempo, JMH no los reporta).
+//No necesita Mongo: usa el mismo MappingMongoConverter que MongoTemplate sobre BSON crudo.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProyeccionBenchmark {
+
+    private static final DocumentCodec CODEC = new DocumentCodec();
+
+    @Param({"20", "200"})
+    public int pdisPorHecho;
+
+    @Param({"20"})
+    public int tamanioPagina;
+
+    private MappingMongoConverter converter;
+    private List<RawBsonDocument> completos;
+    private List<RawBsonDocument> proyectados;
+
+    @Setup
+    public void preparar() {
+        // Misma configuración de tipos simples (java.time, etc.) que arma Spring Boot
+        MongoCustomConversions conversiones = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversiones.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversiones);
+        converter.afterPropertiesSet();
+
+        completos = new ArrayList<>();
+        proyectados = new ArrayList<>();
+        for (int i = 0; i < tamanioPagina; i++) {
+            Document doc = new Document();
+            converter.write(DatosSinteticos.hecho(i, pdisPorHecho), doc);
+            completos.add(new RawBsonDocument(doc, CODEC));
+            proyectados.add(new RawBsonDocument(proyectar(doc), CODEC));
+        }
+
+        System.out.printf("%nBytes BSON por página (%d PDIs por hecho): completo=%d, proyectado=%d%n",
+                pdisPorHecho, bytes(completos), bytes(proyectados));
+    }
+
+    @Benchmark
+    public void decodificarCompleto(Blackhole blackhole) {
+        decodificar(completos, HechoIndexado.class, blackhole);
+    }
+
+    @Benchmark
+    public void decodificarProyectado(Blackhole blackhole) {
+        decodificar(proyectados, HechoResumen.class, blackhole);
+    }
+
+    private void decodificar(List<RawBsonDocument> pagina, Class<?> tipo, Blackhole blackhole) {
+        for (RawBsonDocument raw : pagina) {
+            Document doc = CODEC.decode(raw.asBsonReader(), DecoderContext.builder().build());
+            blackhole.consume(converter.read(tipo, doc));
+        }
+    }
+
+    // Lo mismo que hace el $project de los motores: _id + HechoResumen.CAMPOS
+    private static Document proyectar(Document completo) {
+        Document proyectado = new Document("_id", completo.get("_id"));
+        Arrays.stream(HechoResumen.CAMPOS)
+                .filter(completo::containsKey)
+                .forEach(campo -> proyectado.append(campo, completo.get(campo)));
+        return proyectado;
+    }
+
+    private static long bytes(List<RawBsonDocument> pagina) {
+        return pagina.stream().mapToLong(doc -> doc.getByteBuffer().remaining()).sum();
+    }
+}
@@ -0,0 +1,114 @@
+package ar.edu.utn.dds.k3003.busqueda.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+
+//Ida y vuelta del cursor opaco y rechazo de tokens adulterados o de otro orden.
+class CursorBusquedaTest {
+
+    @Test
+    void relevanciaConservaScoreIdYReferencia() {
+        Instant referencia = Instant.ofEpochMilli(1_717_243_200_123L);
+        CursorBusqueda cursor = new CursorBusqueda(OrdenBusqueda.RELEVANCIA, 3.75, null, "abc123", referencia);
+
+        assertThat(CursorBusqueda.decodificar(cursor.codificar())).isEqualTo(cursor);
+    }
+
+    @Test
+    void recienteConservaFechaEId() {
+        CursorBusqueda cursor = new CursorBusqueda(OrdenBusqueda.RECIENTE, 0.0,
+                LocalDateTime.of(2025, 6, 1, 12, 30, 15), "abc123", null);
+
+        assertThat(CursorBusqueda.decodificar(cursor.codificar())).isEqualTo(cursor);
+    }
+
+    @Test
+    void recienteSinFechaVuelveConFechaNula() {
+        CursorBusqueda cursor = new CursorBusqueda(OrdenBusqueda.RECIENTE, 0.0, null, "abc123", null);
+
+        assertThat(CursorBusqueda.decodificar(cursor.codificar()).ultimaActualizacion()).isNull();
+    }
+
+    @Test
+    void elIdPuedeContenerElSeparador() {
+        CursorBusqueda cursor = new CursorBusqueda(OrdenBusqueda.RELEVANCIA, 1.5, null, "a|b|c", null);
+
+        assertThat(CursorBusqueda.decodificar(cursor.codificar()).id()).isEqualTo("a|b|c");
+    }
+
+    @Test
+    void cursorAnteriorALaReferenciaSeDecodificaSinElla() {
+        CursorBusqueda cursor = CursorBusqueda.decodificar(base64("RELEVANCIA|2.5|abc123"));
+
+        assertThat(cursor.score()).isEqualTo(2.5);
+        assertThat(cursor.id()).isEqualTo("abc123");
+        assertThat(cursor.referencia()).isNull();
+    }
+
+    @Test
+    void tokenVacioONuloNoEsCursor() {
+        assertThat(CursorBusqueda.decodificar(null)).isNull();
+        assertThat(CursorBusqueda.decodificar("  ")).isNull();
+    }
+
+    @Test
+    void tokensAdulteradosSonInvalidos() {
+        assertInvalido("esto no es base64!");
+        assertInvalido(base64("ALFABETICO|2.5|abc123"));
+        assertInvalido(base64("RELEVANCIA|mucho|abc123"));
+        assertInvalido(base64("RELEVANCIA|2.5@ayer|abc123"));
+        assertInvalido(base64("RECIENTE|ayer|abc123"));
+        assertInvalido(base64("RELEVANCIA|2.5"));
+        assertInvalido(base64("RELEVANCIA"));
+    }
+
+    @Test
+    void cursorDeOtroOrdenSeRechaza() {
+        CursorBusqueda cursor = new CursorBusqueda(OrdenBusqueda.RECIENTE, 0.0, null, "abc123", null);
+
+        assertThatThrownBy(() -> new BusquedaRequestDTO("agua", null, 0, 10,
+                OrdenBusqueda.RELEVANCIA, cursor, ConteoBusqueda.EXACTO))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("El cursor corresponde a otro orden");
+    }
+
+    @Test
+    void elPedidoReusaLaReferenciaDelCursor() {
+        Instant referencia = Instant.ofEpochMilli(1_717_243_200_123L);
+        CursorBusqueda cursor = new CursorBusqueda(OrdenBusqueda.RELEVANCIA, 3.75, null, "abc123", referencia);
+
+        BusquedaRequestDTO request = new BusquedaRequestDTO("agua", null, 0, 10,
+                OrdenBusqueda.RELEVANCIA, cursor, ConteoBusqueda.EXACTO);
+
+        assertThat(request.referencia()).isEqualTo(referencia);
+        assertThat(request.offset()).isZero();
+        assertThat(request.limitePagina()).isEqualTo(11);
+    }
+
+    @Test
+    void sinOrdenODesconocidoSeOrdenaPorReciente() {
+        assertThat(OrdenBusqueda.desde(null)).isEqualTo(OrdenBusqueda.RECIENTE);
+        assertThat(OrdenBusqueda.desde("cualquiera")).isEqualTo(OrdenBusqueda.RECIENTE);
+        assertThat(OrdenBusqueda.desde(" Relevancia ")).isEqualTo(OrdenBusqueda.RELEVANCIA);
+        assertThat(new BusquedaRequestDTO("agua", null, 0, 10, null, null, null).orden())
+                .isEqualTo(OrdenBusqueda.RECIENTE);
+    }
+
+    private static void assertInvalido(String token) {
+        assertThatThrownBy(() -> CursorBusqueda.decodificar(token))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cursor inválido");
+    }
+
+    private static String base64(String plano) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plano.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,52 @@
+package ar.edu.utn.dds.k3003.busqueda.indice;
+
+import ar.edu.utn.dds.k3003.busqueda.benchmark.DatosSinteticos;
+import ar.edu.utn.dds.k3003.busqueda.model.HechoIndexado;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+//Sugerencias por prefijo sobre documentos hechos con títulos distintos
+//(más sus tags, etiquetas IA y ubicación).
+//conCache: el top-k del nodo ya está calculado, es solo bajar por el árbol.
+//despuesDeEscritura: reindexar un hecho invalida el camino y la consulta por un prefijo
+//de una letra recalcula el top-k de los nodos invalidados (el peor caso).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IndiceSugerenciasBenchmark {
+
+    @Param({"10000", "100000"})
+    public int documentos;
+
+    private IndiceSugerencias indice;
+    private HechoIndexado reindexado;
+    private int version;
+
+    @Setup
+    public void preparar() {
+        indice = new IndiceSugerencias(new SimpleMeterRegistry(), 10);
+        for (int i = 0; i < documentos; i++) {
+            indice.indexar(DatosSinteticos.hecho(i, 1));
+        }
+        reindexado = DatosSinteticos.hecho(documentos / 2, 1);
+    }
+
+    @Benchmark
+    public List<IndiceSugerencias.Sugerencia> conCache() {
+        return indice.sugerir("incendio f", 10);
+    }
+
+    @Benchmark
+    public List<IndiceSugerencias.Sugerencia> despuesDeEscritura() {
+        reindexado.setTitulo("incendio " + (version++ % 2 == 0 ? "norte" : "sur"));
+        indice.indexar(reindexado);
+        return indice.sugerir("i", 10);
+    }
+}
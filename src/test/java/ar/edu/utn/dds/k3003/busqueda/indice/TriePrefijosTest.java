@@ -0,0 +1,128 @@
+package ar.edu.utn.dds.k3003.busqueda.indice;
+
+import ar.edu.utn.dds.k3003.busqueda.indice.TriePrefijos.Termino;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+//Altas, bajas con compactación de aristas y el top-k cacheado por nodo del árbol radix de sugerencias.
+//Está en el paquete indice porque TriePrefijos es package-private.
+class TriePrefijosTest {
+
+    private TriePrefijos trie;
+
+    @BeforeEach
+    void preparar() {
+        trie = new TriePrefijos(3);
+    }
+
+    @Test
+    void buscaPorPrefijoAunqueTermineEnMedioDeUnaArista() {
+        trie.sumar("corte de luz", "Corte de luz", 3);
+        trie.sumar("corte de agua", "Corte de agua", 2);
+        trie.sumar("cortina", "Cortina", 1);
+
+        assertThat(textos(trie.buscar("cort", 10))).containsExactly("Corte de luz", "Corte de agua", "Cortina");
+        assertThat(textos(trie.buscar("corte d", 10))).containsExactly("Corte de luz", "Corte de agua");
+        assertThat(textos(trie.buscar("corte de l", 10))).containsExactly("Corte de luz");
+        assertThat(trie.buscar("corte de luzz", 10)).isEmpty();
+        assertThat(trie.buscar("cx", 10)).isEmpty();
+        assertThat(trie.terminos()).isEqualTo(3);
+    }
+
+    @Test
+    void ordenaPorFrecuenciaYDesempataPorTexto() {
+        trie.sumar("bache", "bache", 2);
+        trie.sumar("barrio", "barrio", 5);
+        trie.sumar("basura", "basura", 2);
+
+        assertThat(trie.buscar("ba", 10)).containsExactly(
+                new Termino("barrio", 5), new Termino("bache", 2), new Termino("basura", 2));
+    }
+
+    @Test
+    void devuelveHastaElLimiteYComoMuchoMaxResultados() {
+        for (int i = 1; i <= 5; i++) {
+            trie.sumar("termino" + i, "termino" + i, i);
+        }
+
+        assertThat(textos(trie.buscar("termino", 10))).containsExactly("termino5", "termino4", "termino3");
+        assertThat(textos(trie.buscar("termino", 2))).containsExactly("termino5", "termino4");
+    }
+
+    @Test
+    void cambiarUnaFrecuenciaInvalidaElTopKCacheado() {
+        for (int i = 1; i <= 5; i++) {
+            trie.sumar("termino" + i, "termino" + i, i);
+        }
+        assertThat(textos(trie.buscar("ter", 10))).containsExactly("termino5", "termino4", "termino3");
+
+        trie.sumar("termino1", "termino1", 10);
+        trie.sumar("termino5", "termino5", -4);
+
+        assertThat(trie.buscar("ter", 10)).containsExactly(
+                new Termino("termino1", 11), new Termino("termino4", 4), new Termino("termino3", 3));
+        assertThat(textos(trie.buscar("", 10))).containsExactly("termino1", "termino4", "termino3");
+    }
+
+    @Test
+    void elTextoMostradoEsElUltimoSumado() {
+        trie.sumar("cordoba", "cordoba", 1);
+        trie.sumar("cordoba", "Córdoba", 1);
+
+        assertThat(trie.buscar("cor", 10)).containsExactly(new Termino("Córdoba", 2));
+    }
+
+    @Test
+    void borrarUnTerminoCompactaYConservaLosDemas() {
+        trie.sumar("casa", "casa", 1);
+        trie.sumar("casas", "casas", 1);
+        trie.sumar("cascada", "cascada", 1);
+
+        trie.sumar("casa", "casa", -1);
+
+        assertThat(trie.terminos()).isEqualTo(2);
+        assertThat(textos(trie.buscar("cas", 10))).containsExactly("casas", "cascada");
+        assertThat(textos(trie.buscar("casa", 10))).containsExactly("casas");
+
+        trie.sumar("casas", "casas", -1);
+        trie.sumar("cascada", "cascada", -1);
+
+        assertThat(trie.terminos()).isZero();
+        assertThat(trie.buscar("", 10)).isEmpty();
+
+        trie.sumar("casa", "casa", 1);
+        assertThat(textos(trie.buscar("c", 10))).containsExactly("casa");
+    }
+
+    @Test
+    void restarAUnaClaveInexistenteNoCambiaNada() {
+        trie.sumar("casas", "casas", 2);
+
+        trie.sumar("cas", "cas", -1);
+        trie.sumar("cosa", "cosa", -1);
+        trie.sumar("casas", "casas", -5);
+        trie.sumar("casas", "casas", -1);
+
+        assertThat(trie.terminos()).isZero();
+        assertThat(trie.buscar("", 10)).isEmpty();
+    }
+
+    @Test
+    void limpiarVaciaElArbol() {
+        trie.sumar("bache", "bache", 1);
+
+        trie.limpiar();
+
+        assertThat(trie.terminos()).isZero();
+        assertThat(trie.buscar("b", 10)).isEmpty();
+    }
+
+    private static List<String> textos(List<Termino> terminos) {
+        return terminos.stream().map(Termino::texto).toList();
+    }
+}
@@ -0,0 +1,63 @@
+package ar.edu.utn.dds.k3003.busqueda.motor;
+
+import ar.edu.utn.dds.k3003.busqueda.benchmark.DatosSinteticos;
+import ar.edu.utn.dds.k3003.busqueda.dto.BusquedaRequestDTO;
+import ar.edu.utn.dds.k3003.busqueda.dto.ConteoBusqueda;
+import ar.edu.utn.dds.k3003.busqueda.dto.OrdenBusqueda;
+import ar.edu.utn.dds.k3003.busqueda.model.HechoIndexado;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+
+//Búsqueda + deduplicación por título en el índice en memoria.
+//Cada título se repite copiasPorTitulo veces (el mismo hecho en varias colecciones),
+//así el merge recorre documentos * términos postings y el HashMap de deduplicación
+//se queda con documentos / copiasPorTitulo.
+//Está en el paquete motor porque IndiceInvertido es package-private.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IndiceInvertidoBenchmark {
+
+    @Param({"10000", "100000"})
+    public int documentos;
+
+    @Param({"1", "4"})
+    public int copiasPorTitulo;
+
+    private IndiceInvertido indice;
+    private DecaimientoRecencia sinDecaimiento;
+    private BusquedaRequestDTO porRelevancia;
+    private BusquedaRequestDTO porRecencia;
+
+    @Setup
+    public void preparar() {
+        indice = new IndiceInvertido(1.2f, 0.75f);
+        sinDecaimiento = new DecaimientoRecencia(0, Duration.ofDays(30));
+        for (int i = 0; i < documentos; i++) {
+            HechoIndexado hecho = DatosSinteticos.hecho(i, 1);
+            hecho.setTitulo(DatosSinteticos.titulo(i / copiasPorTitulo));
+            indice.indexar(hecho);
+        }
+        // "incendio" aparece en 1 de cada 20 títulos y en la descripción; "zona" en todos los documentos
+        porRelevancia = new BusquedaRequestDTO("incendio zona", null, 0, 10,
+                OrdenBusqueda.RELEVANCIA, null, ConteoBusqueda.EXACTO);
+        porRecencia = new BusquedaRequestDTO("incendio zona", null, 0, 10,
+                OrdenBusqueda.RECIENTE, null, ConteoBusqueda.EXACTO);
+    }
+
+    @Benchmark
+    public IndiceInvertido.Resultado buscarPorRelevancia() {
+        return indice.buscar(porRelevancia, sinDecaimiento);
+    }
+
+    @Benchmark
+    public IndiceInvertido.Resultado buscarPorRecencia() {
+        return indice.buscar(porRecencia, sinDecaimiento);
+    }
+}
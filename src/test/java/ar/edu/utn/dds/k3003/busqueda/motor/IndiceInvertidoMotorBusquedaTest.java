@@ -0,0 +1,196 @@
+package ar.edu.utn.dds.k3003.busqueda.motor;
+
+import ar.edu.utn.dds.k3003.busqueda.dto.BusquedaRequestDTO;
+import ar.edu.utn.dds.k3003.busqueda.dto.ConteoBusqueda;
+import ar.edu.utn.dds.k3003.busqueda.dto.OrdenBusqueda;
+import ar.edu.utn.dds.k3003.busqueda.indice.ContadoresFacetas;
+import ar.edu.utn.dds.k3003.busqueda.indice.HechoIndexadoEvent;
+import ar.edu.utn.dds.k3003.busqueda.indice.IndiceEnMemoria;
+import ar.edu.utn.dds.k3003.busqueda.indice.ReconstructorIndicesEnMemoria;
+import ar.edu.utn.dds.k3003.busqueda.model.HechoIndexado;
+import ar.edu.utn.dds.k3003.busqueda.model.HechoResumen;
+import ar.edu.utn.dds.k3003.busqueda.model.PdIIndexado;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Page;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+//El motor en memoria reconstruido por ReconstructorIndicesEnMemoria tiene que ver los campos que lee
+//aunque los hechos lleguen proyectados. El MongoTemplate mockeado aplica la proyección de la query
+//sobre los documentos mapeados como los guardaría Mongo.
+class IndiceInvertidoMotorBusquedaTest {
+
+    private static final LocalDateTime AHORA = LocalDateTime.of(2025, 6, 1, 12, 0);
+
+    private final MappingMongoConverter convertidor = convertidor();
+    private final Map<String, Document> coleccion = new LinkedHashMap<>();
+    private MongoTemplate mongoTemplate;
+    private IndiceInvertidoMotorBusqueda motor;
+    private ReconstructorIndicesEnMemoria reconstructor;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void preparar() {
+        mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.stream(any(Query.class), eq(HechoIndexado.class))).thenAnswer(invocacion -> {
+            Query query = invocacion.getArgument(0);
+            return coleccion.values().stream()
+                    .filter(documento -> !documento.getBoolean("censurado", false))
+                    .map(documento -> leer(documento, query.getFieldsObject().keySet()));
+        });
+        when(mongoTemplate.find(any(Query.class), eq(HechoResumen.class), anyString())).thenAnswer(invocacion -> {
+            Query query = invocacion.getArgument(0);
+            Collection<String> ids = (Collection<String>) query.getQueryObject().get("_id", Document.class).get("$in");
+            return ids.stream().map(coleccion::get).map(IndiceInvertidoMotorBusquedaTest::resumen).toList();
+        });
+
+        motor = new IndiceInvertidoMotorBusqueda(mongoTemplate, new DecaimientoRecencia(0, Duration.ofDays(30)),
+                new SimpleMeterRegistry(), 1.2f, 0.75f);
+        ObjectProvider<IndiceEnMemoria> indices = mock(ObjectProvider.class);
+        when(indices.orderedStream()).thenAnswer(invocacion -> Stream.of(motor, new ContadoresFacetas(10)));
+        reconstructor = new ReconstructorIndicesEnMemoria(indices, mongoTemplate);
+    }
+
+    @Test
+    void alReconstruirEncuentraPorTerminosDelPdIYDelOcr() {
+        guardar(hecho("1", "Reclamo vecinal", "pedido en la esquina", AHORA,
+                pdi("p1", "volquete abandonado", "cartel: prohibido estacionar")));
+        guardar(hecho("2", "Bache", "pozo en la calle", AHORA));
+
+        reconstructor.reconstruir();
+
+        assertThat(ids(buscar("volquete", OrdenBusqueda.RELEVANCIA))).containsExactly("1");
+        assertThat(ids(buscar("estacionar", OrdenBusqueda.RELEVANCIA))).containsExactly("1");
+        assertThat(ids(buscar("esquina", OrdenBusqueda.RELEVANCIA))).containsExactly("1");
+    }
+
+    @Test
+    void alReconstruirConservaUltimaActualizacionParaDeduplicarYOrdenar() {
+        guardar(hecho("viejo", "Incendio forestal", null, AHORA.minusDays(3)));
+        guardar(hecho("nuevo", "Incendio forestal", null, AHORA));
+        guardar(hecho("otro", "Incendio en fábrica", null, AHORA.minusDays(1)));
+
+        reconstructor.reconstruir();
+
+        assertThat(ids(buscar("incendio", OrdenBusqueda.RECIENTE))).containsExactly("nuevo", "otro");
+    }
+
+    @Test
+    void unEventoPorIdCargaLosCamposQueLeeElMotor() {
+        reconstructor.reconstruir();
+        guardar(hecho("1", "Reclamo vecinal", null, AHORA, pdi("p1", null, "prohibido estacionar")));
+
+        reconstructor.onHechoIndexado(HechoIndexadoEvent.porId("1",
+                (id, campos) -> Optional.of(leer(coleccion.get(id), campos))));
+
+        assertThat(ids(buscar("estacionar", OrdenBusqueda.RELEVANCIA))).containsExactly("1");
+    }
+
+    private List<String> ids(Page<HechoResumen> pagina) {
+        return pagina.getContent().stream().map(HechoResumen::id).toList();
+    }
+
+    private Page<HechoResumen> buscar(String consulta, OrdenBusqueda orden) {
+        return motor.buscar(new BusquedaRequestDTO(consulta, null, 0, 10, orden, null, ConteoBusqueda.EXACTO));
+    }
+
+    // Como el de Spring Boot: con los tipos de java.time como simples, no como entidades
+    private static MappingMongoConverter convertidor() {
+        MongoCustomConversions conversiones = new MongoCustomConversions(List.of());
+        MongoMappingContext contexto = new MongoMappingContext();
+        contexto.setSimpleTypeHolder(conversiones.getSimpleTypeHolder());
+        contexto.afterPropertiesSet();
+        MappingMongoConverter convertidor = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, contexto);
+        convertidor.setCustomConversions(conversiones);
+        convertidor.afterPropertiesSet();
+        return convertidor;
+    }
+
+    private void guardar(HechoIndexado hecho) {
+        Document documento = new Document();
+        convertidor.write(hecho, documento);
+        coleccion.put(hecho.getId(), documento);
+    }
+
+    // Lo que devolvería Mongo con la proyección: _id más los campos (o subcampos con punto) pedidos
+    private HechoIndexado leer(Document documento, Collection<String> campos) {
+        return convertidor.read(HechoIndexado.class, proyectar(documento, campos));
+    }
+
+    private static Document proyectar(Document documento, Collection<String> campos) {
+        Document proyectado = new Document("_id", documento.get("_id"));
+        Map<String, Set<String>> subcampos = new LinkedHashMap<>();
+        for (String campo : campos) {
+            int punto = campo.indexOf('.');
+            if (punto < 0) {
+                if (documento.containsKey(campo)) {
+                    proyectado.put(campo, documento.get(campo));
+                }
+            } else {
+                subcampos.computeIfAbsent(campo.substring(0, punto), k -> new HashSet<>())
+                        .add(campo.substring(punto + 1));
+            }
+        }
+        subcampos.forEach((campo, resto) -> {
+            if (documento.get(campo) instanceof List<?> lista) {
+                List<Document> elementos = new ArrayList<>();
+                for (Object elemento : lista) {
+                    Document proyectadoElemento = proyectar((Document) elemento, resto);
+                    proyectadoElemento.remove("_id");
+                    elementos.add(proyectadoElemento);
+                }
+                proyectado.put(campo, elementos);
+            }
+        });
+        return proyectado;
+    }
+
+    private static HechoResumen resumen(Document documento) {
+        return new HechoResumen(documento.getString("_id"), documento.getString("titulo"), null, null, null,
+                null, null, null, null, null, null, null);
+    }
+
+    private static HechoIndexado hecho(String id, String titulo, String descripcion, LocalDateTime actualizacion,
+                                       PdIIndexado... pdis) {
+        return HechoIndexado.builder()
+                .id(id)
+                .nombreColeccion("coleccion")
+                .titulo(titulo)
+                .descripcion(descripcion)
+                .ultimaActualizacion(actualizacion)
+                .pdis(new ArrayList<>(List.of(pdis)))
+                .build();
+    }
+
+    private static PdIIndexado pdi(String id, String contenido, String ocrText) {
+        return PdIIndexado.builder().id(id).contenido(contenido).ocrText(ocrText).build();
+    }
+}
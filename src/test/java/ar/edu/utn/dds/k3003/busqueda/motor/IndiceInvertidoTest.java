@@ -0,0 +1,146 @@
+package ar.edu.utn.dds.k3003.busqueda.motor;
+
+import ar.edu.utn.dds.k3003.busqueda.dto.BusquedaRequestDTO;
+import ar.edu.utn.dds.k3003.busqueda.dto.ConteoBusqueda;
+import ar.edu.utn.dds.k3003.busqueda.dto.OrdenBusqueda;
+import ar.edu.utn.dds.k3003.busqueda.model.HechoIndexado;
+import ar.edu.utn.dds.k3003.busqueda.model.PdIIndexado;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+//Ranking BM25, tombstones con compactación y deduplicación por título del índice en memoria.
+//Está en el paquete motor porque IndiceInvertido es package-private.
+class IndiceInvertidoTest {
+
+    private static final LocalDateTime AHORA = LocalDateTime.of(2025, 6, 1, 12, 0);
+
+    private IndiceInvertido indice;
+    private DecaimientoRecencia sinDecaimiento;
+
+    @BeforeEach
+    void preparar() {
+        indice = new IndiceInvertido(1.2f, 0.75f);
+        sinDecaimiento = new DecaimientoRecencia(0, Duration.ofDays(30));
+    }
+
+    @Test
+    void coincidenciaEnElTituloRankeaPorEncimaDeLaDelOcr() {
+        indice.indexar(hecho("1", "Corte de luz en el barrio", null, AHORA));
+        HechoIndexado conOcr = hecho("2", "Reclamo vecinal", null, AHORA);
+        conOcr.setPdis(new ArrayList<>(List.of(PdIIndexado.builder()
+                .id("pdi-1")
+                .ocrText("cartel: corte programado")
+                .build())));
+        indice.indexar(conOcr);
+
+        assertThat(ids(buscar("corte"))).containsExactly("1", "2");
+    }
+
+    @Test
+    void masAparicionesDelTerminoSubenElScore() {
+        indice.indexar(hecho("1", "Inundación", "agua en la calle", AHORA));
+        indice.indexar(hecho("2", "Anegamiento", "agua, agua y más agua en la calle", AHORA));
+
+        IndiceInvertido.Resultado resultado = buscar("agua");
+
+        assertThat(ids(resultado)).containsExactly("2", "1");
+        assertThat(resultado.coincidencias().get(0).score())
+                .isGreaterThan(resultado.coincidencias().get(1).score());
+    }
+
+    @Test
+    void aIgualFrecuenciaElDocumentoMasCortoRankeaPrimero() {
+        indice.indexar(hecho("largo", "Bache en calle Mitre",
+                "bache en la esquina de la plaza frente a la escuela del barrio", AHORA));
+        indice.indexar(hecho("corto", "Bache", "bache profundo", AHORA));
+
+        assertThat(ids(buscar("bache"))).containsExactly("corto", "largo");
+    }
+
+    @Test
+    void terminoRaroPesaMasQueUnoComun() {
+        for (int i = 0; i < 10; i++) {
+            indice.indexar(hecho("comun-" + i, "Reclamo " + i, "zona centro", AHORA));
+        }
+        indice.indexar(hecho("raro", "Reclamo especial", "derrumbe", AHORA));
+
+        assertThat(ids(buscar("zona derrumbe")).get(0)).isEqualTo("raro");
+    }
+
+    @Test
+    void deduplicaPorTituloQuedandoseConElMasReciente() {
+        indice.indexar(hecho("viejo", "Incendio forestal", null, AHORA.minusDays(3)));
+        indice.indexar(hecho("nuevo", "Incendio forestal", null, AHORA));
+        indice.indexar(hecho("otro", "Incendio en fábrica", null, AHORA.minusDays(1)));
+
+        IndiceInvertido.Resultado resultado = buscar("incendio");
+
+        assertThat(resultado.total()).isEqualTo(2);
+        assertThat(ids(resultado)).containsExactlyInAnyOrder("nuevo", "otro");
+    }
+
+    @Test
+    void reindexarReemplazaLosTerminosAnteriores() {
+        indice.indexar(hecho("1", "Corte de agua", null, AHORA));
+        indice.indexar(hecho("1", "Corte de gas", null, AHORA));
+
+        assertThat(buscar("agua").coincidencias()).isEmpty();
+        assertThat(ids(buscar("gas"))).containsExactly("1");
+        assertThat(indice.documentos()).isEqualTo(1);
+    }
+
+    @Test
+    void eliminarDejaDeDevolverElHecho() {
+        indice.indexar(hecho("1", "Corte de agua", null, AHORA));
+        indice.indexar(hecho("2", "Falta de agua", null, AHORA));
+
+        indice.eliminar("1");
+
+        assertThat(ids(buscar("agua"))).containsExactly("2");
+        assertThat(indice.documentos()).isEqualTo(1);
+    }
+
+    @Test
+    void despuesDeCompactarLosTombstonesElIndiceSigueConsistente() {
+        for (int i = 0; i < 10; i++) {
+            indice.indexar(hecho("fijo-" + i, "Semáforo roto " + i, null, AHORA));
+        }
+        // Cada reindexación deja un tombstone: pasa el mínimo y supera a los vivos, así que compacta
+        for (int i = 0; i < 1500; i++) {
+            indice.indexar(hecho("movil", "Árbol caído " + (i % 2 == 0 ? "plaza" : "avenida"), null, AHORA));
+        }
+
+        assertThat(indice.documentos()).isEqualTo(11);
+        assertThat(ids(buscar("arbol"))).containsExactly("movil");
+        assertThat(ids(buscar("avenida"))).containsExactly("movil");
+        assertThat(buscar("plaza").coincidencias()).isEmpty();
+        assertThat(buscar("semaforo").total()).isEqualTo(10);
+    }
+
+    private IndiceInvertido.Resultado buscar(String consulta) {
+        return indice.buscar(new BusquedaRequestDTO(consulta, null, 0, 10,
+                OrdenBusqueda.RELEVANCIA, null, ConteoBusqueda.EXACTO), sinDecaimiento);
+    }
+
+    private static List<String> ids(IndiceInvertido.Resultado resultado) {
+        return resultado.coincidencias().stream().map(IndiceInvertido.Coincidencia::hechoId).toList();
+    }
+
+    private static HechoIndexado hecho(String id, String titulo, String descripcion, LocalDateTime actualizacion) {
+        return HechoIndexado.builder()
+                .id(id)
+                .nombreColeccion("coleccion")
+                .titulo(titulo)
+                .descripcion(descripcion)
+                .ultimaActualizacion(actualizacion)
+                .build();
+    }
+}
@@ -0,0 +1,146 @@
+package ar.edu.utn.dds.k3003.busqueda.service;
+
+import ar.edu.utn.dds.k3003.busqueda.dto.HechoDTO;
+import ar.edu.utn.dds.k3003.busqueda.dto.PdIDTO;
+import ar.edu.utn.dds.k3003.busqueda.dto.ResultadoLoteDTO;
+import ar.edu.utn.dds.k3003.busqueda.model.EventoIndexacionFallido;
+import ar.edu.utn.dds.k3003.busqueda.repository.EventoIndexacionFallidoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+
+//Coalescencia de eventos, rechazo con la cola llena (el 429 del controller)
+//y reintentos de lo que falla al volcar, con IndexacionService y el repositorio mockeados.
+class ColaIndexacionTest {
+
+    private IndexacionService indexacionService;
+    private EventoIndexacionFallidoRepository fallidosRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private ColaIndexacion cola;
+
+    @BeforeEach
+    void preparar() {
+        indexacionService = mock(IndexacionService.class);
+        fallidosRepository = mock(EventoIndexacionFallidoRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        when(fallidosRepository.findAll(any(Pageable.class))).thenReturn(Page.empty());
+        when(indexacionService.indexarHechos(anyList(), any())).thenReturn(ResultadoLoteDTO.vacio());
+    }
+
+    @AfterEach
+    void cerrar() throws InterruptedException {
+        if (cola != null) {
+            cola.detener();
+        }
+    }
+
+    @Test
+    void elMismoHechoEncoladoDosVecesOcupaUnSoloItem() {
+        iniciar(10, 100, Duration.ofHours(1), 3);
+
+        assertThat(cola.encolarHecho(hecho("h1", "Corte de luz"))).isTrue();
+        assertThat(cola.encolarHecho(hecho("h1", "Corte de luz en el barrio"))).isTrue();
+
+        assertThat(cola.profundidad()).isEqualTo(1);
+        assertThat(contador("metamapa.busqueda.webhook.cola.coalescidos", "hecho")).isEqualTo(1);
+    }
+
+    @Test
+    void eliminarUnPdIPendienteReemplazaSuAlta() {
+        iniciar(10, 100, Duration.ofHours(1), 3);
+
+        cola.encolarPdI(pdi("p1", "h1"));
+        cola.encolarEliminacionPdI("h1", "p1");
+        cola.encolarPdI(pdi("p1", "h1"));
+
+        assertThat(cola.profundidad()).isEqualTo(1);
+        assertThat(contador("metamapa.busqueda.webhook.cola.coalescidos", "eliminacion_pdi")).isEqualTo(1);
+        assertThat(contador("metamapa.busqueda.webhook.cola.coalescidos", "pdi")).isEqualTo(1);
+    }
+
+    @Test
+    void conLaColaLlenaRechazaElEvento() {
+        iniciar(2, 100, Duration.ofHours(1), 3);
+
+        assertThat(cola.encolarHecho(hecho("h1", "Corte de luz"))).isTrue();
+        assertThat(cola.encolarCensura("h2")).isTrue();
+        assertThat(cola.encolarHecho(hecho("h3", "Bache"))).isFalse();
+
+        assertThat(cola.profundidad()).isEqualTo(2);
+        assertThat(contador("metamapa.busqueda.webhook.cola.rechazados", "hecho")).isEqualTo(1);
+    }
+
+    @Test
+    void alJuntarTamanioFlushVuelcaEnUnSoloLote() {
+        iniciar(10, 2, Duration.ofHours(1), 3);
+
+        cola.encolarHecho(hecho("h1", "Corte de luz"));
+        cola.encolarHecho(hecho("h2", "Bache"));
+
+        verify(indexacionService, timeout(2000)).indexarHechos(
+                eq(List.of(hecho("h1", "Corte de luz"), hecho("h2", "Bache"))), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void loQueFallaSeReintentaYDespuesSeGuardaEnFallidos() {
+        when(indexacionService.indexarHechos(anyList(), any())).thenAnswer(invocacion -> {
+            List<HechoDTO> hechos = invocacion.getArgument(0);
+            Consumer<HechoDTO> alFallar = invocacion.getArgument(1);
+            hechos.forEach(alFallar);
+            return new ResultadoLoteDTO(hechos.size(), 0, hechos.size());
+        });
+        iniciar(10, 1, Duration.ofMillis(10), 2);
+
+        cola.encolarHecho(hecho("h1", "Corte de luz"));
+
+        ArgumentCaptor<EventoIndexacionFallido> guardado = ArgumentCaptor.forClass(EventoIndexacionFallido.class);
+        verify(fallidosRepository, timeout(2000)).save(guardado.capture());
+        verify(indexacionService, times(3)).indexarHechos(anyList(), any(Consumer.class));
+        assertThat(guardado.getValue().getHechoId()).isEqualTo("h1");
+        assertThat(guardado.getValue().getHecho()).isEqualTo(hecho("h1", "Corte de luz"));
+        assertThat(contador("metamapa.busqueda.webhook.cola.reencolados", "motivo", "reintento")).isEqualTo(2);
+        assertThat(cola.profundidad()).isZero();
+    }
+
+    private void iniciar(int capacidad, int tamanioFlush, Duration intervaloFlush, int maxReintentos) {
+        cola = new ColaIndexacion(indexacionService, fallidosRepository, meterRegistry,
+                capacidad, tamanioFlush, intervaloFlush, maxReintentos, Duration.ofHours(1));
+        cola.iniciar();
+    }
+
+    private double contador(String nombre, String tipo) {
+        return contador(nombre, "tipo", tipo);
+    }
+
+    private double contador(String nombre, String tag, String valor) {
+        return meterRegistry.counter(nombre, tag, valor).count();
+    }
+
+    private static HechoDTO hecho(String id, String titulo) {
+        return new HechoDTO(id, "coleccion", titulo, List.of(), null, null, null, null);
+    }
+
+    private static PdIDTO pdi(String id, String hechoId) {
+        return new PdIDTO(id, hechoId, "foto", null, null, null, null, null, null, null, null, null);
+    }
+}
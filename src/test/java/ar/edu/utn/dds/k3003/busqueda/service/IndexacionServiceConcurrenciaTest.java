@@ -0,0 +1,173 @@
+package ar.edu.utn.dds.k3003.busqueda.service;
+
+import ar.edu.utn.dds.k3003.busqueda.config.RetryConfig;
+import ar.edu.utn.dds.k3003.busqueda.dto.HechoDTO;
+import ar.edu.utn.dds.k3003.busqueda.dto.ResultadoLoteDTO;
+import ar.edu.utn.dds.k3003.busqueda.model.HechoIndexado;
+import ar.edu.utn.dds.k3003.busqueda.repository.HechoIndexadoRepository;
+import ar.edu.utn.dds.k3003.busqueda.repository.PdIPendienteRepository;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.flapdoodle.embed.mongo.commands.ServerAddress;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+
+//Compare-and-set por version de indexarHechos contra un MongoDB embebido, con otro escritor
+//metiéndose entre la lectura de los existentes y la escritura bulk.
+//Si mongod no se puede levantar (ej. sin red para descargarlo) los tests se saltean.
+class IndexacionServiceConcurrenciaTest {
+
+    private static TransitionWalker.ReachedState<RunningMongodProcess> mongod;
+    private static MongoClient cliente;
+
+    private MongoTemplateConIntromision mongoTemplate;
+    private HechoIndexadoRepository repository;
+    private SimpleMeterRegistry meterRegistry;
+    private IndexacionService servicio;
+
+    @BeforeAll
+    static void levantarMongo() {
+        try {
+            mongod = Mongod.instance().start(Version.Main.V7_0);
+            ServerAddress direccion = mongod.current().getServerAddress();
+            cliente = MongoClients.create("mongodb://" + direccion.getHost() + ":" + direccion.getPort());
+        } catch (RuntimeException e) {
+            mongod = null;
+        }
+        assumeTrue(mongod != null, "No se pudo levantar mongod embebido");
+    }
+
+    @AfterAll
+    static void bajarMongo() {
+        if (cliente != null) {
+            cliente.close();
+        }
+        if (mongod != null) {
+            mongod.close();
+        }
+    }
+
+    @BeforeEach
+    void preparar() {
+        mongoTemplate = new MongoTemplateConIntromision(cliente, "busqueda_test");
+        mongoTemplate.getDb().drop();
+        mongoTemplate.indexOps(HechoIndexado.class).createIndex(new Index()
+                .on("titulo", Sort.Direction.ASC)
+                .on("nombreColeccion", Sort.Direction.ASC)
+                .unique());
+
+        MongoRepositoryFactory repositorios = new MongoRepositoryFactory(mongoTemplate);
+        repository = repositorios.getRepository(HechoIndexadoRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        servicio = new IndexacionService(
+                repository,
+                repositorios.getRepository(PdIPendienteRepository.class),
+                mongoTemplate,
+                evento -> { },
+                new RetryConfig().indexacionRetryTemplate(meterRegistry, 3,
+                        Duration.ofMillis(5), 2.0, Duration.ofMillis(50)),
+                meterRegistry,
+                500, 2000, 50);
+    }
+
+    @Test
+    void conflictoDeVersionSeReintentaSobreLaVersionNueva() {
+        servicio.indexarHecho(hecho("h1", "Corte de luz"));
+        // Otro nodo lo actualiza después de que el lote leyó la versión 0
+        mongoTemplate.antesDelBulk(() -> servicio.indexarHecho(hecho("h1", "Corte de luz (otro nodo)")));
+
+        ResultadoLoteDTO resultado = servicio.indexarHechos(List.of(
+                hecho("h1", "Corte de luz en el centro"),
+                hecho("h2", "Bache")));
+
+        assertThat(resultado.exitosos()).isEqualTo(2);
+        assertThat(resultado.errores()).isZero();
+        HechoIndexado h1 = repository.findById("h1").orElseThrow();
+        assertThat(h1.getTitulo()).isEqualTo("Corte de luz en el centro");
+        assertThat(h1.getVersion()).isEqualTo(2L);
+        assertThat(repository.findById("h2")).isPresent();
+        assertThat(conflictosDeLote()).isEqualTo(1);
+    }
+
+    @Test
+    void insercionConcurrenteDelMismoHechoSeReintentaComoActualizacion() {
+        // Otro nodo crea el hecho después de que el lote vio que no existía
+        mongoTemplate.antesDelBulk(() -> servicio.indexarHecho(hecho("h1", "Corte de luz (otro nodo)")));
+
+        ResultadoLoteDTO resultado = servicio.indexarHechos(List.of(hecho("h1", "Corte de luz")));
+
+        assertThat(resultado.exitosos()).isEqualTo(1);
+        HechoIndexado h1 = repository.findById("h1").orElseThrow();
+        assertThat(h1.getTitulo()).isEqualTo("Corte de luz");
+        assertThat(h1.getVersion()).isEqualTo(1L);
+        assertThat(conflictosDeLote()).isEqualTo(1);
+    }
+
+    @Test
+    void tituloDuplicadoEnLaColeccionFallaSinReintentar() {
+        servicio.indexarHecho(hecho("h1", "Bache"));
+        List<HechoDTO> fallidos = new ArrayList<>();
+
+        ResultadoLoteDTO resultado = servicio.indexarHechos(
+                List.of(hecho("h2", "Bache"), hecho("h3", "Semáforo roto")), fallidos::add);
+
+        assertThat(resultado.exitosos()).isEqualTo(1);
+        assertThat(resultado.errores()).isEqualTo(1);
+        assertThat(fallidos).extracting(HechoDTO::id).containsExactly("h2");
+        assertThat(repository.findById("h2")).isEmpty();
+        assertThat(repository.findById("h3")).isPresent();
+        assertThat(conflictosDeLote()).isZero();
+    }
+
+    private double conflictosDeLote() {
+        return meterRegistry.counter("metamapa.busqueda.indexacion.conflictos", "tipo", "lote").count();
+    }
+
+    private static HechoDTO hecho(String id, String titulo) {
+        return new HechoDTO(id, "coleccion", titulo, List.of(), null, null, null, null);
+    }
+
+    // Corre una sola vez una escritura "de otro nodo" justo antes de armar el próximo bulk
+    private static final class MongoTemplateConIntromision extends MongoTemplate {
+
+        private Runnable intromision;
+
+        MongoTemplateConIntromision(MongoClient cliente, String baseDeDatos) {
+            super(cliente, baseDeDatos);
+        }
+
+        void antesDelBulk(Runnable intromision) {
+            this.intromision = intromision;
+        }
+
+        @Override
+        public BulkOperations bulkOps(BulkOperations.BulkMode modo, Class<?> entidad) {
+            Runnable pendiente = intromision;
+            intromision = null;
+            if (pendiente != null) {
+                pendiente.run();
+            }
+            return super.bulkOps(modo, entidad);
+        }
+    }
+}